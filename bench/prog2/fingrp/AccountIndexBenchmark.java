@@ -0,0 +1,110 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Scanner;
+import java.util.function.IntSupplier;
+
+public class AccountIndexBenchmark {
+    /**
+     * <p>Compares {@link AccountIndex} lookups against the two accounts file scans a login used to make, one to check
+     * that the account exists and one to check the password. Synthetic accounts files of 1,000, 10,000 and 100,000
+     * lines are written to a temporary folder. Lookups are measured for ID numbers that have an account and for ID
+     * numbers that do not, and the time to build the index from the file is reported separately.</p>
+     */
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    private static final int QUERIES = 1_024;
+
+    public static void main(String[] args) throws IOException {
+        File folder = Files.createTempDirectory("accounts").toFile();
+        System.out.printf("%-10s%-16s%-16s%-16s%-16s%-16s%n",
+                "Accounts", "Scan hit (us)", "Scan miss (us)", "Index hit (ns)", "Index miss (ns)", "Build (ms)");
+        for (int size : SIZES) {
+            File file = new File(folder, "accounts" + size + ".txt");
+            writeAccounts(file, size);
+            String[] hits = new String[QUERIES];
+            String[] misses = new String[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                hits[i] = idNumber((int) ((long) i * 7919 % size));
+                misses[i] = idNumber(size + i);
+            }
+
+            int scans = Math.max(4, 200_000 / size);
+            double scanHit = Bench.nanosPerOp(scans, login(file, hits)) / 1e3;
+            double scanMiss = Bench.nanosPerOp(scans, login(file, misses)) / 1e3;
+
+            AccountIndex index = AccountIndex.load(file);
+            double indexHit = Bench.nanosPerOp(1_000_000, find(index, hits));
+            double indexMiss = Bench.nanosPerOp(1_000_000, find(index, misses));
+            double build = Bench.nanosPerOp(Math.max(1, 100_000 / size),
+                    () -> AccountIndex.load(file).size()) / 1e6;
+            System.out.printf("%-10d%-16.1f%-16.1f%-16.1f%-16.1f%-16.2f%n",
+                    size, scanHit, scanMiss, indexHit, indexMiss, build);
+        }
+    }
+
+    /**
+     * A login the way CheckList did it before the index: an existence scan followed by a password scan.
+     */
+    private static IntSupplier login(File file, String[] idNumbers) {
+        return new IntSupplier() {
+            private int next;
+
+            @Override
+            public int getAsInt() {
+                String id = idNumbers[next++ & (QUERIES - 1)];
+                return scan(file, id) != null && scan(file, id).endsWith(":BSIT") ? 1 : 0;
+            }
+        };
+    }
+
+    /**
+     * A login through the index.
+     */
+    private static IntSupplier find(AccountIndex index, String[] idNumbers) {
+        return new IntSupplier() {
+            private int next;
+
+            @Override
+            public int getAsInt() {
+                return index.find(idNumbers[next++ & (QUERIES - 1)]) != null ? 1 : 0;
+            }
+        };
+    }
+
+    /**
+     * The accounts file scan used by CheckList before the index was introduced.
+     *
+     * @param file the accounts file.
+     * @param id   the ID number to look for.
+     * @return the account line, or null if there is none.
+     */
+    private static String scan(File file, String id) {
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNextLine()) {
+                String account = scanner.nextLine();
+                if (account.startsWith(id + ":")) {
+                    return account;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static String idNumber(int i) {
+        return String.valueOf(2_000_000 + i);
+    }
+
+    private static void writeAccounts(File file, int size) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(new AccountIndex.Account(idNumber(i), "pw" + i, i % 2 == 0 ? "BSIT" : "BSCS").toLine() + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class AccountWriterBenchmark {
+    /**
+     * <p>Measures sign-up throughput with 1, 4, 16 and 64 concurrent callers. The baseline opens the accounts file,
+     * appends one line, forces it to disk and closes it for every sign-up, one sign-up at a time, which is what
+     * CheckList did once its writes are made durable and stop interleaving. {@link AccountWriter} groups the
+     * sign-ups that arrive during a write into the next one.</p>
+     */
+    private static final int[] THREADS = {1, 4, 16, 64};
+    private static final int SIGN_UPS_PER_THREAD = 200;
+    private static final Object FILE_LOCK = new Object();
+
+    public static void main(String[] args) throws Exception {
+        File folder = Files.createTempDirectory("signups").toFile();
+        System.out.printf("%-10s%-24s%-24s%-10s%n", "Threads", "Per sign-up (/s)", "Group commit (/s)", "Speedup");
+        int run = 0;
+        for (int threads : THREADS) {
+            File single = new File(folder, "single" + run + ".txt");
+            double perSignUp = throughput(threads, (id) -> {
+                appendOne(single, new AccountIndex.Account(id, "pw", "BSIT"));
+                return CompletableFuture.completedFuture(true);
+            });
+
+            File grouped = new File(folder, "grouped" + run + ".txt");
+            AccountWriter writer = new AccountWriter(grouped, new AccountIndex(threads * SIGN_UPS_PER_THREAD));
+            double groupCommit = throughput(threads, (id) -> writer.signUp(new AccountIndex.Account(id, "pw", "BSIT")));
+
+            long lines = Files.lines(grouped.toPath()).count();
+            if (lines != (long) threads * SIGN_UPS_PER_THREAD) {
+                throw new IllegalStateException("Expected " + threads * SIGN_UPS_PER_THREAD + " accounts, found " + lines);
+            }
+            System.out.printf("%-10d%-24.0f%-24.0f%-10.1f%n", threads, perSignUp, groupCommit, groupCommit / perSignUp);
+            run++;
+        }
+    }
+
+    /**
+     * Runs sign-ups from several threads at once and waits for all of them to complete.
+     *
+     * @param threads the number of signing-up threads.
+     * @param signUp  the sign-up to run for each ID number.
+     * @return the number of completed sign-ups per second.
+     */
+    private static double throughput(int threads, SignUp signUp) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < SIGN_UPS_PER_THREAD; i++) {
+                        // Each caller waits for its own sign-up, as the sign-up window does
+                        signUp.signUp(String.valueOf(1_000_000 + thread * SIGN_UPS_PER_THREAD + i)).join();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return threads * SIGN_UPS_PER_THREAD / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * Appends a single account with its own open, write, force and close.
+     *
+     * @param file    the accounts file.
+     * @param account the account to append.
+     */
+    private static void appendOne(File file, AccountIndex.Account account) {
+        synchronized (FILE_LOCK) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap((account.toLine() + "\n").getBytes(StandardCharsets.UTF_8)));
+                channel.force(false);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private interface SignUp {
+        CompletableFuture<Boolean> signUp(String idNumber);
+    }
+}
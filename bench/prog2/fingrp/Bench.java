@@ -0,0 +1,98 @@
+package prog2.fingrp;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+public final class Bench {
+    /**
+     * <p>A small timing harness shared by the benchmarks in this folder. Each measurement runs a warm-up phase so
+     * the JIT compiles the code under test, then reports the average time of several measured rounds. Results are
+     * folded into {@link #sink} so the JIT cannot remove the work being measured.</p>
+     *
+     * <p>It also builds the students the benchmarks work on, see {@link #student(CourseCatalog, int, String, int,
+     * Random)}.</p>
+     */
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static volatile int sink;
+
+    private Bench() {
+    }
+
+    /**
+     * Measures the average time of one operation.
+     *
+     * @param operationsPerRound how many times the operation runs in one round.
+     * @param operation          the operation to measure; its result is consumed so it is not optimized away.
+     * @return the average time of one operation in nanoseconds.
+     */
+    public static double nanosPerOp(int operationsPerRound, IntSupplier operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(operationsPerRound, operation);
+        }
+        long total = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            total += run(operationsPerRound, operation);
+        }
+        return (double) total / MEASURED_ROUNDS / operationsPerRound;
+    }
+
+    /**
+     * Builds a student of a program who has finished a number of terms, with about one course in eight failed.
+     *
+     * @param id       the ID number of the student.
+     * @param program  the program of the student; its catalog must exist.
+     * @param progress the number of terms finished, counting summer terms.
+     * @param random   the source of the grades.
+     * @return the student.
+     */
+    public static Curriculum student(int id, String program, int progress, Random random) {
+        return student(CourseCatalog.forProgram(program), id, program, progress, random);
+    }
+
+    /**
+     * Builds a student from the courses and electives of a catalog who has finished a number of terms, with about
+     * one course in eight failed. The year 0 end-of-curriculum row is never graded.
+     *
+     * @param catalog  the catalog to build the courses and electives from.
+     * @param id       the ID number of the student.
+     * @param program  the program to record, usually the program of the catalog.
+     * @param progress the number of terms finished, counting summer terms.
+     * @param random   the source of the grades.
+     * @return the student.
+     */
+    public static Curriculum student(CourseCatalog catalog, int id, String program, int progress, Random random) {
+        CourseList courses = new CourseList();
+        for (int i = 0; i < catalog.courseCount(); i++) {
+            Course course = catalog.newCourse(i);
+            if (course.getYear() != 0 && (course.getYear() - 1) * 3 + course.getSemester() <= progress) {
+                course.setGrade(random.nextInt(8) == 0 ? 70 : 80 + random.nextInt(15));
+            }
+            courses.add(course);
+        }
+        ArrayList<Elective> electives = new ArrayList<>();
+        for (int i = 0; i < catalog.electiveCount(); i++) {
+            electives.add(catalog.newElective(i));
+        }
+        return new Curriculum(String.valueOf(id), program, courses, electives);
+    }
+
+    /**
+     * Runs one round of an operation.
+     *
+     * @param operations how many times to run the operation.
+     * @param operation  the operation to run.
+     * @return the elapsed time of the round in nanoseconds.
+     */
+    private static long run(int operations, IntSupplier operation) {
+        int result = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            result += operation.getAsInt();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += result;
+        return elapsed;
+    }
+}
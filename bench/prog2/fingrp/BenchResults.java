@@ -0,0 +1,132 @@
+package prog2.fingrp;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class BenchResults {
+    /**
+     * <p>Collects the measurements of a benchmark suite and writes them in a form other tools can read: a CSV file
+     * with one row per measurement and a JSON file that also records the Java version, the number of processors and
+     * the time of the run. A row names the suite, the benchmark, the number of courses and the average time of one
+     * operation in nanoseconds.</p>
+     *
+     * <p>Run as a program, the class compares two CSV files written by earlier runs and lists every benchmark that
+     * got slower by more than a tolerance, 10% by default. It exits with status 1 when it finds one, so it can fail
+     * a script that guards against regressions:
+     * {@code java prog2.fingrp.BenchResults baseline.csv current.csv [tolerancePercent]}.</p>
+     */
+    private static final String HEADER = "suite,benchmark,courses,nanosPerOp";
+
+    private final List<String[]> rows = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java prog2.fingrp.BenchResults baseline.csv current.csv [tolerancePercent]");
+            return;
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Double> baseline = readCsv(new File(args[0]));
+        Map<String, Double> current = readCsv(new File(args[1]));
+        int regressions = 0;
+        System.out.printf("%-60s%-16s%-16s%-10s%n", "Benchmark", "Baseline (ns)", "Current (ns)", "Change");
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null || before == 0) {
+                continue;
+            }
+            double change = entry.getValue() / before - 1;
+            boolean regressed = change > tolerance;
+            System.out.printf("%-60s%-16.1f%-16.1f%+.1f%%%s%n", entry.getKey(), before, entry.getValue(),
+                    change * 100, regressed ? "  REGRESSION" : "");
+            if (regressed) {
+                regressions++;
+            }
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmarks got slower by more than " + tolerance * 100 + "%");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Records one measurement.
+     *
+     * @param suite      the name of the suite.
+     * @param benchmark  the name of the benchmark within the suite.
+     * @param courses    the number of courses of the curriculum measured.
+     * @param nanosPerOp the average time of one operation in nanoseconds.
+     */
+    public void add(String suite, String benchmark, int courses, double nanosPerOp) {
+        rows.add(new String[]{suite, benchmark, String.valueOf(courses), String.format(Locale.ROOT, "%.1f", nanosPerOp)});
+    }
+
+    /**
+     * Writes the measurements as CSV, one row per measurement after a header row.
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeCsv(File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (String[] row : rows) {
+                writer.write(String.join(",", row));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes the measurements as JSON, together with the Java version, the number of processors and the time of
+     * the run.
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("{\n");
+            writer.write("  \"java\": \"" + System.getProperty("java.version") + "\",\n");
+            writer.write("  \"processors\": " + Runtime.getRuntime().availableProcessors() + ",\n");
+            writer.write("  \"timestamp\": \"" + Instant.now() + "\",\n");
+            writer.write("  \"results\": [\n");
+            for (int i = 0; i < rows.size(); i++) {
+                String[] row = rows.get(i);
+                writer.write("    {\"suite\": \"" + row[0] + "\", \"benchmark\": \"" + row[1] + "\", \"courses\": "
+                        + row[2] + ", \"nanosPerOp\": " + row[3] + "}" + (i + 1 < rows.size() ? "," : "") + "\n");
+            }
+            writer.write("  ]\n");
+            writer.write("}\n");
+        }
+    }
+
+    /**
+     * Reads a CSV file written by {@link #writeCsv(File)}.
+     *
+     * @return the time of each measurement, keyed by suite, benchmark and number of courses.
+     */
+    private static Map<String, Double> readCsv(File file) throws IOException {
+        Map<String, Double> results = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length == 4 && !line.equals(HEADER)) {
+                    results.put(fields[0] + "." + fields[1] + "[" + fields[2] + "]", Double.parseDouble(fields[3]));
+                }
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,64 @@
+package prog2.fingrp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+public class BulkGradeImportBenchmark {
+    /**
+     * <p>Imports 100,000 grade rows for a synthetic cohort of 2,000 BSIT students, 50 rows each, with one thread and
+     * with one thread per processor. The students start without grades and their rows come in curriculum order, so
+     * prerequisites are checked against grades applied earlier in the same import. Run it from the project folder
+     * so the prerequisites in {@code Courses/} are found.</p>
+     */
+    private static final int STUDENTS = 2_000;
+    private static final int ROWS_PER_STUDENT = 50;
+
+    public static void main(String[] args) throws IOException {
+        int[] parallelism = {1, Runtime.getRuntime().availableProcessors()};
+        System.out.printf("%-14s%-10s%-10s%-12s%-12s%n", "Parallelism", "Rows", "Applied", "Time (s)", "Rows/s");
+        for (int threads : parallelism) {
+            File folder = Files.createTempDirectory("import").toFile();
+            File csv = new File(folder, "grades.csv");
+            writeCohort(folder, csv);
+
+            BulkGradeImporter importer = new BulkGradeImporter(folder, threads);
+            BulkGradeImporter.Report report = importer.importFile(csv);
+            importer.shutdown();
+            System.out.printf("%-14d%-10d%-10d%-12.2f%-12.0f%n", threads, report.getRows(), report.getApplied(),
+                    report.getRows() / report.getRowsPerSecond(), report.getRowsPerSecond());
+
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Writes the record files of the synthetic cohort, with every grade cleared, and the CSV of their grades.
+     *
+     * @param folder the data folder to write the records to.
+     * @param csv    the CSV file to write.
+     */
+    private static void writeCohort(File folder, File csv) throws IOException {
+        List<Curriculum> cohort = RecordCodecBenchmark.syntheticCohort(STUDENTS);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(csv))) {
+            writer.write("id,program,courseNo,grade\n");
+            for (Curriculum curriculum : cohort) {
+                for (Course course : curriculum.courses) {
+                    course.setGrade(0);
+                }
+                Curriculum.writeAtomically(new File(folder, curriculum.getFileName()), CurriculumCodec.encode(curriculum));
+                for (int i = 0; i < ROWS_PER_STUDENT; i++) {
+                    Course course = curriculum.courses.get(i);
+                    writer.write(curriculum.getIdNumber() + "," + curriculum.getProgram() + "," + course.getCourseNo()
+                            + "," + (75 + i % 24) + "\n");
+                }
+            }
+        }
+    }
+}
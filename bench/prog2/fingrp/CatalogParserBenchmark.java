@@ -0,0 +1,98 @@
+package prog2.fingrp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Scanner;
+
+public class CatalogParserBenchmark {
+    /**
+     * <p>Compares {@link CatalogParser} against the Scanner, split and parseByte/parseFloat path the curriculum used
+     * to read its course files, on a synthetic catalog of 1,000,000 lines in the format of
+     * {@code Courses/<program>.txt}. Every path builds the same {@link Course} objects. The parser is measured over
+     * a heap buffer read in one call, which is what {@link CatalogParser#read(File)} returns for files up to 64 MB,
+     * and over a memory-mapped buffer. Reading the file is included in every column.</p>
+     */
+    private static final int LINES = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("catalog", ".txt");
+        file.deleteOnExit();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < LINES; i++) {
+                writer.write((1 + i % 4) + "," + (1 + i % 3) + ",IT " + (100 + i % 900) + ",SYNTHETIC COURSE NUMBER "
+                        + i + "," + (i % 5 == 0 ? "1.5" : "3"));
+                writer.newLine();
+            }
+        }
+        if (scanner(file) != heap(file) || heap(file) != mapped(file)) {
+            throw new IllegalStateException("Parsers disagree");
+        }
+
+        double scanner = Bench.nanosPerOp(1, () -> scanner(file)) / 1e6;
+        double heap = Bench.nanosPerOp(1, () -> heap(file)) / 1e6;
+        double mapped = Bench.nanosPerOp(1, () -> mapped(file)) / 1e6;
+        System.out.printf("%-10s%-18s%-18s%-18s%n", "Lines", "Scanner (ms)", "Parser heap (ms)", "Parser mapped (ms)");
+        System.out.printf("%-10d%-18.1f%-18.1f%-18.1f%n", LINES, scanner, heap, mapped);
+    }
+
+    /**
+     * Reads the catalog the way the curriculum used to.
+     */
+    private static int scanner(File file) {
+        int checksum = 0;
+        try (Scanner scan = new Scanner(file)) {
+            while (scan.hasNextLine()) {
+                String[] temp = scan.nextLine().split(",");
+                checksum += checksum(new Course(Byte.parseByte(temp[0]), Byte.parseByte(temp[1]), temp[2], temp[3],
+                        Float.parseFloat(temp[4]), 0, false));
+            }
+        } catch (FileNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        return checksum;
+    }
+
+    /**
+     * Reads the catalog into a heap buffer and parses it in place.
+     */
+    private static int heap(File file) {
+        try {
+            return parse(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Maps the catalog and parses it in place.
+     */
+    private static int mapped(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int parse(ByteBuffer buffer) {
+        int checksum = 0;
+        CatalogParser parser = new CatalogParser(buffer);
+        while (parser.nextLine()) {
+            checksum += checksum(new Course(parser.nextByte(), parser.nextByte(), parser.nextString(),
+                    parser.nextString(), parser.nextFloat(), 0, false));
+        }
+        return checksum;
+    }
+
+    private static int checksum(Course course) {
+        return course.getYear() * 31 + course.getSemester() * 7 + course.getCourseNo().length()
+                + course.getCourseName().hashCode() + (int) (course.getUnit() * 10);
+    }
+}
@@ -0,0 +1,37 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class CohortReportBenchmark {
+    /**
+     * <p>Runs {@link CohortReport} over synthetic cohorts of 1,000, 10,000 and 50,000 student records and prints
+     * the files per second and peak heap of each run. The peak heap should stay roughly flat as the cohort grows,
+     * since records are streamed through the report instead of being loaded all at once.</p>
+     */
+    private static final int[] COHORTS = {1_000, 10_000, 50_000};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.printf("%-10s%-12s%-14s%-16s%n", "Files", "Time (s)", "Files/s", "Peak heap (MB)");
+        for (int size : COHORTS) {
+            File folder = Files.createTempDirectory("cohort").toFile();
+            for (int student = 0; student < size; student++) {
+                Curriculum curriculum = RecordCodecBenchmark.syntheticStudent(student);
+                Curriculum.writeAtomically(new File(folder, curriculum.getFileName()), CurriculumCodec.encode(curriculum));
+            }
+            System.gc();
+
+            File output = new File(folder, "report.csv");
+            CohortReport.Summary summary = new CohortReport(folder).write(output);
+            System.out.printf("%-10d%-12.2f%-14.0f%-16.1f%n", summary.getFiles(),
+                    summary.getFiles() / summary.getFilesPerSecond(), summary.getFilesPerSecond(),
+                    summary.getPeakHeapBytes() / 1048576.0);
+
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package prog2.fingrp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CourseCatalogBenchmark {
+    /**
+     * <p>Measures what the shared {@link CourseCatalog} saves per student: the size of a record that refers to the
+     * catalog against one that stores every course in full, and the heap held by a loaded cohort whose course
+     * numbers and names are the catalog's strings against one where every student has its own copies, as records
+     * without a catalog are loaded.</p>
+     *
+     * <p>The cohort is built from the BSIT catalog, so the benchmark is run from the project folder. Like the
+     * application, loading the catalog archives a copy of it in {@code Data/catalogs}.</p>
+     */
+    private static final int COHORT = 10_000;
+    private static final String NO_CATALOG = "nocatalog";
+
+    public static void main(String[] args) throws Exception {
+        CourseCatalog catalog = CourseCatalog.forProgram("bsit");
+        if (catalog == null) {
+            System.err.println("Run from the project folder: Courses/bsit.txt not found");
+            return;
+        }
+        byte[][] full = new byte[COHORT][];
+        byte[][] shared = new byte[COHORT][];
+        long fullBytes = 0;
+        long sharedBytes = 0;
+        for (int i = 0; i < COHORT; i++) {
+            full[i] = CurriculumCodec.encode(Bench.student(catalog, 2_000_000 + i, NO_CATALOG, 6, new Random(i)));
+            shared[i] = CurriculumCodec.encode(Bench.student(catalog, 2_000_000 + i, "bsit", 6, new Random(i)));
+            fullBytes += full[i].length;
+            sharedBytes += shared[i].length;
+        }
+
+        long fullHeap = heapOf(full);
+        long sharedHeap = heapOf(shared);
+        System.out.printf("%-24s%-18s%-18s%n", "", "Full record", "Catalog record");
+        System.out.printf("%-24s%-18d%-18d%n", "Bytes per record", fullBytes / COHORT, sharedBytes / COHORT);
+        System.out.printf("%-24s%-18d%-18d%n", "Heap per student", fullHeap / COHORT, sharedHeap / COHORT);
+    }
+
+    /**
+     * Loads every record and measures the heap held by the loaded cohort.
+     */
+    private static long heapOf(byte[][] records) throws Exception {
+        long before = usedHeap();
+        List<Curriculum> loaded = new ArrayList<>(records.length);
+        for (byte[] record : records) {
+            loaded.add(CurriculumCodec.decode(record));
+        }
+        long after = usedHeap();
+        if (loaded.size() != records.length) {
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
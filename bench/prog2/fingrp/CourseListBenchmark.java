@@ -0,0 +1,111 @@
+package prog2.fingrp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+public class CourseListBenchmark {
+    /**
+     * <p>Compares {@link CourseList} against the flat ArrayList the curriculum used to keep its courses in.
+     * Inserting a course at the front of its semester is measured the way
+     * {@link Curriculum#insertCourseAtYearAndSemester(byte, byte, Course)} used to do it, a scan for the semester
+     * followed by a shifting insert, and with {@link CourseList#addFirst(Course)}; each insert is undone right away
+     * so the lists keep their size. Listing the courses of one year is measured as a scan of the whole list and
+     * with {@link CourseList#coursesOfYear(byte)}, and iterating the whole list is measured for both.</p>
+     */
+    private static final int[] SIZES = {70, 1_000, 100_000};
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s%-20s%-20s%-20s%-20s%-20s%-20s%n", "Courses", "Array insert (ns)", "Bucket insert (ns)",
+                "Array year (ns)", "Bucket year (ns)", "Array iterate (ns)", "Bucket iterate (ns)");
+        for (int size : SIZES) {
+            List<Course> sorted = SearchBenchmark.syntheticCourses(size);
+            sorted.sort(Comparator.comparingInt(Course::getYear).thenComparingInt(Course::getSemester));
+            ArrayList<Course> array = new ArrayList<>(sorted);
+            CourseList buckets = new CourseList(sorted);
+
+            int rounds = Math.max(4, 2_000_000 / size);
+            double arrayInsert = Bench.nanosPerOp(rounds, arrayInsert(array));
+            double bucketInsert = Bench.nanosPerOp(rounds, bucketInsert(buckets));
+            double arrayYear = Bench.nanosPerOp(rounds, () -> arrayYear(array, (byte) 3));
+            double bucketYear = Bench.nanosPerOp(rounds, () -> buckets.coursesOfYear((byte) 3).size());
+            double arrayIterate = Bench.nanosPerOp(rounds, () -> iterate(array));
+            double bucketIterate = Bench.nanosPerOp(rounds, () -> iterate(buckets));
+            System.out.printf("%-10d%-20.1f%-20.1f%-20.1f%-20.1f%-20.1f%-20.1f%n",
+                    size, arrayInsert, bucketInsert, arrayYear, bucketYear, arrayIterate, bucketIterate);
+        }
+    }
+
+    /**
+     * Inserts and removes a course at the front of a semester of a flat list, the way the curriculum used to.
+     */
+    private static IntSupplier arrayInsert(ArrayList<Course> courses) {
+        return new IntSupplier() {
+            private int next;
+
+            @Override
+            public int getAsInt() {
+                Course course = newCourse(next++);
+                int insertIndex = -1;
+                for (int i = 0; i < courses.size(); i++) {
+                    Course currentCourse = courses.get(i);
+                    if (currentCourse.getYear() == course.getYear() && currentCourse.getSemester() == course.getSemester()) {
+                        insertIndex = i;
+                        break;
+                    }
+                }
+                courses.add(insertIndex, course);
+                courses.remove(insertIndex);
+                return insertIndex;
+            }
+        };
+    }
+
+    /**
+     * Inserts and removes a course at the front of a semester of a course list.
+     */
+    private static IntSupplier bucketInsert(CourseList courses) {
+        return new IntSupplier() {
+            private int next;
+
+            @Override
+            public int getAsInt() {
+                int position = courses.addFirst(newCourse(next++));
+                courses.remove(position);
+                return position;
+            }
+        };
+    }
+
+    /**
+     * Builds a course for one of the semesters of years 1 to 4, cycling through them.
+     */
+    private static Course newCourse(int n) {
+        return new Course((byte) (1 + n % 4), (byte) (1 + n / 4 % 3), "NEW " + n, "New Course", 3, 0, false);
+    }
+
+    /**
+     * Counts the courses of a year by scanning the whole list.
+     */
+    private static int arrayYear(List<Course> courses, byte year) {
+        List<Course> found = new ArrayList<>();
+        for (Course course : courses) {
+            if (course.getYear() == year) {
+                found.add(course);
+            }
+        }
+        return found.size();
+    }
+
+    /**
+     * Sums the units of every course of a list.
+     */
+    private static int iterate(List<Course> courses) {
+        int units = 0;
+        for (Course course : courses) {
+            units += (int) course.getUnit();
+        }
+        return units;
+    }
+}
@@ -0,0 +1,96 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class CreditTransferBenchmark {
+    /**
+     * <p>Measures {@link CreditTransfer}: the time to move one student to the other program, against the shift the
+     * service used to make, which rewrote the course numbers in place and looked every course up again in a nested
+     * loop over the course list. The old shift is measured on a copy of the courses so every run starts from the
+     * same student.</p>
+     *
+     * <p>A second table simulates shifting a cohort of record files with one thread and with one thread per
+     * processor, as {@link CreditTransfer#simulateCohort(File, String, int)} does for registrar planning. Students
+     * are built from the BSIT and BSCS catalogs, so the benchmark is run from the project folder. The cohort is
+     * written to a temporary folder, which is deleted at the end.</p>
+     */
+    private static final int COHORT = 5_000;
+
+    public static void main(String[] args) throws IOException {
+        if (CourseCatalog.forProgram("bsit") == null || CourseCatalog.forProgram("bscs") == null) {
+            System.err.println("Run from the project folder: Courses/bsit.txt not found");
+            return;
+        }
+        System.out.printf("%-16s%-18s%-18s%-14s%-14s%n", "Shift", "Old shift (us)", "Transfer (us)", "Credited",
+                "Unmapped");
+        for (String[] shift : new String[][]{{"bsit", "bscs"}, {"bscs", "bsit"}}) {
+            Curriculum curriculum = Bench.student(3_000_000, shift[0], 9, new Random(1));
+            CreditTransfer transfer = CreditTransfer.between(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION,
+                    shift[0], shift[1]);
+            double old = Bench.nanosPerOp(20_000, () -> oldShift(curriculum, shift[1])) / 1e3;
+            double table = Bench.nanosPerOp(20_000, () -> transfer.transfer(curriculum).getCreditedCourses()) / 1e3;
+            CreditTransfer.Outcome outcome = transfer.transfer(curriculum);
+            System.out.printf("%-16s%-18.1f%-18.1f%-14d%-14d%n", shift[0] + " -> " + shift[1], old, table,
+                    outcome.getCreditedCourses(), outcome.getUnmapped().size());
+        }
+
+        File folder = Files.createTempDirectory("shift").toFile();
+        try {
+            Random random = new Random(COHORT);
+            for (int i = 0; i < COHORT; i++) {
+                Curriculum curriculum = Bench.student(3_000_000 + i, "bsit", random.nextInt(12), random);
+                Curriculum.writeAtomically(new File(folder, Curriculum.fileNameOf(curriculum.getIdNumber(),
+                        curriculum.getProgram())), CurriculumCodec.encode(curriculum));
+            }
+            int processors = Runtime.getRuntime().availableProcessors();
+            CreditTransfer.simulateCohort(folder, "bscs", processors);
+            System.out.println();
+            System.out.printf("%-12s%-14s%-16s%n", "Threads", "Students", "Cohort (ms)");
+            for (int threads : new int[]{1, processors}) {
+                long start = System.nanoTime();
+                int simulated = CreditTransfer.simulateCohort(folder, "bscs", threads).size();
+                System.out.printf("%-12d%-14d%-16.1f%n", threads, simulated, (System.nanoTime() - start) / 1e6);
+            }
+        } finally {
+            File[] records = folder.listFiles();
+            if (records != null) {
+                for (File record : records) {
+                    record.delete();
+                }
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Shifts a copy of the courses of a student the way the service used to: the course numbers are rewritten with
+     * {@code String.replace} and each course is looked up again in the whole list.
+     */
+    private static int oldShift(Curriculum curriculum, String newProgram) {
+        ArrayList<Course> courses = new ArrayList<>();
+        for (Course course : curriculum.getCourses()) {
+            courses.add(new Course(course.getYear(), course.getSemester(), course.getCourseNo(),
+                    course.getCourseName(), course.getUnit(), course.getGrade(), course.isTaking()));
+        }
+        int taking = 0;
+        for (Course course : courses) {
+            if (course.getCourseNo().startsWith("IT") && newProgram.equals("bscs")) {
+                course.setCourseNo(course.getCourseNo().replace("IT", "CS"));
+            } else if (course.getCourseNo().startsWith("CS") && newProgram.equals("bsit")) {
+                course.setCourseNo(course.getCourseNo().replace("CS", "IT"));
+            }
+            for (Course newCourse : courses) {
+                if (course.getCourseNo().equals(newCourse.getCourseNo()) && newCourse.getGrade() > 0) {
+                    course.setTaking(true);
+                    taking++;
+                    break;
+                }
+            }
+        }
+        return taking;
+    }
+}
@@ -0,0 +1,253 @@
+package prog2.fingrp;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+public class CurriculumSuite {
+    /**
+     * <p>Measures the hot paths of {@link Curriculum} on synthetic curricula of 70, 1,000 and 100,000 courses, so
+     * changes to them can be compared run against run:</p>
+     * <ul>
+     *     <li>search: {@link Curriculum#search(String)} for a random course number.</li>
+     *     <li>checkPrerequisites: {@link Curriculum#checkPrerequisites(String)} with the graph already loaded.</li>
+     *     <li>readPrerequisites: parsing and compiling the prerequisite file after it changed.</li>
+     *     <li>save and load: {@link Curriculum#saveFile()} and reading the record back, through a temporary
+     *     folder; encode and decode: the same without the file system.</li>
+     *     <li>parseCatalog: reading a course file and an elective file into a {@link CourseCatalog}, the parsing
+     *     that replaced {@code populateArrayList}.</li>
+     *     <li>gpaReport and descendingReport: the text behind {@link Curriculum#displayCurriculumWithGPA()} and
+     *     {@link Curriculum#displayGradesDescending()}, built without Swing.</li>
+     * </ul>
+     *
+     * <p>Half of the courses have a grade. The prerequisite file lists at most the first 1,000 courses, course i
+     * requiring courses i - 1 and i / 2, since the eligibility closures grow with the square of the file; a real
+     * program lists about 40. It is written to the {@code Courses} folder for the run and deleted afterwards, so
+     * the suite is run from the project folder.</p>
+     *
+     * <p>Usage: {@code java prog2.fingrp.CurriculumSuite [--sizes 70,1000,100000] [--csv file] [--json file]}.
+     * The CSV files of two runs can be compared with {@link BenchResults}.</p>
+     */
+    private static final String SUITE = "curriculum";
+    private static final int[] DEFAULT_SIZES = {70, 1_000, 100_000};
+    private static final int MAX_PREREQUISITE_COURSES = 1_000;
+    private static final int QUERIES = 1024;
+
+    public static void main(String[] args) throws IOException {
+        // readPrerequisites changes the last-modified time on every call, which must be seen at once
+        System.setProperty("checklist.prerequisiteRecheckMillis", "0");
+        int[] sizes = DEFAULT_SIZES;
+        File csv = null;
+        File json = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    String[] values = args[i + 1].split(",");
+                    sizes = new int[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        sizes[j] = Integer.parseInt(values[j].trim());
+                    }
+                    break;
+                case "--csv":
+                    csv = new File(args[i + 1]);
+                    break;
+                case "--json":
+                    json = new File(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+        if (!new File(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION).isDirectory()) {
+            System.err.println("Run from the project folder: Courses not found");
+            return;
+        }
+
+        BenchResults results = new BenchResults();
+        File folder = Files.createTempDirectory("suite").toFile();
+        try {
+            System.out.printf("%-22s%-12s%-16s%n", "Benchmark", "Courses", "Time (ns/op)");
+            for (int size : sizes) {
+                run(size, folder, results);
+            }
+        } finally {
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            folder.delete();
+        }
+        if (csv != null) {
+            results.writeCsv(csv);
+        }
+        if (json != null) {
+            results.writeJson(json);
+        }
+    }
+
+    /**
+     * Runs every benchmark of the suite on a curriculum of one size.
+     */
+    private static void run(int size, File folder, BenchResults results) throws IOException {
+        String program = "synthetic" + size;
+        Random random = new Random(size);
+        List<Course> courses = SearchBenchmark.syntheticCourses(size);
+        for (Course course : courses) {
+            if (random.nextBoolean()) {
+                course.setGrade(65 + random.nextInt(35));
+            }
+        }
+        ArrayList<Elective> electives = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            electives.add(new Elective("SE " + (10 + i), "Synthetic Elective " + i, (byte) 3, (byte) 0, false, true));
+        }
+        Curriculum curriculum = new Curriculum("suite" + size, program, new CourseList(courses), electives);
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = courses.get(random.nextInt(size)).getCourseNo();
+        }
+
+        File prerequisites = new File(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION + program + "prerequisites.txt");
+        writePrerequisites(prerequisites, courses);
+        try {
+            int light = Math.max(16, 2_000_000 / size);
+
+            record(results, "search", size, Bench.nanosPerOp(light, new IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    return curriculum.search(queries[next++ & (QUERIES - 1)]);
+                }
+            }));
+
+            record(results, "checkPrerequisites", size, Bench.nanosPerOp(light, new IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    return curriculum.checkPrerequisites(queries[next++ & (QUERIES - 1)]) ? 1 : 0;
+                }
+            }));
+
+            record(results, "readPrerequisites", size, Bench.nanosPerOp(Math.max(1, 2_000 / Math.min(size,
+                    MAX_PREREQUISITE_COURSES)), new IntSupplier() {
+                private long modified = prerequisites.lastModified();
+
+                @Override
+                public int getAsInt() {
+                    // A new last-modified time makes the cached graph stale, so the file is parsed again
+                    modified += 1000;
+                    prerequisites.setLastModified(modified);
+                    return PrerequisiteGraph.forProgram(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION, program).size();
+                }
+            }));
+        } finally {
+            prerequisites.delete();
+        }
+
+        int heavy = Math.max(1, 20_000 / size);
+        File record = new File(folder, Curriculum.fileNameOf(curriculum.getIdNumber(), program));
+        record(results, "save", size, Bench.nanosPerOp(heavy, () -> {
+            try {
+                byte[] data = CurriculumCodec.encode(curriculum);
+                Curriculum.writeAtomically(record, data);
+                return data.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        record(results, "load", size, Bench.nanosPerOp(heavy, () -> {
+            try {
+                return Curriculum.readRecord(record).getCourses().size();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        byte[] encoded = CurriculumCodec.encode(curriculum);
+        record(results, "encode", size, Bench.nanosPerOp(heavy * 4, () -> CurriculumCodec.encode(curriculum).length));
+        record(results, "decode", size, Bench.nanosPerOp(heavy * 4, () -> {
+            try {
+                return CurriculumCodec.decode(encoded).getCourses().size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+
+        byte[] courseFile = courseFile(courses);
+        byte[] electiveFile = electiveFile(electives);
+        record(results, "parseCatalog", size, Bench.nanosPerOp(heavy * 4,
+                () -> new CourseCatalog(program, courseFile, electiveFile).courseCount()));
+
+        record(results, "gpaReport", size, Bench.nanosPerOp(heavy,
+                () -> curriculum.curriculumWithGPAReport().length()));
+        record(results, "descendingReport", size, Bench.nanosPerOp(heavy,
+                () -> curriculum.gradesDescendingReport().length()));
+    }
+
+    /**
+     * Prints a measurement and adds it to the results.
+     */
+    private static void record(BenchResults results, String benchmark, int size, double nanosPerOp) {
+        System.out.printf("%-22s%-12d%-16.1f%n", benchmark, size, nanosPerOp);
+        results.add(SUITE, benchmark, size, nanosPerOp);
+    }
+
+    /**
+     * Writes a prerequisite file for the first courses of a synthetic curriculum.
+     */
+    private static void writePrerequisites(File file, List<Course> courses) throws IOException {
+        int listed = Math.min(courses.size(), MAX_PREREQUISITE_COURSES);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 1; i < listed; i++) {
+                writer.write(courses.get(i).getCourseNo() + "," + courses.get(i - 1).getCourseNo());
+                if (i / 2 != i - 1) {
+                    writer.write("," + courses.get(i / 2).getCourseNo());
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Builds the contents of a course file listing synthetic courses, ending with the usual sentinel line.
+     */
+    private static byte[] courseFile(List<Course> courses) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringBuilder line = new StringBuilder();
+        for (Course course : courses) {
+            line.setLength(0);
+            line.append(course.getYear()).append(',').append(course.getSemester()).append(',')
+                    .append(course.getCourseNo()).append(',').append(course.getCourseName()).append(',')
+                    .append((int) course.getUnit()).append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8), 0, line.length());
+        }
+        byte[] sentinel = "0,0,null,null,0".getBytes(StandardCharsets.UTF_8);
+        out.write(sentinel, 0, sentinel.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds the contents of an elective file listing synthetic electives.
+     */
+    private static byte[] electiveFile(List<Elective> electives) {
+        StringBuilder file = new StringBuilder();
+        for (Elective elective : electives) {
+            file.append(elective.getCourseNo()).append(',').append(elective.getCourseName()).append(',')
+                    .append((int) elective.getUnit()).append(',').append((int) elective.getUnit2()).append(",false,true\n");
+        }
+        return file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class DegreePlannerBenchmark {
+    /**
+     * <p>Measures {@link DegreePlanner}: the time to plan one student at several points of the program, and the
+     * time to plan a whole cohort of record files with one thread and with one thread per processor, as
+     * {@link DegreePlanner#planCohort(File, int)} does for advising week.</p>
+     *
+     * <p>Students are built from the BSIT and BSCS catalogs, so the benchmark is run from the project folder. The
+     * cohort is written to a temporary folder, which is deleted at the end.</p>
+     */
+    private static final int COHORT = 5_000;
+    private static final int[] PROGRESS = {0, 3, 6, 9};
+
+    public static void main(String[] args) throws IOException {
+        if (CourseCatalog.forProgram("bsit") == null || CourseCatalog.forProgram("bscs") == null) {
+            System.err.println("Run from the project folder: Courses/bsit.txt not found");
+            return;
+        }
+        DegreePlanner planner = new DegreePlanner(DegreePlanner.DEFAULT_MAX_UNITS, DegreePlanner.DEFAULT_MAX_SUMMER_UNITS);
+        System.out.printf("%-12s%-14s%-16s%-16s%n", "Program", "Terms done", "Plan (us)", "Terms planned");
+        for (String program : new String[]{"bsit", "bscs"}) {
+            for (int progress : PROGRESS) {
+                Curriculum curriculum = Bench.student(3_000_000, program, progress, new Random(progress));
+                double plan = Bench.nanosPerOp(2_000, () -> planner.plan(curriculum).getTerms().size()) / 1e3;
+                System.out.printf("%-12s%-14d%-16.1f%-16d%n", program, progress, plan,
+                        planner.plan(curriculum).getTerms().size());
+            }
+        }
+
+        File folder = Files.createTempDirectory("cohort").toFile();
+        try {
+            Random random = new Random(COHORT);
+            for (int i = 0; i < COHORT; i++) {
+                Curriculum curriculum = Bench.student(3_000_000 + i, i % 2 == 0 ? "bsit" : "bscs", random.nextInt(12), random);
+                Curriculum.writeAtomically(new File(folder, Curriculum.fileNameOf(curriculum.getIdNumber(),
+                        curriculum.getProgram())), CurriculumCodec.encode(curriculum));
+            }
+            int processors = Runtime.getRuntime().availableProcessors();
+            planner.planCohort(folder, processors);
+            System.out.println();
+            System.out.printf("%-12s%-14s%-16s%n", "Threads", "Students", "Cohort (ms)");
+            for (int threads : new int[]{1, processors}) {
+                long start = System.nanoTime();
+                int planned = planner.planCohort(folder, threads).size();
+                System.out.printf("%-12d%-14d%-16.1f%n", threads, planned, (System.nanoTime() - start) / 1e6);
+            }
+        } finally {
+            File[] records = folder.listFiles();
+            if (records != null) {
+                for (File record : records) {
+                    record.delete();
+                }
+            }
+            folder.delete();
+        }
+    }
+}
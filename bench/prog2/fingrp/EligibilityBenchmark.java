@@ -0,0 +1,177 @@
+package prog2.fingrp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class EligibilityBenchmark {
+    /**
+     * <p>Compares the {@link EligibilityEngine} against the check the curriculum used to make, which scanned the
+     * course list once for every direct prerequisite. Measured are a single "can take X" check and the list of
+     * every course that can be taken next term, on a synthetic program where course i requires courses i - 1 and
+     * i / 2. Half of the courses, picked at random, are passed. The time to compile the engine is shown as well.</p>
+     *
+     * <p>A second table measures keeping {@code canBeTaken} live when every course is also an elective: moving one
+     * grade across the passing grade, which checks only the direct dependents of the course again, against checking
+     * every elective again after each change, as the elective screen did.</p>
+     *
+     * <p>The transitive closures take n * n / 8 bytes per table, so the sizes stop at 10,000 courses; the real
+     * programs have about 75. The old next-term list is quadratic and is only measured up to 1,000 courses.</p>
+     */
+    private static final int[] SIZES = {70, 1_000, 10_000};
+    private static final int QUERIES = 1024;
+
+    public static void main(String[] args) throws IOException {
+        File directory = Files.createTempDirectory("eligibility").toFile();
+        List<String> propagation = new ArrayList<>();
+        System.out.printf("%-10s%-18s%-18s%-22s%-22s%-18s%n", "Courses", "Scan check (ns)", "Engine check (ns)",
+                "Scan next term (us)", "Engine next term (us)", "Compile (ms)");
+        for (int size : SIZES) {
+            String program = "synthetic" + size;
+            File file = new File(directory, program + "prerequisites.txt");
+            file.deleteOnExit();
+            List<Course> courses = SearchBenchmark.syntheticCourses(size);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+                for (int i = 1; i < size; i++) {
+                    writer.write(courses.get(i).getCourseNo() + "," + courses.get(i - 1).getCourseNo());
+                    if (i / 2 != i - 1) {
+                        writer.write("," + courses.get(i / 2).getCourseNo());
+                    }
+                    writer.newLine();
+                }
+            }
+            long start = System.nanoTime();
+            PrerequisiteGraph graph = PrerequisiteGraph.forProgram(directory.getPath() + File.separator, program);
+            double compile = (System.nanoTime() - start) / 1e6;
+
+            Random random = new Random(size);
+            for (Course course : courses) {
+                course.setGrade(random.nextBoolean() ? 80 : 0);
+            }
+            EligibilityEngine engine = graph.getEligibility();
+            PassedCourses passed = new PassedCourses(engine, courses);
+            String[] queries = new String[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = courses.get(random.nextInt(size)).getCourseNo();
+            }
+
+            double scan = Bench.nanosPerOp(Math.max(16, 200_000 / size), new java.util.function.IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    return scanCheck(courses, graph, queries[next++ & (QUERIES - 1)]) ? 1 : 0;
+                }
+            });
+            double check = Bench.nanosPerOp(1_000_000, new java.util.function.IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    return engine.canTake(graph.idOf(queries[next++ & (QUERIES - 1)]), passed.bits()) ? 1 : 0;
+                }
+            });
+            String scanNextTerm = "-";
+            if (size <= 1_000) {
+                scanNextTerm = String.format("%.1f", Bench.nanosPerOp(4, () -> scanNextTerm(courses, graph).size()) / 1e3);
+            }
+            double nextTerm = Bench.nanosPerOp(Math.max(4, 100_000 / size),
+                    () -> nextTerm(courses, engine, passed).size()) / 1e3;
+            if (size <= 1_000 && scanNextTerm(courses, graph).size() != nextTerm(courses, engine, passed).size()) {
+                throw new IllegalStateException("Engine and scan disagree");
+            }
+            System.out.printf("%-10d%-18.1f%-18.1f%-22s%-22.1f%-18.1f%n", size, scan, check, scanNextTerm, nextTerm,
+                    compile);
+
+            List<Elective> electives = new ArrayList<>(size);
+            for (Course course : courses) {
+                electives.add(new Elective(course.getCourseNo(), course.getCourseName(), (byte) 3, (byte) 0, false, true));
+            }
+            CourseList list = new CourseList(courses);
+            PassedCourses live = new PassedCourses(engine, list, electives);
+            list.setObserver(live);
+            double flip = Bench.nanosPerOp(100_000, new java.util.function.IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    Course course = list.get((int) ((long) next++ * 7919 % size));
+                    course.setGrade(PassedCourses.isPassing(course.getGrade()) ? 70 : 80);
+                    return course.getYear();
+                }
+            });
+            double recheck = Bench.nanosPerOp(Math.max(4, 100_000 / size), () -> recheck(engine, live, electives));
+            propagation.add(String.format("%-10d%-22.1f%-22.1f", size, flip, recheck));
+        }
+        System.out.println();
+        System.out.printf("%-10s%-22s%-22s%n", "Courses", "Live update (ns)", "Recheck all (ns)");
+        for (String line : propagation) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Checks every elective again, as the elective screen did after a change.
+     */
+    private static int recheck(EligibilityEngine engine, PassedCourses passed, List<Elective> electives) {
+        int eligible = 0;
+        for (Elective elective : electives) {
+            boolean canTake = engine.canTake(engine.getGraph().idOf(elective.getCourseNo()), passed.bits());
+            elective.setcanBeTaken(canTake);
+            eligible += canTake ? 1 : 0;
+        }
+        return eligible;
+    }
+
+    /**
+     * Checks the direct prerequisites of a course by scanning the course list for each one, as the curriculum did.
+     */
+    private static boolean scanCheck(List<Course> courses, PrerequisiteGraph graph, String courseNo) {
+        for (int prerequisite : graph.prerequisitesOf(courseNo)) {
+            boolean met = false;
+            for (Course course : courses) {
+                if (course.getCourseNo().equals(graph.codeOf(prerequisite)) && course.getGrade() > 0) {
+                    met = true;
+                    break;
+                }
+            }
+            if (!met) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the courses that can be taken next term with the scanning check.
+     */
+    private static List<Course> scanNextTerm(List<Course> courses, PrerequisiteGraph graph) {
+        List<Course> eligible = new ArrayList<>();
+        for (Course course : courses) {
+            if (course.getGrade() <= 0 && scanCheck(courses, graph, course.getCourseNo())) {
+                eligible.add(course);
+            }
+        }
+        return eligible;
+    }
+
+    /**
+     * Lists the courses that can be taken next term with the engine, as {@link Curriculum#getEligibleCourses()} does.
+     */
+    private static List<Course> nextTerm(List<Course> courses, EligibilityEngine engine, PassedCourses passed) {
+        PrerequisiteGraph graph = engine.getGraph();
+        List<Course> eligible = new ArrayList<>();
+        for (Course course : courses) {
+            if (!PassedCourses.isPassing(course.getGrade())
+                    && engine.canTake(graph.idOf(course.getCourseNo()), passed.bits())) {
+                eligible.add(course);
+            }
+        }
+        return eligible;
+    }
+}
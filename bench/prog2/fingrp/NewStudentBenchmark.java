@@ -0,0 +1,107 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+public class NewStudentBenchmark {
+    /**
+     * <p>Compares the first login of a new student with loading an existing one. The first login builds the
+     * curriculum from the cached {@link CourseCatalog} and hands it to the background writer, which saves it once;
+     * the pending writes are flushed after the measurements. The old three-pass path is measured as well: copy the
+     * program file into the record file as text, read that file back, then overwrite it with the record.</p>
+     *
+     * <p>The benchmark works on the real {@code Courses} and {@code Data} folders, so it is run from the project
+     * folder. The records it creates are deleted at the end.</p>
+     */
+    private static final String PROGRAM = "bsit";
+    private static final String PREFIX = "bench";
+    private static final int STUDENTS = 200;
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (CourseCatalog.forProgram(PROGRAM) == null) {
+            System.err.println("Run from the project folder: Courses/" + PROGRAM + ".txt not found");
+            return;
+        }
+        int[] next = new int[1];
+        try {
+            double threePass = Bench.nanosPerOp(STUDENTS, () -> threePass(PREFIX + "old" + next[0]++)) / 1e3;
+            double firstLogin = Bench.nanosPerOp(STUDENTS, () -> firstLogin(PREFIX + "new" + next[0]++)) / 1e3;
+            String existing = PREFIX + "existing";
+            new Curriculum(existing, PROGRAM);
+            CurriculumPersister.flushAll();
+            double load = Bench.nanosPerOp(STUDENTS, () -> load(existing)) / 1e3;
+            System.out.printf("%-22s%-22s%-22s%n", "Three passes (us)", "First login (us)", "Normal load (us)");
+            System.out.printf("%-22.1f%-22.1f%-22.1f%n", threePass, firstLogin, load);
+        } finally {
+            CurriculumPersister.flushAll();
+            File[] records = new File(Curriculum.DATA_FILE_LOCATION).listFiles((dir, name) -> name.startsWith(PREFIX));
+            if (records != null) {
+                for (File record : records) {
+                    record.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new student through the catalog.
+     */
+    private static int firstLogin(String idNumber) {
+        try {
+            return new Curriculum(idNumber, PROGRAM).getCourses().size();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads an existing student.
+     */
+    private static int load(String idNumber) {
+        try {
+            return new Curriculum(idNumber, PROGRAM).getCourses().size();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a new student the way the curriculum used to: the program file is copied into the record file as
+     * text, the text is parsed back into courses, the electives are read, and the record overwrites the text.
+     */
+    private static int threePass(String idNumber) {
+        String fileName = Curriculum.fileNameOf(idNumber, PROGRAM);
+        try {
+            try (Scanner scan = new Scanner(new File(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION + PROGRAM + ".txt"));
+                 FileWriter writer = new FileWriter(Curriculum.DATA_FILE_LOCATION + fileName)) {
+                while (scan.hasNextLine()) {
+                    writer.write(scan.nextLine() + ",0" + ",false" + "\n");
+                }
+            }
+            CourseList courses = new CourseList();
+            try (Scanner scan = new Scanner(new File(Curriculum.DATA_FILE_LOCATION + fileName))) {
+                while (scan.hasNextLine()) {
+                    String[] temp = scan.nextLine().split(",");
+                    courses.add(new Course(Byte.parseByte(temp[0]), Byte.parseByte(temp[1]), temp[2], temp[3],
+                            Float.parseFloat(temp[4]), Float.parseFloat(temp[5]), Boolean.parseBoolean(temp[6])));
+                }
+            }
+            ArrayList<Elective> electives = new ArrayList<>();
+            try (Scanner scan = new Scanner(new File(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION + PROGRAM + "electives.txt"))) {
+                while (scan.hasNextLine()) {
+                    String[] temp = scan.nextLine().split(",");
+                    electives.add(new Elective(temp[0], temp[1], Byte.parseByte(temp[2]), Byte.parseByte(temp[3]),
+                            Boolean.parseBoolean(temp[4]), Boolean.parseBoolean(temp[5])));
+                }
+            }
+            Curriculum curriculum = new Curriculum(idNumber, PROGRAM, courses, electives);
+            curriculum.writeRecord();
+            return curriculum.getCourses().size();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package prog2.fingrp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecordCodecBenchmark {
+    /**
+     * <p>Compares Java serialization with the binary record format of {@link CurriculumCodec} over a synthetic
+     * cohort of student records. Every record is saved to and loaded from a temporary folder, so the numbers
+     * include the file system the same way {@link Curriculum#saveFile()} and loading a curriculum do. The in-memory
+     * columns measure encoding and decoding alone.</p>
+     */
+    private static final int COHORT = 2_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        List<Curriculum> cohort = syntheticCohort(COHORT);
+        File folder = Files.createTempDirectory("records").toFile();
+
+        long serializedBytes = 0;
+        long recordBytes = 0;
+        for (Curriculum curriculum : cohort) {
+            serializedBytes += serialize(curriculum).length;
+            recordBytes += CurriculumCodec.encode(curriculum).length;
+        }
+
+        double serializedSave = 0;
+        double serializedLoad = 0;
+        double recordSave = 0;
+        double recordLoad = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < cohort.size(); i++) {
+                write(new File(folder, i + ".ser"), serialize(cohort.get(i)));
+            }
+            long saved = System.nanoTime();
+            for (int i = 0; i < cohort.size(); i++) {
+                deserialize(Files.readAllBytes(new File(folder, i + ".ser").toPath()));
+            }
+            long loaded = System.nanoTime();
+            for (int i = 0; i < cohort.size(); i++) {
+                write(new File(folder, i + ".rec"), CurriculumCodec.encode(cohort.get(i)));
+            }
+            long encoded = System.nanoTime();
+            for (int i = 0; i < cohort.size(); i++) {
+                CurriculumCodec.decode(Files.readAllBytes(new File(folder, i + ".rec").toPath()));
+            }
+            long decoded = System.nanoTime();
+            if (round > 0) {
+                serializedSave += (saved - start) / 1e3 / COHORT / ROUNDS;
+                serializedLoad += (loaded - saved) / 1e3 / COHORT / ROUNDS;
+                recordSave += (encoded - loaded) / 1e3 / COHORT / ROUNDS;
+                recordLoad += (decoded - encoded) / 1e3 / COHORT / ROUNDS;
+            }
+        }
+
+        byte[][] serialized = new byte[COHORT][];
+        byte[][] records = new byte[COHORT][];
+        for (int i = 0; i < COHORT; i++) {
+            serialized[i] = serialize(cohort.get(i));
+            records[i] = CurriculumCodec.encode(cohort.get(i));
+        }
+        double serializedEncode = 0;
+        double serializedDecode = 0;
+        double recordEncode = 0;
+        double recordDecode = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (Curriculum curriculum : cohort) {
+                serialize(curriculum);
+            }
+            long encodedSerialized = System.nanoTime();
+            for (byte[] data : serialized) {
+                deserialize(data);
+            }
+            long decodedSerialized = System.nanoTime();
+            for (Curriculum curriculum : cohort) {
+                CurriculumCodec.encode(curriculum);
+            }
+            long encodedRecords = System.nanoTime();
+            for (byte[] data : records) {
+                CurriculumCodec.decode(data);
+            }
+            long decodedRecords = System.nanoTime();
+            if (round > 0) {
+                serializedEncode += (encodedSerialized - start) / 1e3 / COHORT / ROUNDS;
+                serializedDecode += (decodedSerialized - encodedSerialized) / 1e3 / COHORT / ROUNDS;
+                recordEncode += (encodedRecords - decodedSerialized) / 1e3 / COHORT / ROUNDS;
+                recordDecode += (decodedRecords - encodedRecords) / 1e3 / COHORT / ROUNDS;
+            }
+        }
+
+        String header = "%-22s%-15s%-15s%-15s%-15s%-15s%n";
+        String row = "%-22s%-15d%-15.1f%-15.1f%-15.1f%-15.1f%n";
+        System.out.printf(header, "Format", "Bytes/record", "Save (us)", "Load (us)", "Encode (us)", "Decode (us)");
+        System.out.printf(row, "Java serialization", serializedBytes / COHORT, serializedSave, serializedLoad,
+                serializedEncode, serializedDecode);
+        System.out.printf(row, "Binary record v" + CurriculumCodec.VERSION, recordBytes / COHORT, recordSave, recordLoad,
+                recordEncode, recordDecode);
+        System.out.printf("%-22s%-15.1f%-15.1f%-15.1f%-15.1f%-15.1f%n", "Ratio", (double) serializedBytes / recordBytes,
+                serializedSave / recordSave, serializedLoad / recordLoad,
+                serializedEncode / recordEncode, serializedDecode / recordDecode);
+
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    private static byte[] serialize(Curriculum curriculum) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(curriculum);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Curriculum deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (Curriculum) in.readObject();
+        }
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
+
+    /**
+     * Builds student records shaped like the BSIT curriculum: 70 courses with realistic names and grades for
+     * the first two years, plus 20 electives.
+     *
+     * @param size the number of students.
+     * @return the synthetic records.
+     */
+    static List<Curriculum> syntheticCohort(int size) {
+        List<Curriculum> cohort = new ArrayList<>(size);
+        for (int student = 0; student < size; student++) {
+            cohort.add(syntheticStudent(student));
+        }
+        return cohort;
+    }
+
+    /**
+     * Builds the record of one student of the synthetic cohort.
+     *
+     * @param student the number of the student in the cohort.
+     * @return the synthetic record.
+     */
+    static Curriculum syntheticStudent(int student) {
+        CourseList courses = new CourseList();
+        for (int i = 0; i < 70; i++) {
+            byte year = (byte) (1 + i / 18);
+            byte semester = (byte) (1 + i % 3);
+            float grade = year <= 2 ? 75 + (student + i) % 24 : 0;
+            courses.add(new Course(year, semester, "IT " + (100 + i), "INFORMATION TECHNOLOGY COURSE NUMBER " + i,
+                    3, grade, year == 3));
+        }
+        ArrayList<Elective> electives = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            electives.add(new Elective("ITE " + (10 + i), "Advanced Elective Topic " + i, (byte) 3, (byte) (i % 2), false, true));
+        }
+        return new Curriculum(String.valueOf(2_000_000 + student), "bsit", courses, electives);
+    }
+}
@@ -0,0 +1,78 @@
+package prog2.fingrp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchBenchmark {
+    /**
+     * <p>Compares the indexed {@link Curriculum#search(String)} lookup against the linear scan it replaced, on
+     * synthetic course lists of 70, 1,000 and 100,000 courses. Queries are written the way users type them, in lower
+     * case without spaces, so both paths have to normalize the course numbers.</p>
+     */
+    private static final int[] SIZES = {70, 1_000, 100_000};
+    private static final int QUERIES = 1_024;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s%-20s%-20s%-10s%n", "Courses", "Scan (ns/op)", "Index (ns/op)", "Speedup");
+        for (int size : SIZES) {
+            List<Course> courses = syntheticCourses(size);
+            String[] queries = new String[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = courses.get((int) ((long) i * 7919 % size)).getCourseNo().replace(" ", "").toLowerCase();
+            }
+            int operations = Math.max(16, 2_000_000 / size);
+            double scan = Bench.nanosPerOp(operations, new java.util.function.IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    return linearSearch(courses, queries[next++ & (QUERIES - 1)]);
+                }
+            });
+            CourseIndex index = new CourseIndex(courses);
+            double indexed = Bench.nanosPerOp(1_000_000, new java.util.function.IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    return index.indexOf(queries[next++ & (QUERIES - 1)]);
+                }
+            });
+            System.out.printf("%-10d%-20.1f%-20.1f%-10.1f%n", size, scan, indexed, scan / indexed);
+        }
+    }
+
+    /**
+     * The search loop used by Curriculum before the index was introduced.
+     *
+     * @param courses  the courses to scan.
+     * @param courseNo the course number to search for.
+     * @return the position of the course, or -1 if it is not found.
+     */
+    private static int linearSearch(List<Course> courses, String courseNo) {
+        for (int i = 0; i < courses.size(); i++) {
+            Course course = courses.get(i);
+            String courseNoLowerCase = course.getCourseNo().replace(" ", "").toLowerCase();
+            if (courseNoLowerCase.equals(courseNo.replace(" ", "").toLowerCase())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a list of courses spread over four years and three terms.
+     *
+     * @param size the number of courses.
+     * @return the synthetic courses.
+     */
+    static List<Course> syntheticCourses(int size) {
+        List<Course> courses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte year = (byte) (1 + i * 4 / size);
+            byte semester = (byte) (1 + i % 3);
+            courses.add(new Course(year, semester, "CS " + (100 + i), "Synthetic Course " + i, 3, 0, false));
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,108 @@
+package prog2.fingrp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class SemesterAggregatesBenchmark {
+    /**
+     * <p>Compares reading the GPA of every semester from {@link SemesterAggregates} against filtering the course
+     * list for each semester with streams, as the GPA report did. Also measures the cost a grade change adds by
+     * updating the aggregates, and checks that the running totals still match a fresh sum after a million random
+     * changes.</p>
+     */
+    private static final int[] SIZES = {70, 1_000, 100_000};
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s%-22s%-22s%-22s%n", "Courses", "Stream report (ns)", "Aggregates (ns)", "setGrade (ns)");
+        for (int size : SIZES) {
+            List<Course> courses = SearchBenchmark.syntheticCourses(size);
+            Curriculum curriculum = new Curriculum("2000000", "bsit", new CourseList(courses), new ArrayList<>());
+            Random random = new Random(size);
+            for (Course course : curriculum.courses) {
+                course.setGrade(65 + random.nextInt(35));
+            }
+
+            int reports = Math.max(4, 2_000_000 / size);
+            double streams = Bench.nanosPerOp(reports, () -> (int) streamReport(curriculum.courses));
+            double aggregates = Bench.nanosPerOp(1_000_000, () -> (int) aggregateReport(curriculum));
+            double update = Bench.nanosPerOp(1_000_000, new java.util.function.IntSupplier() {
+                private int next;
+
+                @Override
+                public int getAsInt() {
+                    Course course = curriculum.courses.get(next++ % size);
+                    course.setGrade(65 + (next & 31));
+                    return course.getYear();
+                }
+            });
+            System.out.printf("%-10d%-22.1f%-22.1f%-22.1f%n", size, streams, aggregates, update);
+            check(curriculum, random);
+        }
+    }
+
+    /**
+     * Sums the semester GPAs by filtering the course list for every semester.
+     */
+    private static double streamReport(List<Course> courses) {
+        double total = 0;
+        for (byte year = 1; year <= 4; year++) {
+            for (byte semester = 1; semester <= 3; semester++) {
+                byte y = year;
+                byte s = semester;
+                List<Course> semesterCourses = courses.stream()
+                        .filter(n -> n.getYear() == y)
+                        .filter(n -> n.getSemester() == s)
+                        .collect(Collectors.toList());
+                double sum = semesterCourses.stream().mapToDouble(AbstractCourse::getGrade).sum();
+                total += sum / semesterCourses.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the semester GPAs from the running totals.
+     */
+    private static double aggregateReport(Curriculum curriculum) {
+        double total = 0;
+        for (byte year = 1; year <= 4; year++) {
+            for (byte semester = 1; semester <= 3; semester++) {
+                total += curriculum.getSemesterAverage(year, semester);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Applies random grade, unit and semester changes and compares the totals with freshly built aggregates.
+     */
+    private static void check(Curriculum curriculum, Random random) {
+        for (int i = 0; i < 1_000_000; i++) {
+            Course course = curriculum.courses.get(random.nextInt(curriculum.courses.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    course.setGrade(random.nextInt(100) + random.nextInt(4) * 0.25f);
+                    break;
+                case 1:
+                    course.setUnit((byte) (1 + random.nextInt(5)));
+                    break;
+                default:
+                    course.setSemester((byte) (1 + random.nextInt(3)));
+                    break;
+            }
+        }
+        SemesterAggregates running = curriculum.getSemesterAggregates();
+        SemesterAggregates fresh = new SemesterAggregates(curriculum.courses);
+        for (byte year = 1; year <= 4; year++) {
+            for (byte semester = 1; semester <= 3; semester++) {
+                if (running.getGradeSum(year, semester) != fresh.getGradeSum(year, semester)
+                        || running.getUnitSum(year, semester) != fresh.getUnitSum(year, semester)
+                        || running.getCount(year, semester) != fresh.getCount(year, semester)) {
+                    throw new IllegalStateException("Aggregates drifted for year " + year + " semester " + semester);
+                }
+            }
+        }
+    }
+}
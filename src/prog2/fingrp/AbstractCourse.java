@@ -1,6 +1,7 @@
 package prog2.fingrp;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 public abstract class AbstractCourse implements Serializable {
     /**
@@ -19,6 +20,7 @@ public abstract class AbstractCourse implements Serializable {
      * these attributes.
      * </p>
      */
+    private static final long serialVersionUID = -3748190052015827153L;
     protected byte year;
     protected byte semester;
     protected String courseNo;
@@ -26,6 +28,7 @@ public abstract class AbstractCourse implements Serializable {
     protected  float grade;
 
     protected float unit;
+    private transient CourseChangeListener changeListener;
 
 
 
@@ -78,15 +81,19 @@ public abstract class AbstractCourse implements Serializable {
      * @param year year of the course
      */
     public void setYear(byte year) {
-    this.year = year;
-}
+        byte oldYear = this.year;
+        this.year = year;
+        fireChanged(oldYear, semester, unit, grade);
+    }
 
     /**
      * sets the semester of the course
      * @param semester gets the term of the course
      */
     public void setSemester(byte semester) {
+        byte oldSemester = this.semester;
         this.semester = semester;
+        fireChanged(year, oldSemester, unit, grade);
     }
 
     /**
@@ -94,8 +101,12 @@ public abstract class AbstractCourse implements Serializable {
      * @param courseNo number of the course
      */
     public void setCourseNo(String courseNo) {
-    this.courseNo = courseNo;
-}
+        String oldCourseNo = this.courseNo;
+        this.courseNo = courseNo;
+        if (changeListener != null && !Objects.equals(oldCourseNo, courseNo)) {
+            changeListener.courseNumberChanged(this, oldCourseNo);
+        }
+    }
 
     /**
      * sets the course name of the course
@@ -110,7 +121,9 @@ public abstract class AbstractCourse implements Serializable {
      * @param unit units of the course
      */
     public void setUnit(byte unit) {
+        float oldUnit = this.unit;
         this.unit = unit;
+        fireChanged(year, semester, oldUnit, grade);
     }
 
     /**
@@ -118,7 +131,38 @@ public abstract class AbstractCourse implements Serializable {
      * @param grade grade in the course
      */
     public void setGrade(float grade) {
+        float oldGrade = this.grade;
         this.grade = grade;
+        fireChanged(year, semester, unit, oldGrade);
+    }
+
+    /**
+     * sets the listener told about changes to the year, semester, unit, grade or course number of the course
+     * @param changeListener the listener, or null for none
+     */
+    public void setChangeListener(CourseChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * gets the listener told about changes to the course
+     * @return changeListener
+     */
+    public CourseChangeListener getChangeListener() {
+        return changeListener;
+    }
+
+    /**
+     * tells the listener, if there is one, that the course changed
+     * @param oldYear year before the change
+     * @param oldSemester semester before the change
+     * @param oldUnit unit before the change
+     * @param oldGrade grade before the change
+     */
+    private void fireChanged(byte oldYear, byte oldSemester, float oldUnit, float oldGrade) {
+        if (changeListener != null) {
+            changeListener.courseChanged(this, oldYear, oldSemester, oldUnit, oldGrade);
+        }
     }
 
 
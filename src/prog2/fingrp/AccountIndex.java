@@ -0,0 +1,231 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class AccountIndex {
+    /**
+     * <p>An in-memory index of the accounts file, built once and kept current as accounts are added. One lookup
+     * returns the ID number, password and program of an account.</p>
+     *
+     * <p>A Bloom filter sits in front of the map. Most ID numbers that have no account are rejected by the filter
+     * after a few bit tests, without hashing into the map. The filter can give false positives but never false
+     * negatives, so a "might exist" answer is always confirmed against the map.</p>
+     *
+     * Template in file: ID Number:Password:Program
+     * Example: 2231234:secret:BSIT
+     */
+    private static final int BITS_PER_ACCOUNT = 10;
+    private static final int HASHES = 7;
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private volatile AtomicLongArray bloom;
+    private volatile int bloomCapacity;
+
+    /**
+     * Constructs an empty index with room in the Bloom filter for the given number of accounts.
+     *
+     * @param expectedAccounts the number of accounts the filter is sized for.
+     */
+    public AccountIndex(int expectedAccounts) {
+        resizeBloom(expectedAccounts);
+    }
+
+    /**
+     * Builds an index from an accounts file. A missing file gives an empty index.
+     *
+     * @param file the accounts file to read.
+     * @return the index of the accounts in the file.
+     */
+    public static AccountIndex load(File file) {
+        AccountIndex index = new AccountIndex((int) Math.min(Integer.MAX_VALUE / BITS_PER_ACCOUNT, file.length() / 16 + 1));
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNextLine()) {
+                Account account = Account.parse(scanner.nextLine());
+                if (account != null) {
+                    index.add(account);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // No accounts yet
+        }
+        return index;
+    }
+
+    /**
+     * Finds the account with the given ID number.
+     *
+     * @param idNumber the ID number to look up.
+     * @return the account, or null if there is no account with the ID number.
+     */
+    public Account find(String idNumber) {
+        if (!mightContain(idNumber)) {
+            return null;
+        }
+        return accounts.get(idNumber);
+    }
+
+    /**
+     * Adds an account to the index. The first account added for an ID number is kept.
+     *
+     * @param account the account to add.
+     * @return true if the account was added, false if the ID number already had an account.
+     */
+    public boolean add(Account account) {
+        if (accounts.putIfAbsent(account.getIdNumber(), account) != null) {
+            return false;
+        }
+        synchronized (this) {
+            if (accounts.size() > bloomCapacity) {
+                resizeBloom(bloomCapacity * 2);
+            }
+            addToBloom(bloom, account.getIdNumber());
+        }
+        return true;
+    }
+
+    /**
+     * Removes an account from the index. The Bloom filter keeps its bits, which only costs a map lookup later.
+     *
+     * @param idNumber the ID number of the account to remove.
+     */
+    public void remove(String idNumber) {
+        accounts.remove(idNumber);
+    }
+
+    /**
+     * Gets the number of accounts in the index.
+     *
+     * @return the number of accounts.
+     */
+    public int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Checks the Bloom filter for an ID number.
+     *
+     * @param idNumber the ID number to check.
+     * @return false if the ID number certainly has no account, true if it might have one.
+     */
+    boolean mightContain(String idNumber) {
+        AtomicLongArray bits = bloom;
+        long size = bits.length() * 64L;
+        int h1 = idNumber.hashCode();
+        int h2 = (h1 >>> 16) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2 * 0x9E3779B9L, size);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the bits of an ID number in a Bloom filter. Callers hold the lock of the index.
+     */
+    private static void addToBloom(AtomicLongArray bits, String idNumber) {
+        long size = bits.length() * 64L;
+        int h1 = idNumber.hashCode();
+        int h2 = (h1 >>> 16) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2 * 0x9E3779B9L, size);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            bits.set(word, bits.get(word) | mask);
+        }
+    }
+
+    /**
+     * Replaces the Bloom filter with one sized for the given number of accounts and adds every account to it.
+     * The new filter is filled before it is published, so lookups never see a missing account.
+     *
+     * @param capacity the number of accounts the filter is sized for.
+     */
+    private synchronized void resizeBloom(int capacity) {
+        int words = Math.max(16, (int) (((long) Math.max(capacity, 1) * BITS_PER_ACCOUNT + 63) / 64));
+        AtomicLongArray bits = new AtomicLongArray(words);
+        for (String idNumber : accounts.keySet()) {
+            addToBloom(bits, idNumber);
+        }
+        bloomCapacity = Math.max(capacity, 1);
+        bloom = bits;
+    }
+
+    /**
+     * One line of the accounts file.
+     */
+    public static final class Account {
+        private final String idNumber;
+        private final String password;
+        private final String program;
+
+        /**
+         * Constructs an account.
+         *
+         * @param idNumber the ID number of the account.
+         * @param password the password of the account.
+         * @param program  the program of the account.
+         */
+        public Account(String idNumber, String password, String program) {
+            this.idNumber = idNumber;
+            this.password = password;
+            this.program = program;
+        }
+
+        /**
+         * Parses a line of the accounts file in the format "ID:Password:Program".
+         *
+         * @param line the line to parse.
+         * @return the account, or null if the line is not a complete account.
+         */
+        static Account parse(String line) {
+            String[] parts = line.split(":");
+            if (parts.length < 3) {
+                return null;
+            }
+            return new Account(parts[0], parts[1], parts[2]);
+        }
+
+        /**
+         * Formats the account as a line of the accounts file, without the line separator.
+         *
+         * @return the account line.
+         */
+        String toLine() {
+            return idNumber + ":" + password + ":" + program;
+        }
+
+        /**
+         * Gets the ID number of the account.
+         *
+         * @return the ID number.
+         */
+        public String getIdNumber() {
+            return idNumber;
+        }
+
+        /**
+         * Gets the password of the account.
+         *
+         * @return the password.
+         */
+        public String getPassword() {
+            return password;
+        }
+
+        /**
+         * Gets the program of the account.
+         *
+         * @return the program.
+         */
+        public String getProgram() {
+            return program;
+        }
+    }
+}
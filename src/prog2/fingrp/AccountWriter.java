@@ -0,0 +1,138 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public final class AccountWriter {
+    /**
+     * <p>Appends new accounts to the accounts file from a single appender thread. Sign-ups queue up while a
+     * write is in progress, and the appender writes all of them together with one append and one
+     * {@link FileChannel#force(boolean)}. The more people sign up at once, the more sign-ups share each write.</p>
+     *
+     * <p>The account is claimed in the {@link AccountIndex} before it is queued. A second sign-up with the same ID
+     * number is rejected right away, even while the first one is still waiting to be written. If the write fails,
+     * the claim is released so the ID number can be used again.</p>
+     */
+    private static final int MAX_BATCH = 1024;
+
+    private final File file;
+    private final AccountIndex index;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private FileChannel channel;
+
+    /**
+     * Constructs a writer for an accounts file and starts its appender thread.
+     *
+     * @param file  the accounts file to append to.
+     * @param index the index of the accounts file, used to reject duplicate ID numbers.
+     */
+    public AccountWriter(File file, AccountIndex index) {
+        this.file = file;
+        this.index = index;
+        Thread appender = new Thread(this::run, "account-appender");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    /**
+     * Queues a new account to be appended to the accounts file.
+     *
+     * @param account the account to create.
+     * @return a future that completes with true once the account is on disk, with false if the ID number already
+     * has an account, or exceptionally if the account could not be written.
+     */
+    public CompletableFuture<Boolean> signUp(AccountIndex.Account account) {
+        if (!index.add(account)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Pending pending = new Pending(account);
+        queue.add(pending);
+        return pending.future;
+    }
+
+    /**
+     * Takes queued sign-ups and writes them in batches until the thread is interrupted.
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Appends a batch of accounts with one write and one force, then completes their futures.
+     *
+     * @param batch the sign-ups to write.
+     */
+    private void write(List<Pending> batch) {
+        StringBuilder lines = new StringBuilder(batch.size() * 24);
+        for (Pending pending : batch) {
+            lines.append(pending.account.toLine()).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeChannel();
+            for (Pending pending : batch) {
+                index.remove(pending.account.getIdNumber());
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (Pending pending : batch) {
+            pending.future.complete(true);
+        }
+    }
+
+    /**
+     * Closes the file after a failed write so the next batch opens it again.
+     */
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    /**
+     * A sign-up waiting to be written.
+     */
+    private static final class Pending {
+        private final AccountIndex.Account account;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Pending(AccountIndex.Account account) {
+            this.account = account;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package prog2.fingrp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public final class BackgroundTasks {
+    /**
+     * <p>Runs the work behind the windows, loading and saving records, looking up accounts and building reports,
+     * on background threads so the Swing event dispatch thread never waits for the disk. The result is handed back
+     * to a callback on the event dispatch thread, where it can be shown.</p>
+     *
+     * <p>While a task runs, the owner window shows the wait cursor. If the task takes longer than
+     * {@code checklist.busyDelayMillis} (default 300 ms), a modal busy dialog opens, which keeps the user from
+     * starting anything else and, for tasks that can be cancelled, offers a Cancel button. Cancelling interrupts the
+     * task and its callback is never called; long reports check for the interrupt with {@link #checkCancelled()}.
+     * Windows can ask {@link #isBusy()} to ignore input that arrives before the dialog opens.</p>
+     *
+     * <p>Tasks run on a pool of daemon threads that grows with the number of tasks waiting at once and shrinks
+     * after a minute without work.</p>
+     */
+    static final int BUSY_DELAY_MILLIS = Integer.getInteger("checklist.busyDelayMillis", 300);
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "checklist-worker-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    private BackgroundTasks() {
+    }
+
+    /**
+     * Runs a task that can be cancelled in the background and passes its result to a callback on the event
+     * dispatch thread. If the task fails, the error is shown in a message dialog.
+     *
+     * @param owner     the window the busy indicator belongs to, or null.
+     * @param message   what the task does, shown in the busy dialog, such as "Loading your curriculum".
+     * @param work      the task.
+     * @param onSuccess called with the result on the event dispatch thread unless the task failed or was cancelled.
+     * @param <T>       the type of the result.
+     * @return the pending result.
+     */
+    public static <T> Future<T> run(Component owner, String message, Callable<T> work, Consumer<T> onSuccess) {
+        return run(owner, message, true, work, onSuccess);
+    }
+
+    /**
+     * Runs a task in the background and passes its result to a callback on the event dispatch thread.
+     * If the task fails, the error is shown in a message dialog. Tasks that write files should not be cancellable,
+     * since an interrupt can close the file channel they write to.
+     *
+     * @param owner       the window the busy indicator belongs to, or null.
+     * @param message     what the task does, shown in the busy dialog.
+     * @param cancellable true to offer a Cancel button in the busy dialog.
+     * @param work        the task.
+     * @param onSuccess   called with the result on the event dispatch thread unless the task failed or was cancelled.
+     * @param <T>         the type of the result.
+     * @return the pending result.
+     */
+    public static <T> Future<T> run(Component owner, String message, boolean cancellable, Callable<T> work,
+                                    Consumer<T> onSuccess) {
+        RUNNING.incrementAndGet();
+        Window window = owner == null ? null : SwingUtilities.getWindowAncestor(owner);
+        if (owner instanceof Window) {
+            window = (Window) owner;
+        }
+        Busy busy = new Busy(window, message, cancellable);
+        FutureTask<T> task = new FutureTask<T>(work) {
+            @Override
+            protected void done() {
+                SwingUtilities.invokeLater(() -> finish(this, message, busy, onSuccess));
+            }
+        };
+        busy.task = task;
+        busy.start();
+        WORKERS.execute(task);
+        return task;
+    }
+
+    /**
+     * Runs a task in the background without a busy indicator or a callback, such as warming a cache.
+     * Failures are printed.
+     *
+     * @param work the task.
+     */
+    public static void execute(Runnable work) {
+        WORKERS.execute(() -> {
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Checks if a task started with {@code run} has not finished yet.
+     *
+     * @return true from the start of a task until its callback is called.
+     */
+    public static boolean isBusy() {
+        return RUNNING.get() > 0;
+    }
+
+    /**
+     * Stops a long task if it was cancelled. Called from the loops of the tasks, it costs a read of the interrupt
+     * status of the thread.
+     *
+     * @throws CancellationException if the thread was interrupted.
+     */
+    public static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Closes the busy indicator of a finished task and calls the callback or shows the error.
+     */
+    private static <T> void finish(Future<T> task, String message, Busy busy, Consumer<T> onSuccess) {
+        busy.stop();
+        RUNNING.decrementAndGet();
+        if (task.isCancelled()) {
+            return;
+        }
+        T result;
+        try {
+            result = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            cause.printStackTrace();
+            JOptionPane.showMessageDialog(busy.window, message + " failed: " + cause, "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        onSuccess.accept(result);
+    }
+
+    /**
+     * The wait cursor of a task and the busy dialog that opens once it has run longer than the delay.
+     * Only used on the event dispatch thread.
+     */
+    private static final class Busy {
+        private final Window window;
+        private final String message;
+        private final boolean cancellable;
+        private final Timer timer;
+        private Future<?> task;
+        private JDialog dialog;
+        private Cursor cursor;
+        private boolean stopped;
+
+        Busy(Window window, String message, boolean cancellable) {
+            this.window = window;
+            this.message = message;
+            this.cancellable = cancellable;
+            this.timer = new Timer(BUSY_DELAY_MILLIS, e -> open());
+            this.timer.setRepeats(false);
+        }
+
+        /**
+         * Shows the wait cursor and starts the delay of the dialog.
+         */
+        void start() {
+            if (window != null) {
+                cursor = window.getCursor();
+                window.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            }
+            if (!GraphicsEnvironment.isHeadless()) {
+                timer.start();
+            }
+        }
+
+        /**
+         * Opens the modal busy dialog. The call returns once the dialog is closed.
+         */
+        private void open() {
+            if (stopped) {
+                return;
+            }
+            JProgressBar progress = new JProgressBar();
+            progress.setIndeterminate(true);
+            JPanel panel = new JPanel(new BorderLayout(0, 10));
+            panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+            panel.add(new JLabel(message + "..."), BorderLayout.NORTH);
+            panel.add(progress, BorderLayout.CENTER);
+            if (cancellable) {
+                JButton cancel = new JButton("Cancel");
+                cancel.addActionListener(e -> task.cancel(true));
+                JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+                buttons.add(cancel);
+                panel.add(buttons, BorderLayout.SOUTH);
+            }
+            dialog = new JDialog(window, "Please wait", Dialog.ModalityType.APPLICATION_MODAL);
+            dialog.setDefaultCloseOperation(cancellable ? JDialog.DISPOSE_ON_CLOSE : JDialog.DO_NOTHING_ON_CLOSE);
+            if (cancellable) {
+                dialog.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosing(WindowEvent e) {
+                        task.cancel(true);
+                    }
+                });
+            }
+            dialog.setContentPane(panel);
+            dialog.pack();
+            dialog.setLocationRelativeTo(window);
+            dialog.setVisible(true);
+        }
+
+        /**
+         * Closes the dialog, or keeps it from opening, and restores the cursor.
+         */
+        void stop() {
+            stopped = true;
+            timer.stop();
+            if (dialog != null) {
+                dialog.dispose();
+            }
+            if (window != null) {
+                window.setCursor(cursor);
+            }
+        }
+    }
+}
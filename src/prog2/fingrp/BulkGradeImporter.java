@@ -0,0 +1,421 @@
+package prog2.fingrp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+public class BulkGradeImporter {
+    /**
+     * <p>Imports grades for a whole cohort from a CSV file instead of entering them one dialog at a time. Each row
+     * holds {@code id,program,courseNo,grade}; a first line that does not start with a digit is taken as a header
+     * and skipped.</p>
+     *
+     * <p>Rows are grouped by student record file, in the order they appear in the CSV. Students are imported in
+     * parallel on a fork-join pool. Every student file is read once, gets all of its rows, and is written once.
+     * Prerequisites are checked with the {@link EligibilityEngine} of the program's prerequisite graph, which all students
+     * share. The check is made against the passed courses of the student as the rows are applied, so a
+     * prerequisite graded earlier in the same import counts.</p>
+     *
+     * <p>A row is applied like an entry through the Edit Grade screen with overwriting confirmed: the grade must be
+     * between 0 and 99, the course must be in the student's curriculum, and its prerequisites must have been
+     * passed. Rows that fail are reported with their line number and the reason; the other rows of the student are
+     * still applied. A student whose file cannot be read has all of its rows rejected, and if the file cannot be
+     * written, the rows that were applied to it are reported as rejected too, since they were not saved.</p>
+     *
+     * <p>The importer works on the record files directly. Each student file is locked while it is read, changed and
+     * written (see {@link StudentLocks}), and writing it moves it to the next record version, so a window that has
+     * the same student open finds its curriculum stale instead of overwriting the imported grades.</p>
+     *
+     * <p>Usage: {@code java prog2.fingrp.BulkGradeImporter grades.csv [dataFolder]}. The data folder defaults to the
+     * one the application uses.</p>
+     */
+    private final File dataFolder;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs an importer for the record files in a data folder.
+     *
+     * @param dataFolder  the folder holding the student record files.
+     * @param parallelism the number of students imported at the same time.
+     */
+    public BulkGradeImporter(File dataFolder, int parallelism) {
+        this.dataFolder = dataFolder;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: java prog2.fingrp.BulkGradeImporter grades.csv [dataFolder]");
+            return;
+        }
+        File folder = new File(args.length > 1 ? args[1] : Curriculum.DATA_FILE_LOCATION);
+        BulkGradeImporter importer = new BulkGradeImporter(folder, Runtime.getRuntime().availableProcessors());
+        try {
+            Report report = importer.importFile(new File(args[0]));
+            for (Rejection rejection : report.getRejections()) {
+                System.out.println(rejection);
+            }
+            System.out.println(report);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            importer.shutdown();
+        }
+    }
+
+    /**
+     * Imports every row of a CSV file.
+     *
+     * @param csv the CSV file to import.
+     * @return the report of the import.
+     * @throws IOException if the CSV file cannot be read.
+     */
+    public Report importFile(File csv) throws IOException {
+        long start = System.nanoTime();
+        List<Rejection> rejections = new ArrayList<>();
+        Map<String, List<Row>> students = new LinkedHashMap<>();
+        int rows = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(csv))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && !Character.isDigit(line.charAt(0)))) {
+                    continue;
+                }
+                rows++;
+                Row row = Row.parse(lineNumber, line);
+                if (row == null) {
+                    rejections.add(new Rejection(lineNumber, line, CurriculumService.Result.INVALID_INPUT));
+                    continue;
+                }
+                students.computeIfAbsent(Curriculum.fileNameOf(row.idNumber, row.program), name -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<StudentResult> results = pool.submit(() -> students.entrySet().parallelStream()
+                .map(student -> importStudent(student.getKey(), student.getValue()))
+                .collect(Collectors.toList())).join();
+
+        int applied = 0;
+        int written = 0;
+        for (StudentResult result : results) {
+            applied += result.applied;
+            written += result.written ? 1 : 0;
+            rejections.addAll(result.rejections);
+        }
+        rejections.sort(Comparator.comparingInt(Rejection::getLine));
+        return new Report(rows, applied, students.size(), written, rejections, System.nanoTime() - start);
+    }
+
+    /**
+     * Stops the threads of the importer.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Applies the rows of one student and writes the student file if any row was applied.
+     *
+     * @param fileName the name of the student record file.
+     * @param rows     the rows of the student, in CSV order.
+     * @return what happened to the rows of the student.
+     */
+    @SuppressWarnings("try")
+    private StudentResult importStudent(String fileName, List<Row> rows) {
+        File file = new File(dataFolder, fileName);
+        try (StudentLocks.Lock lock = StudentLocks.lock(file)) {
+            return importStudent(file, fileName, rows);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return rejected(rows, CurriculumService.Result.STUDENT_NOT_FOUND);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return rejected(rows, CurriculumService.Result.NOT_SAVED);
+        }
+    }
+
+    /**
+     * Applies the rows of one student whose file is locked, and writes the file if any row was applied.
+     *
+     * @param file     the student record file.
+     * @param fileName the name of the student record file.
+     * @param rows     the rows of the student, in CSV order.
+     * @return what happened to the rows of the student.
+     */
+    private StudentResult importStudent(File file, String fileName, List<Row> rows) {
+        StudentResult result = new StudentResult();
+        Curriculum curriculum;
+        GradeJournal journal = GradeJournal.appliesTo(dataFolder) ? new GradeJournal(fileName) : null;
+        try {
+            curriculum = Curriculum.readRecord(file);
+            if (journal != null) {
+                journal.replay(curriculum);
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            System.err.println("Could not read " + fileName + ": " + e);
+            return rejected(rows, CurriculumService.Result.STUDENT_NOT_FOUND);
+        }
+
+        PassedCourses passed = curriculum.getPassedCourses();
+        List<Row> applied = new ArrayList<>();
+        for (Row row : rows) {
+            CurriculumService.Result outcome = apply(curriculum, passed, row);
+            if (outcome == CurriculumService.Result.UPDATED) {
+                applied.add(row);
+            } else {
+                result.rejections.add(new Rejection(row.line, row.text, outcome));
+            }
+        }
+
+        if (!applied.isEmpty()) {
+            CurriculumService.Result failure = null;
+            try {
+                if (journal != null) {
+                    journal.writeSnapshot(curriculum);
+                } else {
+                    curriculum.writeChecked(file);
+                }
+                result.written = true;
+            } catch (StaleRecordException e) {
+                System.err.println(e.getMessage());
+                failure = CurriculumService.Result.STALE_RECORD;
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                failure = CurriculumService.Result.NOT_SAVED;
+            }
+            for (Row row : applied) {
+                if (failure == null) {
+                    result.applied++;
+                } else {
+                    result.rejections.add(new Rejection(row.line, row.text, failure));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the result of a student none of whose rows could be applied.
+     *
+     * @param rows   the rows of the student.
+     * @param reason the reason of every rejection.
+     * @return the result rejecting every row.
+     */
+    private static StudentResult rejected(List<Row> rows, CurriculumService.Result reason) {
+        StudentResult result = new StudentResult();
+        for (Row row : rows) {
+            result.rejections.add(new Rejection(row.line, row.text, reason));
+        }
+        return result;
+    }
+
+    /**
+     * Applies one row to a student's curriculum.
+     *
+     * @param curriculum the curriculum of the student.
+     * @param passed     the passed courses of the student, which follow the grades as they are applied.
+     * @param row        the row to apply.
+     * @return UPDATED, COURSE_NOT_FOUND, INVALID_GRADE or PREREQUISITE_NOT_MET.
+     */
+    private static CurriculumService.Result apply(Curriculum curriculum, PassedCourses passed, Row row) {
+        if (row.grade < CurriculumService.MIN_GRADE || row.grade > CurriculumService.MAX_GRADE) {
+            return CurriculumService.Result.INVALID_GRADE;
+        }
+        int i = curriculum.search(row.courseNo);
+        if (i == -1) {
+            return CurriculumService.Result.COURSE_NOT_FOUND;
+        }
+        Course course = curriculum.courses.get(i);
+        EligibilityEngine engine = passed.getEngine();
+        if (!engine.canTake(engine.getGraph().idOf(course.getCourseNo()), passed.bits())) {
+            return CurriculumService.Result.PREREQUISITE_NOT_MET;
+        }
+        course.setGrade(row.grade);
+        course.setTaking(false);
+        return CurriculumService.Result.UPDATED;
+    }
+
+    /**
+     * One grade row of the CSV file.
+     */
+    private static final class Row {
+        private final int line;
+        private final String text;
+        private final String idNumber;
+        private final String program;
+        private final String courseNo;
+        private final float grade;
+
+        private Row(int line, String text, String idNumber, String program, String courseNo, float grade) {
+            this.line = line;
+            this.text = text;
+            this.idNumber = idNumber;
+            this.program = program;
+            this.courseNo = courseNo;
+            this.grade = grade;
+        }
+
+        /**
+         * Parses a CSV line in the format "id,program,courseNo,grade".
+         *
+         * @param line the line number.
+         * @param text the line.
+         * @return the row, or null if the line is not a valid row.
+         */
+        private static Row parse(int line, String text) {
+            String[] parts = text.split(",");
+            if (parts.length != 4) {
+                return null;
+            }
+            String idNumber = parts[0].trim();
+            String program = parts[1].trim();
+            String courseNo = parts[2].trim();
+            if (idNumber.isEmpty() || program.isEmpty() || courseNo.isEmpty()) {
+                return null;
+            }
+            try {
+                return new Row(line, text, idNumber, program, courseNo, Float.parseFloat(parts[3].trim()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * What happened to the rows of one student.
+     */
+    private static final class StudentResult {
+        private final List<Rejection> rejections = new ArrayList<>();
+        private int applied;
+        private boolean written;
+    }
+
+    /**
+     * A row that was not applied, and why.
+     */
+    public static final class Rejection {
+        private final int line;
+        private final String text;
+        private final CurriculumService.Result reason;
+
+        private Rejection(int line, String text, CurriculumService.Result reason) {
+            this.line = line;
+            this.text = text;
+            this.reason = reason;
+        }
+
+        /**
+         * Gets the line number of the row in the CSV file.
+         *
+         * @return the line number, starting at 1.
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Gets the row as it appears in the CSV file.
+         *
+         * @return the text of the row.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Gets the reason the row was not applied.
+         *
+         * @return the reason.
+         */
+        public CurriculumService.Result getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + text + ": " + reason;
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static final class Report {
+        private final int rows;
+        private final int applied;
+        private final int students;
+        private final int written;
+        private final List<Rejection> rejections;
+        private final long elapsedNanos;
+
+        private Report(int rows, int applied, int students, int written, List<Rejection> rejections, long elapsedNanos) {
+            this.rows = rows;
+            this.applied = applied;
+            this.students = students;
+            this.written = written;
+            this.rejections = rejections;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of grade rows read, not counting the header and blank lines.
+         *
+         * @return the number of rows.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the number of rows applied.
+         *
+         * @return the number of applied rows.
+         */
+        public int getApplied() {
+            return applied;
+        }
+
+        /**
+         * Gets the number of student files written.
+         *
+         * @return the number of written files.
+         */
+        public int getWritten() {
+            return written;
+        }
+
+        /**
+         * Gets the rows that were not applied, in CSV order.
+         *
+         * @return the rejected rows.
+         */
+        public List<Rejection> getRejections() {
+            return rejections;
+        }
+
+        /**
+         * Gets the number of rows processed per second, including reading the CSV and writing the files.
+         *
+         * @return the throughput in rows per second.
+         */
+        public double getRowsPerSecond() {
+            return rows / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d applied, %d rejected, %d of %d student files written in %.2f s (%.0f rows/s)",
+                    rows, applied, rejections.size(), written, students, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+public final class CatalogParser {
+    /**
+     * <p>Reads the comma-separated files of the {@code Courses} folder field by field, straight from a byte buffer.
+     * Commas and line breaks are found in place, and numbers and booleans are parsed from the bytes without building
+     * a String for them. Only the text fields the caller asks for become Strings.</p>
+     *
+     * <p>The parser is a cursor: {@link #nextLine()} moves to the next non-empty line, and the {@code next} methods
+     * read the fields of that line from left to right. A field that is missing reads as empty, so a short line does
+     * not run into the next one. Lines may end with "\n" or "\r\n".</p>
+     *
+     * <p>A parser is not thread-safe; each thread parses its own file.</p>
+     */
+    private static final int MAP_THRESHOLD = 64 << 20;
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+    private boolean lineStarted;
+    private byte[] scratch = new byte[128];
+
+    /**
+     * Constructs a parser over the remaining bytes of a buffer.
+     *
+     * @param buffer the contents of a catalog file.
+     */
+    public CatalogParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Constructs a parser over the contents of a catalog file.
+     *
+     * @param data the contents of a catalog file.
+     */
+    public CatalogParser(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Reads a file into a buffer. Files up to 64 MB are read in one call into a heap buffer, which parses faster
+     * than a mapped one; larger files are memory-mapped so they do not need a copy on the heap.
+     *
+     * @param file the file to read.
+     * @return the contents of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static ByteBuffer read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer contents = ByteBuffer.allocate((int) size);
+            while (contents.hasRemaining() && channel.read(contents) != -1) {
+                // Keep reading until the buffer is full
+            }
+            contents.flip();
+            return contents;
+        }
+    }
+
+    /**
+     * Moves to the start of the next non-empty line, skipping what is left of the current one.
+     *
+     * @return true if there is another line, false at the end of the file.
+     */
+    public boolean nextLine() {
+        if (lineStarted) {
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+        }
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b != '\n' && b != '\r') {
+                lineStarted = true;
+                return true;
+            }
+            position++;
+        }
+        lineStarted = false;
+        return false;
+    }
+
+    /**
+     * Checks if the current line has another field.
+     *
+     * @return true if a field follows, false at the end of the line.
+     */
+    public boolean hasField() {
+        return position < limit && !isLineEnd(buffer.get(position));
+    }
+
+    /**
+     * Reads the next field as text.
+     *
+     * @return the field, exactly as written.
+     */
+    public String nextString() {
+        int start = position;
+        int end = fieldEnd();
+        return text(start, end);
+    }
+
+    /**
+     * Reads the next field as text, without leading and trailing spaces.
+     *
+     * @return the trimmed field.
+     */
+    public String nextTrimmedString() {
+        int start = position;
+        int end = fieldEnd();
+        while (start < end && buffer.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) <= ' ') {
+            end--;
+        }
+        return text(start, end);
+    }
+
+    /**
+     * Reads the next field as a whole number.
+     *
+     * @return the number.
+     * @throws NumberFormatException if the field is not a whole number.
+     */
+    public int nextInt() {
+        int start = position;
+        int end = fieldEnd();
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the next field as a byte.
+     *
+     * @return the number.
+     * @throws NumberFormatException if the field is not a whole number that fits in a byte.
+     */
+    public byte nextByte() {
+        int value = nextInt();
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range. Value:\"" + value + "\" Radix:10");
+        }
+        return (byte) value;
+    }
+
+    /**
+     * Reads the next field as a decimal number. Plain decimals such as "3" or "1.5" are parsed in place; any other
+     * form, such as an exponent, falls back to {@link Float#parseFloat(String)}.
+     *
+     * @return the number.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public float nextFloat() {
+        int start = position;
+        int end = fieldEnd();
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && decimals == -1) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (decimals != -1) {
+                    decimals++;
+                }
+            } else {
+                return Float.parseFloat(text(start, end));
+            }
+        }
+        if (digits == 0) {
+            return Float.parseFloat(text(start, end));
+        }
+        double value = decimals > 0 ? mantissa / Math.pow(10, decimals) : mantissa;
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * Reads the next field as a boolean, the way {@link Boolean#parseBoolean(String)} does: "true" in any case is
+     * true and anything else is false.
+     *
+     * @return the boolean.
+     */
+    public boolean nextBoolean() {
+        int start = position;
+        int end = fieldEnd();
+        return end - start == 4
+                && (buffer.get(start) | 0x20) == 't' && (buffer.get(start + 1) | 0x20) == 'r'
+                && (buffer.get(start + 2) | 0x20) == 'u' && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Skips the next field.
+     */
+    public void skipField() {
+        fieldEnd();
+    }
+
+    /**
+     * Finds the end of the field at the cursor and moves the cursor past the comma that ends it, if any.
+     *
+     * @return the position just after the last byte of the field.
+     */
+    private int fieldEnd() {
+        int end = position;
+        while (end < limit) {
+            byte b = buffer.get(end);
+            if (b == ',' || isLineEnd(b)) {
+                break;
+            }
+            end++;
+        }
+        position = end < limit && buffer.get(end) == ',' ? end + 1 : end;
+        return end;
+    }
+
+    /**
+     * Decodes a range of the buffer as UTF-8 text.
+     */
+    private String text(int start, int end) {
+        int length = end - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
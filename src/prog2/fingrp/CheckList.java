@@ -8,7 +8,7 @@ import java.io.IOException;
 import javax.swing.border.EmptyBorder;
 
 import java.io.*;
-import java.util.Scanner;
+import java.util.List;
 
 public class CheckList extends JFrame {
     /**
@@ -18,9 +18,12 @@ public class CheckList extends JFrame {
      */
     private String idNumber;
     private String program;
+    private CurriculumSession session;
 
     private static String currentDirectory = System.getProperty("user.dir");
-    private static final String ACCOUNTS_FILE = currentDirectory + "\\accounts.txt";
+    private static final String ACCOUNTS_FILE = currentDirectory + File.separator + "accounts.txt";
+    private static AccountIndex accounts;
+    private static AccountWriter accountWriter;
 
 
     /**
@@ -39,6 +42,8 @@ public class CheckList extends JFrame {
         ImageIcon icon = new ImageIcon("LogoIcon.png");
         Image image = icon.getImage();
         setIconImage(image);
+        // Build the account index while the user types
+        BackgroundTasks.execute(CheckList::accounts);
         Login();
 
 
@@ -115,20 +120,28 @@ public class CheckList extends JFrame {
         loginButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                if (BackgroundTasks.isBusy()) {
+                    return;
+                }
                 idNumber = idField.getText();
                 String password = new String(passwordField.getPassword());
 
                 if (validateIdNumber(idNumber)) {
-                    if (!isAccountExists(idNumber)) {
-                        JOptionPane.showMessageDialog(CheckList.this, "Account does not exist", "Login Error", JOptionPane.ERROR_MESSAGE);
-                    }else if (!isAccountValid(idNumber, password)) {
-                        JOptionPane.showInputDialog(CheckList.this, "Incorrect password.");
-                    }
-                    else {
-                        dispose();
-                        initializeComponents();
-                        loginPanel.setVisible(false);
-                    }
+                    String id = idNumber;
+                    BackgroundTasks.run(CheckList.this, "Looking up your account", () -> checkAccount(id, password), check -> {
+                        AccountIndex.Account account = check.account;
+                        if (account == null) {
+                            JOptionPane.showMessageDialog(CheckList.this, "Account does not exist", "Login Error", JOptionPane.ERROR_MESSAGE);
+                        }else if (!check.passwordMatches && !checkPassword(account, password)) {
+                            JOptionPane.showInputDialog(CheckList.this, "Incorrect password.");
+                        }
+                        else {
+                            program = account.getProgram();
+                            dispose();
+                            initializeComponents();
+                            loginPanel.setVisible(false);
+                        }
+                    });
                 } else {
                     JOptionPane.showMessageDialog(CheckList.this, "Invalid ID number", "Login Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -216,17 +229,22 @@ public class CheckList extends JFrame {
                 String password = new String(passwordField.getPassword());
                 String program = programField.getText();
 
-                if (validateIdNumber(id) && !isAccountExists(id)) {
+                if (BackgroundTasks.isBusy()) {
+                    return;
+                }
+                if (validateIdNumber(id)) {
                     if (program.equalsIgnoreCase("bsit") || program.equalsIgnoreCase("bscs")) {
-                        try (FileWriter writer = new FileWriter(ACCOUNTS_FILE, true)) {
-                            writer.write(id + ":" + password + ":" + program + "\n");
-
-                        } catch (IOException ex) {
-                            ex.printStackTrace();
-                        }
-                        JOptionPane.showMessageDialog(null, "Account created successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                        signUpFrame.dispose();
-                        new CheckList();
+                        // The account is on disk once the future completes, so the task cannot be cancelled
+                        BackgroundTasks.run(signUpFrame, "Creating your account", false, () -> !isAccountExists(id)
+                                && accountWriter().signUp(new AccountIndex.Account(id, password, program)).get(), created -> {
+                            if (!created) {
+                                JOptionPane.showMessageDialog(null, "Invalid ID number or account already exists", "Error", JOptionPane.ERROR_MESSAGE);
+                                return;
+                            }
+                            JOptionPane.showMessageDialog(null, "Account created successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+                            signUpFrame.dispose();
+                            new CheckList();
+                        });
                     } else {
                         JOptionPane.showMessageDialog(null, "Invalid program. Please enter 'BSCS' or 'BSIT'", "Error", JOptionPane.ERROR_MESSAGE);
                     }
@@ -252,62 +270,102 @@ public class CheckList extends JFrame {
         return true;
     }
     /**
-     * Checks if the provided ID and password combination is valid by searching for a matching account in the accounts file.
+     * Gets the index of the accounts file, building it the first time it is needed.
+     * The index is shared by every window and kept current as accounts are created.
      *
-     * @param id The ID number of the account to check.
-     * @param password The password to check against the account.
-     * @return true if the provided ID and password match an existing account; otherwise, false.
+     * @return the account index.
      */
-    private boolean isAccountValid(String id, String password) {
-        try (Scanner scanner = new Scanner(new File(ACCOUNTS_FILE))) {
-            while (scanner.hasNextLine()) {
-                String account = scanner.nextLine();
-                if (account.startsWith(id + ":")) {
-                    String[] parts = account.split(":");
-                    if (parts[1].equals(password)) {
-                        return true;
-                    } else {
-                        // Incorrect password entered, ask for password again
-                        String newPassword = JOptionPane.showInputDialog(CheckList.this, "Incorrect password. Please enter the correct password:");
-                        if (newPassword != null && newPassword.equals(parts[1])) {
-                            dispose();
-                            initializeComponents();
-                            return true;
-                        }
-                    }
-                }
+    private static synchronized AccountIndex accounts() {
+        if (accounts == null) {
+            File file = new File(ACCOUNTS_FILE);
+            if (!file.exists()) {
+                createAccountsFile();
             }
-        } catch (FileNotFoundException ex) {
-            createAccountsFile();
+            accounts = AccountIndex.load(file);
+        }
+        return accounts;
+    }
+
+    /**
+     * Gets the writer that appends new accounts to the accounts file.
+     *
+     * @return the account writer.
+     */
+    private static synchronized AccountWriter accountWriter() {
+        if (accountWriter == null) {
+            accountWriter = new AccountWriter(new File(ACCOUNTS_FILE), accounts());
+        }
+        return accountWriter;
+    }
+
+    /**
+     * Looks up the account of an ID number and checks the password against it, timing both as
+     * {@code login.isAccountValid}. The dialog asking again for a wrong password is left to
+     * {@link #checkPassword}, so the time the user takes to answer it is not counted.
+     *
+     * @param id The ID number of the account.
+     * @param password The password to check against the account.
+     * @return the account found, if any, and whether the password matches it.
+     */
+    private static AccountCheck checkAccount(String id, String password) {
+        long start = System.nanoTime();
+        try {
+            AccountIndex.Account account = accounts().find(id);
+            return new AccountCheck(account, account != null && account.getPassword().equals(password));
+        } finally {
+            Metrics.stop("login.isAccountValid", start);
+        }
+    }
+
+    /**
+     * The account found for a login, or null, and whether the password entered matches it.
+     */
+    private static final class AccountCheck {
+        private final AccountIndex.Account account;
+        private final boolean passwordMatches;
+
+        AccountCheck(AccountIndex.Account account, boolean passwordMatches) {
+            this.account = account;
+            this.passwordMatches = passwordMatches;
+        }
+    }
+
+    /**
+     * Checks a password against an account, asking for it again once if it is wrong.
+     *
+     * @param account The account to check.
+     * @param password The password to check against the account.
+     * @return true if the provided password matches the account; otherwise, false.
+     */
+    private boolean checkPassword(AccountIndex.Account account, String password) {
+        if (account.getPassword().equals(password)) {
+            return true;
+        }
+        // Incorrect password entered, ask for password again
+        String newPassword = JOptionPane.showInputDialog(CheckList.this, "Incorrect password. Please enter the correct password:");
+        if (newPassword != null && newPassword.equals(account.getPassword())) {
+            program = account.getProgram();
+            dispose();
+            initializeComponents();
+            return true;
         }
         return false;
     }
     /**
-     * Checks if an account with the provided ID exists in the accounts file.
+     * Checks if an account with the provided ID exists.
      *
      * @param id The ID number of the account to check.
-     * @return true if an account with the provided ID exists in the accounts file; otherwise, false.
+     * @return true if an account with the provided ID exists; otherwise, false.
      */
 
     private boolean isAccountExists(String id) {
-        try (Scanner scanner = new Scanner(new File(ACCOUNTS_FILE))) {
-            while (scanner.hasNextLine()) {
-                String account = scanner.nextLine();
-                if (account.startsWith(id + ":")) {
-                    program = getProgramFromAccount(account);
-                    return true;
-                }
-            }
-        } catch (FileNotFoundException ex) {
-            createAccountsFile();
-        }
-        return false;
+        return accounts().find(id) != null;
     }
 
     /**
      * Creates the accounts file if it does not exist.
      */
-    private void createAccountsFile() {
+    private static void createAccountsFile() {
         try {
             File file = new File(ACCOUNTS_FILE);
             if (file.createNewFile()) {
@@ -320,24 +378,15 @@ public class CheckList extends JFrame {
         }
     }
 
-    /**
-     * Extracts the program information from an account line in the format "ID:Password:Program".
-     *
-     * @param accountLine The line representing an account in the accounts file.
-     * @return The program associated with the account.
-     */
-    private String getProgramFromAccount(String accountLine) {
-        String[] parts = accountLine.split(":");
-        return parts[2];
-    }
-
-
     /**
      * Initializes the main components of the application, including an input panel with options for the user.
      * Allows the user to input a number corresponding to various actions, such as displaying subjects, entering grades,
      * editing courses, and logging out.
      */
     private void initializeComponents() {
+        if (session == null) {
+            session = new CurriculumSession(idNumber, program);
+        }
         Font calibriFont = new Font("Calibri", Font.PLAIN, 15);
         JPanel inputPanel = new JPanel();
         inputPanel.setLayout(new BorderLayout());
@@ -354,7 +403,8 @@ public class CheckList extends JFrame {
                 "9. Take an Elective course<br>" +
                 "10. Shift Course<br>" +
                 "11. Logout <br> "+
-                "12. Quit</html>"
+                "12. Quit<br>" +
+                "13. Plan remaining courses</html>"
         );
         optionsLabel.setFont(calibriFont);
         inputPanel.add(optionsLabel, BorderLayout.NORTH);
@@ -368,19 +418,18 @@ public class CheckList extends JFrame {
         enterButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                if (BackgroundTasks.isBusy()) {
+                    return;
+                }
                 try {
                     int option = Integer.parseInt(inputField.getText());
-                    if (option >= 1 && option <= 12) {
+                    if (option >= 1 && option <= 13) {
                         handleOption(option);
                     } else {
-                        JOptionPane.showMessageDialog(CheckList.this, "The number must be from 1 to 12.");
+                        JOptionPane.showMessageDialog(CheckList.this, "The number must be from 1 to 13.");
                     }
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(CheckList.this, "You entered an invalid integer. Please enter an integer.");
-                } catch (IOException ex) {
-                    throw new RuntimeException(ex);
-                } catch (ClassNotFoundException ex) {
-                    throw new RuntimeException(ex);
                 }
             }
         });
@@ -391,16 +440,125 @@ public class CheckList extends JFrame {
         add(inputPanel, BorderLayout.CENTER);
     }
 
+    /**
+     * Closes the session of the logged-in user, saving their curriculum in the background.
+     *
+     * @param then Called on the event dispatch thread once the curriculum is saved.
+     */
+    private void closeSession(Runnable then) {
+        CurriculumSession closing = session;
+        session = null;
+        if (closing == null) {
+            then.run();
+            return;
+        }
+        BackgroundTasks.run(this, "Saving your curriculum", false, () -> {
+            closing.close();
+            return null;
+        }, saved -> then.run());
+    }
+
     /**
      * Handles the selected option by invoking corresponding methods from the Curriculum class.
+     * Every option works on the curriculum held by the current session. Waiting for the curriculum to load and
+     * building the text of the reports happen in the background; the dialogs are then shown on the event
+     * dispatch thread.
      *
      * @param option The selected option to handle.
-     * @throws IOException If an I/O error occurs.
-     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
      */
-    private void handleOption(int option) throws IOException, ClassNotFoundException {
+    private void handleOption(int option) {
+        CurriculumEvents.MenuOption event = new CurriculumEvents.MenuOption();
+        event.begin();
+        long start = System.nanoTime();
+        CurriculumSession current = session;
+        String message = isReport(option) ? "Building the report" : "Loading your curriculum";
+        BackgroundTasks.run(this, message, () -> {
+            PreparedOption prepared;
+            try {
+                boolean reloaded = current.isStale();
+                prepared = prepareOption(option, current.get());
+                prepared.reloaded = reloaded;
+            } finally {
+                // Only the work is timed; the dialogs the option shows afterwards wait for the user
+                Metrics.stop("menu.option." + option, start);
+            }
+            if (event.shouldCommit()) {
+                event.option = option;
+                event.fileName = prepared.curriculum.getFileName();
+                event.program = prepared.curriculum.getProgram();
+                event.courses = prepared.curriculum.getCourses().size();
+                event.eventDispatchThread = CurriculumEvents.onEventDispatchThread();
+                event.commit();
+            }
+            return prepared;
+        }, prepared -> {
+            if (prepared.reloaded) {
+                JOptionPane.showMessageDialog(CheckList.this, "Your checklist was changed in another window, so your latest changes "
+                        + "could not be saved.\nThe checklist was loaded again.", "Checklist Changed", JOptionPane.WARNING_MESSAGE);
+            }
+            prepared.display.run();
+        });
+    }
+
+    /**
+     * Checks if an option only shows a report, whose text can be built in the background.
+     *
+     * @param option The option to check.
+     * @return true for the GPA, alphabetical, descending and plan reports.
+     */
+    private static boolean isReport(int option) {
+        return option == 6 || option == 7 || option == 8 || option == 13;
+    }
 
-        Curriculum run = new Curriculum(idNumber, program);
+    /**
+     * Does the part of an option that can run off the event dispatch thread. For a report this builds its text;
+     * every other option is run entirely when it is displayed.
+     *
+     * @param option The selected option.
+     * @param run The curriculum of the current session.
+     * @return the option, ready to be displayed on the event dispatch thread.
+     */
+    private PreparedOption prepareOption(int option, Curriculum run) {
+        switch (option) {
+            case 6:
+                List<String> pages = run.curriculumWithGPAPages();
+                return new PreparedOption(run, () -> run.showCurriculumWithGPA(pages));
+            case 7:
+                String alphabetical = run.gradesAlphabeticalReport();
+                return new PreparedOption(run, () -> run.showGradesAlphabetically(alphabetical));
+            case 8:
+                String descending = run.gradesDescendingReport();
+                return new PreparedOption(run, () -> run.showGradesDescending(descending));
+            case 13:
+                String plan = run.degreePlanReport();
+                return new PreparedOption(run, () -> run.showDegreePlan(plan));
+            default:
+                return new PreparedOption(run, () -> runOption(option, run));
+        }
+    }
+
+    /**
+     * An option whose background part is done, with the curriculum it ran on and whether that curriculum had to
+     * be loaded again.
+     */
+    private static final class PreparedOption {
+        private final Curriculum curriculum;
+        private final Runnable display;
+        private boolean reloaded;
+
+        PreparedOption(Curriculum curriculum, Runnable display) {
+            this.curriculum = curriculum;
+            this.display = display;
+        }
+    }
+
+    /**
+     * Runs the selected option on the curriculum held by the current session.
+     *
+     * @param option The selected option to run.
+     * @param run The curriculum of the current session.
+     */
+    private void runOption(int option, Curriculum run) {
         switch (option) {
             case 1:
                 run.displayCurriculum();
@@ -434,18 +592,23 @@ public class CheckList extends JFrame {
             case 11:
                 int confirm2 = JOptionPane.showConfirmDialog(this, "Are you sure you want to return to the login screen?", "Confirm Exit", JOptionPane.YES_NO_OPTION);
                 if (confirm2 == JOptionPane.YES_OPTION) {
-                    getContentPane().removeAll();
-                    Login();
-                    revalidate();
-                    repaint();
+                    closeSession(() -> {
+                        getContentPane().removeAll();
+                        Login();
+                        revalidate();
+                        repaint();
+                    });
                 }
                 break;
             case 12:
                 int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to exit?", "Confirm Exit", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    dispose();
+                    closeSession(this::dispose);
                 }
 
+                break;
+            case 13:
+                run.displayDegreePlan();
                 break;
         }
     }
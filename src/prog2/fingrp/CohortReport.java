@@ -0,0 +1,282 @@
+package prog2.fingrp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CohortReport {
+    /**
+     * <p>Writes the semester GPAs of every student in the data folder to a CSV file, with the Dean's List and Latin
+     * Honors flags of each semester. The averages are computed by {@link Curriculum#getSemesterAverage(byte, byte)},
+     * the same computation the GPA report of option 6 uses.</p>
+     *
+     * <p>Record files are read by a pool of I/O threads and decoded by a smaller pool sized to the processors.
+     * The decode pool has a bounded queue; when it is full, the reading thread decodes the file itself, which slows
+     * reading down to the speed of decoding. At most {@link #MAX_IN_FLIGHT} files are held in memory between being
+     * read and having their rows written, and the rows are streamed to the CSV file by one writer thread. Memory use
+     * therefore does not grow with the size of the cohort.</p>
+     *
+     * <p>In journal mode, changes still in the grade journal of a student are replayed before the averages are
+     * computed.</p>
+     *
+     * <p>Every run prints the number of files per second and the peak heap use, to help size the batch window.</p>
+     *
+     * <p>Usage: {@code java prog2.fingrp.CohortReport [output.csv] [dataFolder]}. The output defaults to
+     * {@code cohort-report.csv} and the data folder to the one the application uses.</p>
+     *
+     * CSV columns: id,program,year,semester,courses,average,deansList,latinHonors
+     */
+    static final int IO_THREADS = Integer.getInteger("checklist.reportIoThreads", 16);
+    static final int MAX_IN_FLIGHT = 256;
+    private static final String HEADER = "id,program,year,semester,courses,average,deansList,latinHonors";
+    private static final List<String> END = new ArrayList<>();
+
+    private final File dataFolder;
+
+    /**
+     * Constructs a report over the record files in a data folder.
+     *
+     * @param dataFolder the folder holding the student record files.
+     */
+    public CohortReport(File dataFolder) {
+        this.dataFolder = dataFolder;
+    }
+
+    public static void main(String[] args) {
+        File output = new File(args.length > 0 ? args[0] : "cohort-report.csv");
+        File folder = new File(args.length > 1 ? args[1] : Curriculum.DATA_FILE_LOCATION);
+        try {
+            Summary summary = new CohortReport(folder).write(output);
+            System.out.println(summary);
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the report of every record file in the data folder.
+     *
+     * @param output the CSV file to write.
+     * @return the throughput and memory figures of the run.
+     * @throws IOException          if the data folder cannot be listed or the CSV file cannot be written.
+     * @throws InterruptedException if the thread is interrupted while waiting for the pools.
+     */
+    public Summary write(File output) throws IOException, InterruptedException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long start = System.nanoTime();
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        ExecutorService readers = Executors.newFixedThreadPool(IO_THREADS);
+        ThreadPoolExecutor decoders = new ThreadPoolExecutor(processors, processors, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(processors * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        BlockingQueue<List<String>> rows = new ArrayBlockingQueue<>(MAX_IN_FLIGHT);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        AtomicInteger files = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        IOException[] writeError = new IOException[1];
+        boolean journaled = GradeJournal.appliesTo(dataFolder);
+
+        Thread writer = new Thread(() -> {
+            try (BufferedWriter out = new BufferedWriter(new FileWriter(output))) {
+                out.write(HEADER);
+                out.newLine();
+                for (List<String> student = rows.take(); student != END; student = rows.take()) {
+                    for (String row : student) {
+                        out.write(row);
+                        out.newLine();
+                    }
+                    inFlight.release();
+                }
+            } catch (IOException e) {
+                writeError[0] = e;
+                drain(rows, inFlight);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "report-writer");
+        writer.start();
+
+        try (DirectoryStream<Path> records = Files.newDirectoryStream(dataFolder.toPath(), "*.ser")) {
+            for (Path record : records) {
+                inFlight.acquire();
+                files.incrementAndGet();
+                readers.execute(() -> {
+                    try {
+                        byte[] data = Files.readAllBytes(record);
+                        decoders.execute(() -> report(record, data, journaled, rows, inFlight, failed));
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Could not read " + record.getFileName() + ": " + e);
+                        failed.incrementAndGet();
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            readers.shutdown();
+            readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            decoders.shutdown();
+            decoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            rows.put(END);
+            writer.join();
+        }
+        if (writeError[0] != null) {
+            throw writeError[0];
+        }
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        return new Summary(files.get(), failed.get(), System.nanoTime() - start, peakHeap);
+    }
+
+    /**
+     * Decodes one record file and queues its rows for the writer. A file that cannot be decoded, whatever the
+     * exception, is counted as failed and its permit is released, so the other files keep going.
+     *
+     * @param record    the path of the record file.
+     * @param data      the contents of the record file.
+     * @param journaled whether changes in the grade journal of the file are replayed first.
+     * @param rows      the queue of the writer.
+     * @param inFlight  the permits of the files held in memory; released by the writer, or here on failure.
+     * @param failed    the count of files that could not be read.
+     */
+    private static void report(Path record, byte[] data, boolean journaled, BlockingQueue<List<String>> rows,
+                               Semaphore inFlight, AtomicInteger failed) {
+        try {
+            Curriculum curriculum = Curriculum.readRecord(data);
+            if (journaled) {
+                new GradeJournal(record.getFileName().toString()).replay(curriculum);
+            }
+            rows.put(rowsOf(curriculum));
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            System.err.println("Could not read " + record.getFileName() + ": " + e);
+            failed.incrementAndGet();
+            inFlight.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Builds the CSV rows of a student, one per semester in curriculum order.
+     *
+     * @param curriculum the curriculum of the student.
+     * @return the CSV rows.
+     */
+    static List<String> rowsOf(Curriculum curriculum) {
+        List<String> rows = new ArrayList<>();
+        boolean[] seen = new boolean[256];
+        for (Course course : curriculum.courses) {
+            byte year = course.getYear();
+            byte semester = course.getSemester();
+            int key = (year & 0xF) << 4 | (semester & 0xF);
+            if (year <= 0 || seen[key]) {
+                continue;
+            }
+            seen[key] = true;
+            SemesterAggregates aggregates = curriculum.getSemesterAggregates();
+            double average = aggregates.getAverage(year, semester);
+            rows.add(curriculum.getIdNumber() + "," + curriculum.getProgram() + "," + year + "," + semester + ","
+                    + aggregates.getCount(year, semester) + "," + String.format("%.2f", average) + ","
+                    + (average >= Curriculum.DEANS_LIST_AVERAGE) + "," + (average >= Curriculum.LATIN_HONORS_AVERAGE));
+        }
+        return rows;
+    }
+
+    /**
+     * Empties the writer's queue after a write error, so producers waiting for permits are not blocked forever.
+     */
+    private static void drain(BlockingQueue<List<String>> rows, Semaphore inFlight) {
+        try {
+            for (List<String> student = rows.take(); student != END; student = rows.take()) {
+                inFlight.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The throughput and memory figures of a report run.
+     */
+    public static final class Summary {
+        private final int files;
+        private final int failed;
+        private final long elapsedNanos;
+        private final long peakHeapBytes;
+
+        private Summary(int files, int failed, long elapsedNanos, long peakHeapBytes) {
+            this.files = files;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        /**
+         * Gets the number of record files found.
+         *
+         * @return the number of files.
+         */
+        public int getFiles() {
+            return files;
+        }
+
+        /**
+         * Gets the number of record files that could not be read.
+         *
+         * @return the number of failed files.
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Gets the number of record files processed per second.
+         *
+         * @return the throughput in files per second.
+         */
+        public double getFilesPerSecond() {
+            return files / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Gets the highest heap use seen during the run, summed over the heap memory pools.
+         *
+         * @return the peak heap use in bytes.
+         */
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files (%d failed) in %.2f s: %.0f files/s, peak heap %.1f MB",
+                    files, failed, elapsedNanos / 1e9, getFilesPerSecond(), peakHeapBytes / 1048576.0);
+        }
+    }
+}
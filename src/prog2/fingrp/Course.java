@@ -18,6 +18,7 @@ public class Course extends AbstractCourse implements Serializable {
      * Example: 2,3,GETHICS,ETHICS,3
      *
      */
+    private static final long serialVersionUID = 3164892791285928818L;
     private String remarks;
     private boolean taking;
     private String term;
@@ -0,0 +1,399 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class CourseCatalog {
+    /**
+     * <p>The courses and electives of a program as listed in {@code Courses/<program>.txt} and
+     * {@code Courses/<program>electives.txt}, read once per process and shared by every student of the program.
+     * The catalog never changes after it is loaded.</p>
+     *
+     * <p>Each course number and name is held once by the catalog. Courses built from the catalog and courses read
+     * from a record file use the catalog's strings instead of their own copies. A student record only has to store
+     * which catalog entry a course comes from, together with the grade and the other fields that change per
+     * student; see {@link CurriculumCodec}.</p>
+     *
+     * <p>A catalog is identified by a fingerprint of its two files. A record stores the fingerprint of the catalog
+     * it refers to. When the current catalog of a program is loaded, a copy of the two files is archived in
+     * {@code Data/catalogs}, so the records that refer to it can still be read after the files in {@code Courses}
+     * are edited. Saving a record therefore never writes the archive itself.</p>
+     *
+     * <p>The files are parsed in place by {@link CatalogParser}. {@link #preloadAll()} loads every program at
+     * startup.</p>
+     */
+    static final String ARCHIVE_FOLDER = "catalogs";
+    private static final Map<String, CourseCatalog> CURRENT = new ConcurrentHashMap<>();
+    private static final Map<String, CourseCatalog> ARCHIVED = new ConcurrentHashMap<>();
+
+    private final String program;
+    private final long fingerprint;
+    private final byte[] courseFile;
+    private final byte[] electiveFile;
+    private final byte[] years;
+    private final byte[] semesters;
+    private final String[] courseNos;
+    private final String[] courseNames;
+    private final float[] units;
+    private final String[] electiveNos;
+    private final String[] electiveNames;
+    private final byte[] electiveUnits;
+    private final byte[] electiveUnits2;
+    private final boolean[] electiveSelected;
+    private final boolean[] electiveCanBeTaken;
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Integer> courseIndex = new HashMap<>();
+    private final Map<String, Integer> electiveIndex = new HashMap<>();
+    private volatile boolean archived;
+
+    /**
+     * Parses a catalog from the contents of its course file and elective file.
+     *
+     * @param program      the program of the catalog, in lower case.
+     * @param courseFile   the contents of the course file.
+     * @param electiveFile the contents of the elective file; empty if the program has no electives.
+     */
+    CourseCatalog(String program, byte[] courseFile, byte[] electiveFile) {
+        this.program = program;
+        this.courseFile = courseFile;
+        this.electiveFile = electiveFile;
+        this.fingerprint = fingerprintOf(courseFile, electiveFile);
+
+        List<Course> courses = new ArrayList<>();
+        CatalogParser parser = new CatalogParser(courseFile);
+        while (parser.nextLine()) {
+            courses.add(new Course(parser.nextByte(), parser.nextByte(), intern(parser.nextString()),
+                    intern(parser.nextString()), parser.nextFloat(), 0, false));
+        }
+        years = new byte[courses.size()];
+        semesters = new byte[courses.size()];
+        courseNos = new String[courses.size()];
+        courseNames = new String[courses.size()];
+        units = new float[courses.size()];
+        for (int i = 0; i < courses.size(); i++) {
+            Course course = courses.get(i);
+            years[i] = course.getYear();
+            semesters[i] = course.getSemester();
+            courseNos[i] = course.getCourseNo();
+            courseNames[i] = course.getCourseName();
+            units[i] = course.getUnit();
+            courseIndex.putIfAbsent(courseNos[i], i);
+        }
+
+        List<Elective> electives = new ArrayList<>();
+        parser = new CatalogParser(electiveFile);
+        while (parser.nextLine()) {
+            electives.add(new Elective(intern(parser.nextString()), intern(parser.nextString()), parser.nextByte(),
+                    parser.nextByte(), parser.nextBoolean(), parser.nextBoolean()));
+        }
+        electiveNos = new String[electives.size()];
+        electiveNames = new String[electives.size()];
+        electiveUnits = new byte[electives.size()];
+        electiveUnits2 = new byte[electives.size()];
+        electiveSelected = new boolean[electives.size()];
+        electiveCanBeTaken = new boolean[electives.size()];
+        for (int i = 0; i < electives.size(); i++) {
+            Elective elective = electives.get(i);
+            electiveNos[i] = elective.getCourseNo();
+            electiveNames[i] = elective.getCourseName();
+            electiveUnits[i] = (byte) elective.getUnit();
+            electiveUnits2[i] = (byte) elective.getUnit2();
+            electiveSelected[i] = elective.getSelected();
+            electiveCanBeTaken[i] = elective.getCanBeTaken();
+            electiveIndex.putIfAbsent(electiveNos[i], i);
+        }
+    }
+
+    /**
+     * Gets the catalog of a program from the {@code Courses} folder, loading and archiving it the first time it is
+     * asked for.
+     *
+     * @param program the program, in any case.
+     * @return the catalog of the program, or null if the program has no course file.
+     */
+    public static CourseCatalog forProgram(String program) {
+        if (program == null) {
+            return null;
+        }
+        String name = program.toLowerCase();
+        CourseCatalog catalog = CURRENT.get(name);
+        Metrics.cacheLookup("catalog", catalog != null);
+        if (catalog == null) {
+            catalog = load(new File(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION), name, name);
+            if (catalog != null) {
+                CourseCatalog loaded = CURRENT.putIfAbsent(name, catalog);
+                if (loaded != null) {
+                    catalog = loaded;
+                } else {
+                    try {
+                        catalog.archive();
+                    } catch (IOException e) {
+                        // Records then keep their own copy of each course instead of referring to the catalog
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Loads the catalog and the prerequisite graph of every program in the {@code Courses} folder in parallel, so
+     * the first student of each program does not wait for its files to be parsed. A program is any
+     * {@code <program>.txt} file that is not an elective or prerequisite file.
+     *
+     * @return a future completed when every program has been loaded.
+     */
+    public static CompletableFuture<Void> preloadAll() {
+        File folder = new File(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION);
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(".txt")
+                && !name.endsWith("electives.txt") && !name.endsWith("prerequisites.txt"));
+        if (files == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<?>> loads = new ArrayList<>();
+        for (File file : files) {
+            String program = file.getName().substring(0, file.getName().length() - ".txt".length());
+            loads.add(CompletableFuture.runAsync(() -> forProgram(program)));
+            loads.add(CompletableFuture.runAsync(() ->
+                    PrerequisiteGraph.forProgram(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION, program)));
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Finds the catalog a record refers to: the current catalog of the program if its fingerprint matches,
+     * otherwise the archived copy with that fingerprint.
+     *
+     * @param program     the program of the record.
+     * @param fingerprint the fingerprint stored in the record.
+     * @return the catalog, or null if neither the current catalog nor an archived copy has the fingerprint.
+     */
+    static CourseCatalog find(String program, long fingerprint) {
+        CourseCatalog current = forProgram(program);
+        if (current != null && current.fingerprint == fingerprint) {
+            return current;
+        }
+        String name = archiveNameOf(program.toLowerCase(), fingerprint);
+        CourseCatalog catalog = ARCHIVED.get(name);
+        if (catalog == null) {
+            catalog = load(archiveFolder(), program.toLowerCase(), name);
+            if (catalog == null || catalog.fingerprint != fingerprint) {
+                return null;
+            }
+            catalog.archived = true;
+            ARCHIVED.putIfAbsent(name, catalog);
+        }
+        return catalog;
+    }
+
+    /**
+     * Reads a catalog from a folder.
+     *
+     * @param folder   the folder holding the files.
+     * @param program  the program of the catalog.
+     * @param baseName the name of the course file without ".txt"; the elective file adds "electives".
+     * @return the catalog, or null if there is no course file or it cannot be read.
+     */
+    private static CourseCatalog load(File folder, String program, String baseName) {
+        File courses = new File(folder, baseName + ".txt");
+        File electives = new File(folder, baseName + "electives.txt");
+        if (!courses.exists()) {
+            return null;
+        }
+        try {
+            byte[] electiveFile = electives.exists() ? Files.readAllBytes(electives.toPath()) : new byte[0];
+            byte[] courseFile = Files.readAllBytes(courses.toPath());
+            Metrics.count("bytes.read.catalog", courseFile.length + electiveFile.length);
+            return new CourseCatalog(program, courseFile, electiveFile);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Archives a copy of the catalog files under their fingerprint, once per catalog, so records that refer to the
+     * catalog can be read after the files in {@code Courses} change.
+     *
+     * @throws IOException if the copy cannot be written.
+     */
+    private void archive() throws IOException {
+        if (archived) {
+            return;
+        }
+        synchronized (this) {
+            if (archived) {
+                return;
+            }
+            File folder = archiveFolder();
+            String name = archiveNameOf(program, fingerprint);
+            File courses = new File(folder, name + ".txt");
+            if (!courses.exists()) {
+                Files.createDirectories(folder.toPath());
+                Curriculum.writeAtomically(new File(folder, name + "electives.txt"), electiveFile);
+                Curriculum.writeAtomically(courses, courseFile);
+            }
+            archived = true;
+        }
+    }
+
+    /**
+     * Checks if a copy of the catalog files is archived, so a record may refer to the catalog.
+     *
+     * @return true once the copy is written or was found in the archive.
+     */
+    boolean isArchived() {
+        return archived;
+    }
+
+    /**
+     * Builds a new course for a catalog entry, with no grade.
+     *
+     * @param index the index of the entry.
+     * @return the new course.
+     */
+    public Course newCourse(int index) {
+        return new Course(years[index], semesters[index], courseNos[index], courseNames[index], units[index], 0, false);
+    }
+
+    /**
+     * Builds a new elective for an elective entry, as listed in the elective file.
+     *
+     * @param index the index of the elective entry.
+     * @return the new elective.
+     */
+    public Elective newElective(int index) {
+        return new Elective(electiveNos[index], electiveNames[index], electiveUnits[index], electiveUnits2[index],
+                electiveSelected[index], electiveCanBeTaken[index]);
+    }
+
+    /**
+     * Finds the catalog entry a course was built from. The course matches an entry if its year, semester, course
+     * number, name and units are the same.
+     *
+     * @param course the course to look up.
+     * @param hint   the entry to try first, usually the position of the course in its curriculum.
+     * @return the index of the entry, or -1 if the course does not match one.
+     */
+    int indexOf(Course course, int hint) {
+        if (hint >= 0 && hint < courseNos.length && matches(course, hint)) {
+            return hint;
+        }
+        Integer index = course.getCourseNo() == null ? null : courseIndex.get(course.getCourseNo());
+        return index != null && matches(course, index) ? index : -1;
+    }
+
+    /**
+     * Finds the elective entry an elective was built from. The elective matches an entry if its course number,
+     * name and units are the same.
+     *
+     * @param elective the elective to look up.
+     * @param hint     the entry to try first, usually the position of the elective in its curriculum.
+     * @return the index of the entry, or -1 if the elective does not match one.
+     */
+    int indexOf(Elective elective, int hint) {
+        if (hint >= 0 && hint < electiveNos.length && matches(elective, hint)) {
+            return hint;
+        }
+        Integer index = elective.getCourseNo() == null ? null : electiveIndex.get(elective.getCourseNo());
+        return index != null && matches(elective, index) ? index : -1;
+    }
+
+    /**
+     * Gets the catalog's copy of a string, or the string itself if the catalog does not have it.
+     *
+     * @param value the string.
+     * @return the shared copy of the string.
+     */
+    public String canonical(String value) {
+        String shared = value == null ? null : strings.get(value);
+        return shared == null ? value : shared;
+    }
+
+    /**
+     * Adds a string to the catalog's strings while the catalog is being built.
+     */
+    private String intern(String value) {
+        String shared = strings.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    /**
+     * Gets the program of the catalog.
+     *
+     * @return the program, in lower case.
+     */
+    public String getProgram() {
+        return program;
+    }
+
+    /**
+     * Gets the fingerprint of the catalog files.
+     *
+     * @return the fingerprint, never 0.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the number of courses in the catalog.
+     *
+     * @return the number of courses.
+     */
+    public int courseCount() {
+        return courseNos.length;
+    }
+
+    /**
+     * Gets the number of electives in the catalog.
+     *
+     * @return the number of electives.
+     */
+    public int electiveCount() {
+        return electiveNos.length;
+    }
+
+    private boolean matches(Course course, int index) {
+        return course.getYear() == years[index] && course.getSemester() == semesters[index]
+                && course.getUnit() == units[index] && courseNos[index].equals(course.getCourseNo())
+                && courseNames[index].equals(course.getCourseName());
+    }
+
+    private boolean matches(Elective elective, int index) {
+        return elective.getUnit() == electiveUnits[index] && elective.getUnit2() == electiveUnits2[index]
+                && electiveNos[index].equals(elective.getCourseNo())
+                && electiveNames[index].equals(elective.getCourseName());
+    }
+
+    private static File archiveFolder() {
+        return new File(Curriculum.DATA_FILE_LOCATION + ARCHIVE_FOLDER);
+    }
+
+    private static String archiveNameOf(String program, long fingerprint) {
+        return program + "-" + Long.toHexString(fingerprint);
+    }
+
+    /**
+     * Computes the 64-bit FNV-1a hash of the two catalog files, with a separator between them.
+     */
+    private static long fingerprintOf(byte[] courseFile, byte[] electiveFile) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : courseFile) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash = (hash ^ 0x100) * 0x100000001b3L;
+        for (byte b : electiveFile) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,26 @@
+package prog2.fingrp;
+
+@FunctionalInterface
+public interface CourseChangeListener {
+    /**
+     * Called after the year, semester, unit or grade of a course has changed.
+     *
+     * @param course      the course that changed, already holding its new values.
+     * @param oldYear     the year of the course before the change.
+     * @param oldSemester the semester of the course before the change.
+     * @param oldUnit     the unit of the course before the change.
+     * @param oldGrade    the grade of the course before the change.
+     */
+    void courseChanged(AbstractCourse course, byte oldYear, byte oldSemester, float oldUnit, float oldGrade);
+
+    /**
+     * Called after the course number of a course has changed. Listeners that only follow years, semesters, units
+     * and grades can ignore it.
+     *
+     * @param course      the course that changed, already holding its new course number.
+     * @param oldCourseNo the course number before the change.
+     */
+    default void courseNumberChanged(AbstractCourse course, String oldCourseNo) {
+    }
+
+}
@@ -0,0 +1,165 @@
+package prog2.fingrp;
+
+import java.util.Arrays;
+import java.util.List;
+
+final class CourseIndex {
+    /**
+     * <p>Maps course numbers to their position in a list of courses. Course numbers are compared the same way
+     * {@link Curriculum#search(String)} always has: spaces are ignored and letters are compared without case,
+     * so "cs111", "CS 111" and "Cs 1 11" all find the same course.</p>
+     *
+     * <p>The index is an open-addressing hash table of positions. Hashing and comparing walk the characters of the
+     * course numbers in place, so a lookup does not allocate. When a course number appears more than once, the
+     * first position is kept, matching the linear scan it replaces.</p>
+     *
+     * <p>An index over a {@link CourseList} stays current while the list's modification count does, which counts
+     * inserted, removed, moved, replaced and renumbered courses. Other lists, such as the electives, do not count
+     * their changes, so the index keeps the courses and course numbers it was built from and compares them by
+     * identity, which is cheap for lists of that size.</p>
+     */
+    private final List<? extends AbstractCourse> courses;
+    private final int size;
+    private final int modifications;
+    private final AbstractCourse[] indexed;
+    private final String[] indexedNumbers;
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * Builds an index over the current contents of a list of courses.
+     *
+     * @param courses the list of courses to index.
+     */
+    CourseIndex(List<? extends AbstractCourse> courses) {
+        this.courses = courses;
+        this.size = courses.size();
+        this.modifications = modificationsOf(courses);
+        if (courses instanceof CourseList) {
+            this.indexed = null;
+            this.indexedNumbers = null;
+        } else {
+            this.indexed = courses.toArray(new AbstractCourse[0]);
+            this.indexedNumbers = new String[indexed.length];
+            for (int i = 0; i < indexed.length; i++) {
+                indexedNumbers[i] = indexed[i].getCourseNo();
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(4, courses.size() * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < courses.size(); i++) {
+            String courseNo = courses.get(i).getCourseNo();
+            if (courseNo == null) {
+                continue;
+            }
+            int slot = hash(courseNo) & mask;
+            while (slots[slot] != -1 && !matches(courses.get(slots[slot]).getCourseNo(), courseNo)) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == -1) {
+                slots[slot] = i;
+            }
+        }
+    }
+
+    /**
+     * Checks if the index still describes the list it was built from.
+     * Lists that changed size since the index was built, or whose courses were moved, replaced or renumbered,
+     * always need a new index.
+     *
+     * @param courses the list the caller is about to search.
+     * @return true if the index can be used for the list, false otherwise.
+     */
+    boolean isCurrent(List<? extends AbstractCourse> courses) {
+        if (this.courses != courses || size != courses.size() || modifications != modificationsOf(courses)) {
+            return false;
+        }
+        if (indexed != null) {
+            // Compared by identity: a changed course number is always a different string
+            for (int i = 0; i < indexed.length; i++) {
+                AbstractCourse course = courses.get(i);
+                if (course != indexed[i] || course.getCourseNo() != indexedNumbers[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the modification count of a {@link CourseList}, which also counts changes that keep the size of the
+     * list. Other lists report 0 and are compared course by course.
+     */
+    private static int modificationsOf(List<? extends AbstractCourse> courses) {
+        return courses instanceof CourseList ? ((CourseList) courses).modificationCount() : 0;
+    }
+
+    /**
+     * Finds the position of a course number.
+     *
+     * @param courseNo the course number to search for.
+     * @return the position of the first course with the course number, or -1 if there is none.
+     */
+    int indexOf(String courseNo) {
+        int slot = hash(courseNo) & mask;
+        int position;
+        while ((position = slots[slot]) != -1) {
+            if (matches(courses.get(position).getCourseNo(), courseNo)) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Hashes a course number ignoring spaces and letter case.
+     *
+     * @param courseNo the course number to hash.
+     * @return the hash of the canonical form of the course number.
+     */
+    static int hash(String courseNo) {
+        int h = 0;
+        for (int i = 0; i < courseNo.length(); i++) {
+            char c = courseNo.charAt(i);
+            if (c != ' ') {
+                h = 31 * h + Character.toLowerCase(c);
+            }
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Compares two course numbers ignoring spaces and letter case.
+     *
+     * @param a the first course number.
+     * @param b the second course number.
+     * @return true if both course numbers have the same canonical form, false otherwise.
+     */
+    static boolean matches(String a, String b) {
+        if (a == null) {
+            return false;
+        }
+        int i = 0;
+        int j = 0;
+        while (true) {
+            while (i < a.length() && a.charAt(i) == ' ') {
+                i++;
+            }
+            while (j < b.length() && b.charAt(j) == ' ') {
+                j++;
+            }
+            if (i == a.length() || j == b.length()) {
+                return i == a.length() && j == b.length();
+            }
+            if (Character.toLowerCase(a.charAt(i)) != Character.toLowerCase(b.charAt(j))) {
+                return false;
+            }
+            i++;
+            j++;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package prog2.fingrp;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.TreeSet;
+
+public final class CourseList extends AbstractList<Course> implements RandomAccess, Serializable, CourseChangeListener {
+    /**
+     * <p>The course list of a {@link Curriculum}, stored as one bucket per (year, semester). A bucket is found with
+     * one hash lookup, so listing the courses of a semester or a year no longer scans the whole curriculum, and
+     * inserting a course only shifts the courses of its own semester.</p>
+     *
+     * <p>Buckets are kept in order of year and semester, with the year 0 end-of-curriculum row last, and courses keep
+     * their order inside a bucket. Iterating the list therefore gives the same order as the course file it was read
+     * from: year by year, with the short term (semester 3) after the second semester. A course for a semester the
+     * list does not have yet starts a new bucket in its place in that order.</p>
+     *
+     * <p>The list is a {@link List} of all courses in that order, with positional access through the start offsets
+     * of the buckets. A course can only be placed inside its own bucket: {@link #add(Course)} appends it to the end
+     * of its bucket, {@link #addFirst(Course)} puts it at the front, and {@link #set(int, Course)} only accepts a
+     * course of the same semester as the one it replaces; unlike {@link List#set(int, Object)}, it rejects any other
+     * course. To sort courses, sort a copy.</p>
+     *
+     * <p>The list listens to its courses, and a course whose year or semester changes is moved to its new bucket as
+     * a stable sort by year and semester would place it: to the front of the bucket if it moved to a later semester,
+     * and to the end if it moved to an earlier one. Courses that did not change keep their order. Changes are
+     * passed on to the observer of the list, if there is one.</p>
+     */
+    private static final long serialVersionUID = 1L;
+
+    private static final ArrayList<Course> NO_COURSES = new ArrayList<>(0);
+
+    private final ArrayList<Bucket> buckets = new ArrayList<>();
+    private transient Map<Integer, Bucket> bucketsByKey = new HashMap<>();
+    private transient int[] starts;
+    private transient CourseChangeListener observer;
+    private transient int renumberings;
+    private int size;
+
+    /**
+     * Constructs an empty course list.
+     */
+    public CourseList() {
+    }
+
+    /**
+     * Constructs a course list holding the given courses, in their order.
+     *
+     * @param courses the courses to add.
+     */
+    public CourseList(Collection<? extends Course> courses) {
+        for (Course course : courses) {
+            add(course);
+        }
+    }
+
+    /**
+     * Gets the courses of a semester. The returned list is a read-only view that follows later changes.
+     *
+     * @param year     the year of the semester.
+     * @param semester the semester.
+     * @return the courses of the semester, in order; empty if there are none.
+     */
+    public List<Course> bucket(byte year, byte semester) {
+        Bucket bucket = bucketsByKey.get(keyOf(year, semester));
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket.courses);
+    }
+
+    /**
+     * Gets the courses of a year, semester by semester.
+     *
+     * @param year the year.
+     * @return the courses of the year.
+     */
+    public List<Course> coursesOfYear(byte year) {
+        List<Course> courses = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            if (bucket.year == year) {
+                courses.addAll(bucket.courses);
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Gets the years that have courses, in ascending order.
+     *
+     * @return the years of the list.
+     */
+    public List<Byte> years() {
+        TreeSet<Byte> years = new TreeSet<>();
+        for (Bucket bucket : buckets) {
+            years.add(bucket.year);
+        }
+        return new ArrayList<>(years);
+    }
+
+    /**
+     * Gets the number of semester buckets.
+     *
+     * @return the number of buckets.
+     */
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Gets the number of changes made to the list that can move a course number to another position: structural
+     * changes, courses moved to another semester, courses replaced with {@link #set(int, Course)} and courses whose
+     * course number changed. A {@link CourseIndex} built for the list is current while this count stays the same.
+     *
+     * @return the modification count.
+     */
+    int modificationCount() {
+        return modCount + renumberings;
+    }
+
+    /**
+     * Sets the listener that is told about changes to the year, semester, unit or grade of the courses in the list.
+     *
+     * @param observer the listener, or null for none.
+     */
+    public void setObserver(CourseChangeListener observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Appends a course to the end of its semester.
+     *
+     * @param course the course to add.
+     * @return true.
+     */
+    @Override
+    public boolean add(Course course) {
+        Bucket bucket = bucketOf(course);
+        bucket.courses.add(course);
+        added(course);
+        return true;
+    }
+
+    /**
+     * Inserts a course at the front of its semester, the place
+     * {@link Curriculum#insertCourseAtYearAndSemester(byte, byte, Course)} has always put new courses.
+     *
+     * @param course the course to insert.
+     * @return the position of the course in the list.
+     */
+    public int addFirst(Course course) {
+        Bucket bucket = bucketOf(course);
+        bucket.courses.add(0, course);
+        added(course);
+        return startOf(bucket);
+    }
+
+    /**
+     * Inserts a course at a position. The position has to be inside the course's semester or at one of its ends.
+     *
+     * @param index  the position to insert at.
+     * @param course the course to insert.
+     * @throws IllegalArgumentException if the position is outside the course's semester.
+     */
+    @Override
+    public void add(int index, Course course) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Bucket bucket = bucketsByKey.get(keyOf(course.getYear(), course.getSemester()));
+        if (bucket == null) {
+            int start = startOfNewBucket(course.getYear(), course.getSemester());
+            if (index != start) {
+                throw new IllegalArgumentException("A course of a new semester can only be added at position " + start);
+            }
+            add(course);
+            return;
+        }
+        int start = startOf(bucket);
+        if (index < start || index > start + bucket.courses.size()) {
+            throw new IllegalArgumentException("Position " + index + " is outside year " + course.getYear()
+                    + " semester " + course.getSemester());
+        }
+        bucket.courses.add(index - start, course);
+        added(course);
+    }
+
+    @Override
+    public Course get(int index) {
+        int b = bucketIndexOf(index);
+        return buckets.get(b).courses.get(index - starts[b]);
+    }
+
+    /**
+     * Replaces the course at a position with a course of the same semester. Unlike {@link List#set(int, Object)},
+     * a course of another semester is rejected, since it cannot be placed at the position; remove the old course
+     * and add the new one instead.
+     *
+     * @throws IllegalArgumentException if the new course belongs to another semester.
+     */
+    @Override
+    public Course set(int index, Course course) {
+        int b = bucketIndexOf(index);
+        Bucket bucket = buckets.get(b);
+        if (bucket.year != course.getYear() || bucket.semester != course.getSemester()) {
+            throw new IllegalArgumentException("Course of year " + course.getYear() + " semester "
+                    + course.getSemester() + " cannot replace a course of year " + bucket.year + " semester " + bucket.semester);
+        }
+        Course old = bucket.courses.set(index - starts[b], course);
+        if (old != course) {
+            old.setChangeListener(null);
+            course.setChangeListener(this);
+            renumberings++;
+        }
+        return old;
+    }
+
+    @Override
+    public Course remove(int index) {
+        int b = bucketIndexOf(index);
+        Bucket bucket = buckets.get(b);
+        Course removed = bucket.courses.remove(index - starts[b]);
+        if (bucket.courses.isEmpty()) {
+            buckets.remove(b);
+            bucketsByKey.remove(keyOf(bucket.year, bucket.semester));
+        }
+        removed.setChangeListener(null);
+        size--;
+        changed();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (Bucket bucket : buckets) {
+            for (Course course : bucket.courses) {
+                course.setChangeListener(null);
+            }
+        }
+        buckets.clear();
+        bucketsByKey.clear();
+        size = 0;
+        changed();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Walks the buckets directly instead of looking up every position.
+     */
+    @Override
+    public Iterator<Course> iterator() {
+        return new Iterator<Course>() {
+            private int bucket = -1;
+            private ArrayList<Course> current = NO_COURSES;
+            private int offset;
+            private int returned;
+            private int expectedModCount = modCount;
+            private boolean canRemove;
+
+            @Override
+            public boolean hasNext() {
+                return returned < size;
+            }
+
+            @Override
+            public Course next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (returned >= size) {
+                    throw new NoSuchElementException();
+                }
+                while (offset == current.size()) {
+                    current = buckets.get(++bucket).courses;
+                    offset = 0;
+                }
+                canRemove = true;
+                returned++;
+                return current.get(offset++);
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                Course removed = current.remove(--offset);
+                removed.setChangeListener(null);
+                if (current.isEmpty()) {
+                    Bucket emptied = buckets.remove(bucket--);
+                    bucketsByKey.remove(keyOf(emptied.year, emptied.semester));
+                }
+                returned--;
+                size--;
+                changed();
+                expectedModCount = modCount;
+                canRemove = false;
+            }
+        };
+    }
+
+    /**
+     * Moves a course whose year or semester changed to its new bucket, then passes the change on. The course goes
+     * to the front of the bucket if it moved to a later semester and to the end if it moved to an earlier one, so
+     * the list stays in the order a stable sort by year and semester would give.
+     */
+    @Override
+    public void courseChanged(AbstractCourse course, byte oldYear, byte oldSemester, float oldUnit, float oldGrade) {
+        if (course.getYear() != oldYear || course.getSemester() != oldSemester) {
+            Bucket old = bucketsByKey.get(keyOf(oldYear, oldSemester));
+            if (old != null) {
+                for (int i = 0; i < old.courses.size(); i++) {
+                    if (old.courses.get(i) == course) {
+                        old.courses.remove(i);
+                        if (old.courses.isEmpty()) {
+                            buckets.remove(old);
+                            bucketsByKey.remove(keyOf(old.year, old.semester));
+                        }
+                        Bucket moved = bucketOf((Course) course);
+                        if (orderOf(moved.year, moved.semester) > orderOf(oldYear, oldSemester)) {
+                            moved.courses.add(0, (Course) course);
+                        } else {
+                            moved.courses.add((Course) course);
+                        }
+                        changed();
+                        break;
+                    }
+                }
+            }
+        }
+        if (observer != null) {
+            observer.courseChanged(course, oldYear, oldSemester, oldUnit, oldGrade);
+        }
+    }
+
+    /**
+     * Counts a changed course number, so indexes of the list are built again, then passes the change on.
+     */
+    @Override
+    public void courseNumberChanged(AbstractCourse course, String oldCourseNo) {
+        renumberings++;
+        if (observer != null) {
+            observer.courseNumberChanged(course, oldCourseNo);
+        }
+    }
+
+    /**
+     * Gets the bucket of a course's semester, adding an empty bucket in its place if there is none.
+     */
+    private Bucket bucketOf(Course course) {
+        int key = keyOf(course.getYear(), course.getSemester());
+        Bucket bucket = bucketsByKey.get(key);
+        if (bucket == null) {
+            bucket = new Bucket(course.getYear(), course.getSemester());
+            buckets.add(insertionPointOf(bucket.year, bucket.semester), bucket);
+            bucketsByKey.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Finds where a bucket of a new semester goes: after every bucket that comes before it in year and semester
+     * order. Buckets read from an older list that are out of order are left where they are.
+     */
+    private int insertionPointOf(byte year, byte semester) {
+        int order = orderOf(year, semester);
+        int point = buckets.size();
+        while (point > 0 && orderOf(buckets.get(point - 1).year, buckets.get(point - 1).semester) > order) {
+            point--;
+        }
+        return point;
+    }
+
+    /**
+     * Gets the position a course of a semester the list does not have yet would be added at.
+     */
+    private int startOfNewBucket(byte year, byte semester) {
+        int point = insertionPointOf(year, semester);
+        int[] offsets = starts();
+        return point == offsets.length ? size : offsets[point];
+    }
+
+    /**
+     * Orders semesters by year and semester, with year 0, the end-of-curriculum row, after every other year.
+     */
+    private static int orderOf(byte year, byte semester) {
+        int yearOrder = year == 0 ? 0x100 : year & 0xFF;
+        return yearOrder << 8 | (semester & 0xFF);
+    }
+
+    /**
+     * Updates the size and listener after a course was added to a bucket.
+     */
+    private void added(Course course) {
+        course.setChangeListener(this);
+        size++;
+        changed();
+    }
+
+    /**
+     * Records a structural change: positions after the change moved, so the bucket offsets are recomputed
+     * on the next positional access.
+     */
+    private void changed() {
+        modCount++;
+        starts = null;
+    }
+
+    /**
+     * Gets the position of the first course of a bucket.
+     */
+    private int startOf(Bucket bucket) {
+        int[] offsets = starts();
+        return offsets[buckets.indexOf(bucket)];
+    }
+
+    /**
+     * Finds the bucket holding a position.
+     *
+     * @param index the position.
+     * @return the index of the bucket in the bucket list.
+     */
+    private int bucketIndexOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int[] offsets = starts();
+        int low = 0;
+        int high = buckets.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the start offsets of the buckets, computing them if the list changed since they were last computed.
+     */
+    private int[] starts() {
+        int[] offsets = starts;
+        if (offsets == null) {
+            offsets = new int[buckets.size()];
+            int start = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = start;
+                start += buckets.get(i).courses.size();
+            }
+            starts = offsets;
+        }
+        return offsets;
+    }
+
+    private static int keyOf(byte year, byte semester) {
+        return (year & 0xFF) << 8 | (semester & 0xFF);
+    }
+
+    /**
+     * Rebuilds the bucket lookup and listens to the courses again after deserialization.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        bucketsByKey = new HashMap<>();
+        for (Bucket bucket : buckets) {
+            bucketsByKey.put(keyOf(bucket.year, bucket.semester), bucket);
+            for (Course course : bucket.courses) {
+                course.setChangeListener(this);
+            }
+        }
+    }
+
+    /**
+     * The courses of one (year, semester).
+     */
+    private static final class Bucket implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final byte year;
+        private final byte semester;
+        private final ArrayList<Course> courses = new ArrayList<>();
+
+        private Bucket(byte year, byte semester) {
+            this.year = year;
+            this.semester = semester;
+        }
+    }
+}
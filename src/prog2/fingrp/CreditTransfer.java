@@ -0,0 +1,488 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+public final class CreditTransfer {
+    /**
+     * <p>Moves the passed courses of a student from one program to another, driven by an equivalence table in
+     * {@code Courses/<from>-<to>equivalences.txt}. Each line names a course of the old program followed by the
+     * courses of the new program it counts for. A course that is not in the table keeps its number if the new
+     * program has a course or elective with the same number, as the general education courses do. When only the
+     * table for the opposite direction exists, it is read backwards.</p>
+     *
+     * <p>A transfer builds the curriculum of the new program from its {@link CourseCatalog} and walks the old
+     * courses once, looking each target up in a hash index, so a student costs one pass over their courses. Only
+     * passing grades move. A target that is an elective of the new program selects the elective in the year and
+     * semester the old course was taken; a target ending in "L" stands for the laboratory course of such an
+     * elective. When several old courses count for the same new course, the highest grade is kept, and a course
+     * number listed twice in the new program is filled once per old course. Passed courses with no target are
+     * reported as unmapped credits.</p>
+     *
+     * <p>Tables are parsed once and shared, like {@link PrerequisiteGraph}; a table is read again when its file
+     * changes. A transfer only reads the old curriculum, so {@link #simulateCohort(File, String, int)} can run a
+     * whole data folder through a shift without changing any record.</p>
+     *
+     * <p>Usage: {@code java prog2.fingrp.CreditTransfer <program> [dataFolder]} simulates shifting every student of
+     * the data folder to the program and prints what each one would keep and lose.</p>
+     *
+     * Template in file: courseNo, equivalentCourseNo1, equivalentCourseNo2, ...
+     * Example: IT 212,CS 211
+     */
+    private static final Map<String, CreditTransfer> CACHE = new ConcurrentHashMap<>();
+
+    private final String from;
+    private final String to;
+    private final long lastModified;
+    private final Map<String, String[]> equivalents;
+
+    /**
+     * Constructs a transfer from a parsed equivalence table.
+     *
+     * @param from         the program courses are moved from, in lower case.
+     * @param to           the program courses are moved to, in lower case.
+     * @param lastModified the combined last-modified time of the table files.
+     * @param equivalents  the courses of the new program each course of the old program counts for.
+     */
+    private CreditTransfer(String from, String to, long lastModified, Map<String, String[]> equivalents) {
+        this.from = from;
+        this.to = to;
+        this.lastModified = lastModified;
+        this.equivalents = equivalents;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java prog2.fingrp.CreditTransfer <program> [dataFolder]");
+            return;
+        }
+        File folder = new File(args.length > 1 ? args[1] : Curriculum.DATA_FILE_LOCATION);
+        long start = System.nanoTime();
+        List<Outcome> outcomes = simulateCohort(folder, args[0], Runtime.getRuntime().availableProcessors());
+        long elapsed = System.nanoTime() - start;
+        float kept = 0;
+        float lost = 0;
+        for (Outcome outcome : outcomes) {
+            System.out.println(outcome.getIdNumber() + "," + outcome.getFromProgram() + "," + outcome.getToProgram()
+                    + "," + outcome.getTransferredUnits() + "," + outcome.getUnmappedUnits() + ","
+                    + String.join(" ", outcome.getUnmappedCourseNumbers()));
+            kept += outcome.getTransferredUnits();
+            lost += outcome.getUnmappedUnits();
+        }
+        System.out.printf("%d students simulated in %.2f s, %.1f units transferred, %.1f units unmapped%n",
+                outcomes.size(), elapsed / 1e9, kept, lost);
+    }
+
+    /**
+     * Returns the shared transfer between two programs, parsing the equivalence table only if it has not been
+     * parsed yet or if it was modified since it was last parsed.
+     *
+     * @param directory the directory holding the course reference files.
+     * @param from      the program courses are moved from.
+     * @param to        the program courses are moved to.
+     * @return the transfer between the programs.
+     */
+    public static CreditTransfer between(String directory, String from, String to) {
+        String source = from.toLowerCase();
+        String target = to.toLowerCase();
+        File forward = new File(directory + source + "-" + target + "equivalences.txt");
+        File backward = new File(directory + target + "-" + source + "equivalences.txt");
+        long modified = forward.lastModified() * 31 + backward.lastModified();
+        String key = forward.getPath();
+        CreditTransfer transfer = CACHE.get(key);
+        if (transfer != null && transfer.lastModified == modified) {
+            return transfer;
+        }
+        return CACHE.compute(key, (k, cached) -> cached != null && cached.lastModified == modified
+                ? cached : new CreditTransfer(source, target, modified, parse(forward, backward)));
+    }
+
+    /**
+     * Reads an equivalence table, or the table of the opposite direction read backwards if there is none.
+     * Missing files result in an empty table, so only courses with the same number transfer.
+     *
+     * @param forward  the table from the old program to the new one.
+     * @param backward the table from the new program to the old one.
+     * @return the courses of the new program each course of the old program counts for.
+     */
+    private static Map<String, String[]> parse(File forward, File backward) {
+        Map<String, List<String>> table = new HashMap<>();
+        boolean reversed = !forward.exists();
+        File file = reversed ? backward : forward;
+        if (file.exists()) {
+            try {
+                CatalogParser parser = new CatalogParser(CatalogParser.read(file));
+                List<String> line = new ArrayList<>();
+                while (parser.nextLine()) {
+                    line.clear();
+                    while (parser.hasField()) {
+                        String courseNo = parser.nextTrimmedString();
+                        if (!courseNo.isEmpty()) {
+                            line.add(courseNo.intern());
+                        }
+                    }
+                    if (line.size() < 2) {
+                        continue;
+                    }
+                    for (int i = 1; i < line.size(); i++) {
+                        String source = reversed ? line.get(i) : line.get(0);
+                        String target = reversed ? line.get(0) : line.get(i);
+                        List<String> targets = table.computeIfAbsent(source, k -> new ArrayList<>(1));
+                        if (!targets.contains(target)) {
+                            targets.add(target);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        Map<String, String[]> equivalents = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : table.entrySet()) {
+            equivalents.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+        return equivalents;
+    }
+
+    /**
+     * Gets the program courses are moved from.
+     *
+     * @return the old program, in lower case.
+     */
+    public String getFromProgram() {
+        return from;
+    }
+
+    /**
+     * Gets the program courses are moved to.
+     *
+     * @return the new program, in lower case.
+     */
+    public String getToProgram() {
+        return to;
+    }
+
+    /**
+     * Gets the courses of the new program that a course of the old program counts for in the table.
+     *
+     * @param courseNo the course number in the old program.
+     * @return the course numbers in the new program, or null if the table does not list the course.
+     */
+    public String[] equivalentsOf(String courseNo) {
+        String[] targets = equivalents.get(courseNo);
+        return targets == null ? null : targets.clone();
+    }
+
+    /**
+     * Builds the curriculum of the new program for a student and moves their passed courses into it.
+     * The curriculum of the student is not changed.
+     *
+     * @param curriculum the curriculum of the student in the old program.
+     * @return the outcome of the transfer, or null if the new program has no course file.
+     */
+    public Outcome transfer(Curriculum curriculum) {
+        CourseCatalog catalog = CourseCatalog.forProgram(to);
+        if (catalog == null) {
+            return null;
+        }
+        CourseList courses = new CourseList();
+        Map<String, List<Course>> byNumber = new HashMap<>();
+        for (int i = 0; i < catalog.courseCount(); i++) {
+            Course course = catalog.newCourse(i);
+            courses.add(course);
+            index(byNumber, course);
+        }
+        ArrayList<Elective> electives = new ArrayList<>(catalog.electiveCount());
+        Map<String, Elective> electiveByNumber = new HashMap<>();
+        for (int i = 0; i < catalog.electiveCount(); i++) {
+            Elective elective = catalog.newElective(i);
+            electives.add(elective);
+            electiveByNumber.put(elective.getCourseNo(), elective);
+        }
+
+        Set<Course> credited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Course> unmapped = new ArrayList<>();
+        float transferredUnits = 0;
+        for (Course course : curriculum.getCourses()) {
+            if (course.getCourseNo() == null || !PassedCourses.isPassing(course.getGrade())) {
+                continue;
+            }
+            String[] targets = equivalents.get(course.getCourseNo());
+            if (targets == null) {
+                targets = new String[]{course.getCourseNo()};
+            }
+            boolean mapped = false;
+            for (String target : targets) {
+                Course credit = creditFor(target, course, courses, byNumber, electiveByNumber, credited);
+                if (credit != null) {
+                    if (course.getGrade() > credit.getGrade()) {
+                        credit.setGrade(course.getGrade());
+                    }
+                    credit.setTaking(false);
+                    mapped = true;
+                }
+            }
+            if (mapped) {
+                transferredUnits += course.getUnit();
+            } else {
+                unmapped.add(course);
+            }
+        }
+        return new Outcome(curriculum.getIdNumber(), curriculum.getProgram(), to.toUpperCase(), courses, electives,
+                credited.size(), transferredUnits, unmapped);
+    }
+
+    /**
+     * Finds the course of the new program that receives the grade of an old course, selecting the elective the
+     * course belongs to if needed.
+     *
+     * @return the course to credit, or null if the new program has no such course or elective.
+     */
+    private static Course creditFor(String courseNo, Course source, CourseList courses,
+                                    Map<String, List<Course>> byNumber, Map<String, Elective> electiveByNumber,
+                                    Set<Course> credited) {
+        List<Course> same = byNumber.get(courseNo);
+        if (same == null) {
+            Elective elective = electiveByNumber.get(courseNo);
+            if (elective == null && courseNo.endsWith("L")) {
+                elective = electiveByNumber.get(courseNo.substring(0, courseNo.length() - 1));
+                if (elective != null && elective.getUnit2() == 0) {
+                    elective = null;
+                }
+            }
+            if (elective == null || elective.getSelected()) {
+                return null;
+            }
+            select(elective, source.getYear(), source.getSemester(), courses, byNumber);
+            same = byNumber.get(courseNo);
+        }
+        for (Course course : same) {
+            if (credited.add(course)) {
+                return course;
+            }
+        }
+        return same.get(0);
+    }
+
+    /**
+     * Selects an elective and adds its course, and its laboratory course if it has one, at the front of a semester,
+     * as {@link Curriculum#applyElective(Elective, byte, byte)} does.
+     */
+    private static void select(Elective elective, byte year, byte semester, CourseList courses,
+                               Map<String, List<Course>> byNumber) {
+        elective.setYear(year);
+        elective.setSelected(true);
+        if (elective.getUnit2() != 0) {
+            Course lab = new Course(year, semester, elective.getCourseNo() + "L", elective.getCourseName() + "(LAB)",
+                    elective.getUnit2(), 0, false);
+            courses.addFirst(lab);
+            index(byNumber, lab);
+        }
+        Course lecture = new Course(year, semester, elective.getCourseNo(), elective.getCourseName(),
+                elective.getUnit(), 0, false);
+        courses.addFirst(lecture);
+        index(byNumber, lecture);
+    }
+
+    /**
+     * Adds a course to the index of course numbers.
+     */
+    private static void index(Map<String, List<Course>> byNumber, Course course) {
+        if (course.getYear() != 0) {
+            byNumber.computeIfAbsent(course.getCourseNo(), k -> new ArrayList<>(1)).add(course);
+        }
+    }
+
+    /**
+     * Simulates shifting every student record of a data folder to a program, several students at a time. Records
+     * are only read; in journal mode, changes still in the grade journal of a student are replayed first. Records
+     * that cannot be read and students already in the program are left out.
+     *
+     * @param dataFolder  the folder holding the student record files.
+     * @param program     the program to shift the students to.
+     * @param parallelism the number of students simulated at the same time.
+     * @return the outcomes, in file name order.
+     */
+    public static List<Outcome> simulateCohort(File dataFolder, String program, int parallelism) {
+        File[] records = dataFolder.listFiles((dir, name) -> name.endsWith(".ser"));
+        if (records == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(records);
+        boolean journaled = GradeJournal.appliesTo(dataFolder);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> Arrays.stream(records).parallel()
+                    .map(record -> simulateRecord(record, program, journaled))
+                    .filter(outcome -> outcome != null)
+                    .collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads one record file and simulates shifting the student to a program.
+     *
+     * @return the outcome, or null if the record cannot be read or the student is already in the program.
+     */
+    private static Outcome simulateRecord(File record, String program, boolean journaled) {
+        try {
+            Curriculum curriculum = Curriculum.readRecord(record);
+            if (journaled) {
+                new GradeJournal(record.getName()).replay(curriculum);
+            }
+            if (curriculum.getProgram().equalsIgnoreCase(program)) {
+                return null;
+            }
+            return between(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION, curriculum.getProgram(), program)
+                    .transfer(curriculum);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * The curriculum of the new program built for one student, with what was transferred and what was not.
+     */
+    public static final class Outcome {
+        private final String idNumber;
+        private final String fromProgram;
+        private final String toProgram;
+        private final CourseList courses;
+        private final ArrayList<Elective> electives;
+        private final int creditedCourses;
+        private final float transferredUnits;
+        private final List<Course> unmapped;
+
+        private Outcome(String idNumber, String fromProgram, String toProgram, CourseList courses,
+                        ArrayList<Elective> electives, int creditedCourses, float transferredUnits,
+                        List<Course> unmapped) {
+            this.idNumber = idNumber;
+            this.fromProgram = fromProgram;
+            this.toProgram = toProgram;
+            this.courses = courses;
+            this.electives = electives;
+            this.creditedCourses = creditedCourses;
+            this.transferredUnits = transferredUnits;
+            this.unmapped = Collections.unmodifiableList(unmapped);
+        }
+
+        /**
+         * Gets the ID number of the student.
+         *
+         * @return the ID number.
+         */
+        public String getIdNumber() {
+            return idNumber;
+        }
+
+        /**
+         * Gets the program the student is shifted from.
+         *
+         * @return the old program.
+         */
+        public String getFromProgram() {
+            return fromProgram;
+        }
+
+        /**
+         * Gets the program the student is shifted to.
+         *
+         * @return the new program, in upper case.
+         */
+        public String getToProgram() {
+            return toProgram;
+        }
+
+        /**
+         * Gets the courses of the new program, with the transferred grades filled in.
+         *
+         * @return the courses of the new curriculum.
+         */
+        public CourseList getCourses() {
+            return courses;
+        }
+
+        /**
+         * Gets the electives of the new program, with the electives that received credit selected.
+         *
+         * @return the electives of the new curriculum.
+         */
+        public ArrayList<Elective> getElectives() {
+            return electives;
+        }
+
+        /**
+         * Gets the number of courses of the new program that received a grade.
+         *
+         * @return the number of credited courses.
+         */
+        public int getCreditedCourses() {
+            return creditedCourses;
+        }
+
+        /**
+         * Gets the units of the passed old courses that counted for a course of the new program.
+         *
+         * @return the transferred units.
+         */
+        public float getTransferredUnits() {
+            return transferredUnits;
+        }
+
+        /**
+         * Gets the passed old courses that count for nothing in the new program.
+         *
+         * @return the unmapped courses.
+         */
+        public List<Course> getUnmapped() {
+            return unmapped;
+        }
+
+        /**
+         * Gets the units of the passed old courses that count for nothing in the new program.
+         *
+         * @return the unmapped units.
+         */
+        public float getUnmappedUnits() {
+            float units = 0;
+            for (Course course : unmapped) {
+                units += course.getUnit();
+            }
+            return units;
+        }
+
+        /**
+         * Gets the course numbers of the passed old courses that count for nothing in the new program.
+         *
+         * @return the unmapped course numbers.
+         */
+        public List<String> getUnmappedCourseNumbers() {
+            List<String> courseNumbers = new ArrayList<>(unmapped.size());
+            for (Course course : unmapped) {
+                courseNumbers.add(course.getCourseNo());
+            }
+            return courseNumbers;
+        }
+
+        @Override
+        public String toString() {
+            return idNumber + ": " + fromProgram + " -> " + toProgram + ", " + creditedCourses + " courses credited, "
+                    + transferredUnits + " units transferred, " + getUnmappedUnits() + " units unmapped "
+                    + getUnmappedCourseNumbers();
+        }
+    }
+}
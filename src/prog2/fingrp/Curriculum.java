@@ -4,6 +4,8 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,8 +20,10 @@ public class Curriculum implements Serializable{
      * as well as for interacting with course information such as adding, editing, and displaying courses.</p>
      *
      * <p>Curriculum objects can be constructed either with an empty state or based on existing data
-     * stored in serialized files. Serialized files are used to preserve curriculum data
-     * between program sessions. If no serialized file is found for a specific curriculum,
+     * stored in record files. Record files are used to preserve curriculum data
+     * between program sessions and are written in the binary format of {@link CurriculumCodec}.
+     * Files written with Java serialization by earlier versions can still be read, and
+     * {@link RecordMigrator} converts them. If no record file is found for a specific curriculum,
      * a new file is created and initialized with default values.</p>
      *
      * <p>The curriculum data can be accessed and modified through getter and setter methods.
@@ -34,16 +38,38 @@ public class Curriculum implements Serializable{
      * @see Elective
      * @see java.io.Serializable
      */
+    private static final long serialVersionUID = 8450173089428870723L;
+    /**
+     * The fields of the serialized form. The courses are still written as an ArrayList, so records serialized
+     * before the courses were kept in a {@link CourseList} can be read, and the other way around.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("IdNumber", String.class),
+            new ObjectStreamField("program", String.class),
+            new ObjectStreamField("courses", ArrayList.class),
+            new ObjectStreamField("electives", ArrayList.class),
+            new ObjectStreamField("journalSequence", long.class),
+            new ObjectStreamField("FILE_NAME", String.class)
+    };
     private String IdNumber;
     private String program;
-    protected ArrayList<Course> courses;
+    protected CourseList courses;
 
     protected ArrayList<Elective> electives;
-    private transient Scanner scan;
-    private final String FILE_NAME;
-    private final String currentDirectory = System.getProperty("user.dir");
-    private final String DATA_FILE_LOCATION = currentDirectory +"\\Data\\";
-    private final String COURSE_CURRICULUM_REFERENCE_LOCATION = currentDirectory + "\\Courses\\";
+    private long journalSequence;
+    private transient CourseIndex courseIndex;
+    private transient CourseIndex electiveIndex;
+    private transient GradeJournal journal;
+    private transient SemesterAggregates aggregates;
+    private transient PassedCourses passedCourses;
+    private transient volatile long recordVersion;
+    private transient volatile boolean stale;
+    private String FILE_NAME;
+    public static final double DEANS_LIST_AVERAGE = 85;
+    public static final double LATIN_HONORS_AVERAGE = 90;
+    private static final String currentDirectory = System.getProperty("user.dir");
+    static final String DATA_FILE_LOCATION = currentDirectory + File.separator + "Data" + File.separator;
+    static final String COURSE_CURRICULUM_REFERENCE_LOCATION = currentDirectory + File.separator + "Courses" + File.separator;
 
 
 
@@ -59,16 +85,92 @@ public class Curriculum implements Serializable{
      * @throws ClassNotFoundException if the class of a serialized object cannot be found.
      */
     public Curriculum(String IdNumber, String program) throws IOException, ClassNotFoundException {
+        CurriculumEvents.Load event = new CurriculumEvents.Load();
+        event.begin();
         this.IdNumber = IdNumber;
         this.program = program;
-        FILE_NAME =(this.IdNumber.toLowerCase() + this.program.toLowerCase()).replaceAll(" ", "")+".ser";
-        courses = new ArrayList<>();
+        FILE_NAME = fileNameOf(this.IdNumber, this.program);
+        courses = new CourseList();
         electives = new ArrayList<>();
-        if(fileExists(FILE_NAME)) {
+        boolean exists = fileExists(FILE_NAME);
+        if(exists) {
             initializeSerializedFile();
         }else{
             initializeNewCurrculum();
         }
+        if (event.shouldCommit()) {
+            event.fileName = FILE_NAME;
+            event.program = this.program;
+            event.newStudent = !exists;
+            event.courses = courses.size();
+            event.eventDispatchThread = CurriculumEvents.onEventDispatchThread();
+            event.commit();
+        }
+    }
+
+    /**
+     * Constructs a Curriculum object from data that has already been read, without touching any file.
+     *
+     * @param IdNumber   the ID number of the student.
+     * @param program    the program associated with the curriculum.
+     * @param courses    the courses of the curriculum.
+     * @param electives  the electives of the curriculum.
+     */
+    Curriculum(String IdNumber, String program, CourseList courses, ArrayList<Elective> electives) {
+        this.IdNumber = IdNumber;
+        this.program = program;
+        FILE_NAME = fileNameOf(IdNumber, program);
+        this.courses = courses;
+        this.electives = electives;
+    }
+
+    /**
+     * Reads the serialized form, in which the courses are an ArrayList, and puts the courses in a {@link CourseList}.
+     *
+     * @param in the stream to read from.
+     * @throws IOException            if an I/O error occurs while reading the stream.
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        IdNumber = (String) fields.get("IdNumber", null);
+        program = (String) fields.get("program", null);
+        courses = new CourseList((List<Course>) fields.get("courses", new ArrayList<Course>()));
+        electives = (ArrayList<Elective>) fields.get("electives", new ArrayList<Elective>());
+        journalSequence = fields.get("journalSequence", 0L);
+        FILE_NAME = (String) fields.get("FILE_NAME", null);
+        if (FILE_NAME == null && IdNumber != null && program != null) {
+            FILE_NAME = fileNameOf(IdNumber, program);
+        }
+    }
+
+    /**
+     * Writes the serialized form, with the courses copied into an ArrayList.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if an I/O error occurs while writing the stream.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("IdNumber", IdNumber);
+        fields.put("program", program);
+        fields.put("courses", new ArrayList<>(courses));
+        fields.put("electives", electives);
+        fields.put("journalSequence", journalSequence);
+        fields.put("FILE_NAME", FILE_NAME);
+        out.writeFields();
+    }
+
+    /**
+     * Gets the name of the record file of a student.
+     *
+     * @param IdNumber the ID number of the student.
+     * @param program  the program of the student.
+     * @return the file name inside the data folder.
+     */
+    static String fileNameOf(String IdNumber, String program) {
+        return (IdNumber.toLowerCase() + program.toLowerCase()).replaceAll(" ", "") + ".ser";
     }
 
     /**
@@ -80,21 +182,29 @@ public class Curriculum implements Serializable{
         this.IdNumber = idNumber;
     }
     /**
-     * Sets the program associated with the curriculum.
+     * Sets the program associated with the curriculum. The record file name follows the program, so later saves go
+     * to the file of the new program.
      *
      * @param program the program to set for the curriculum.
      */
     public void setProgram(String program){
         this.program = program;
+        if (IdNumber != null) {
+            FILE_NAME = fileNameOf(IdNumber, program);
+        }
+        journal = null;
     }
     /**
-     * Sets the list of courses for the curriculum.
+     * Sets the list of courses for the curriculum. The courses are copied into a new {@link CourseList}.
      *
      * @param courses the list of courses to set for the curriculum.
      */
 
-    public void setCourses(ArrayList<Course> courses) {
-        this.courses = courses;
+    public void setCourses(List<Course> courses) {
+        this.courses = new CourseList(courses);
+        courseIndex = null;
+        aggregates = null;
+        passedCourses = null;
     }
 
     /**
@@ -115,17 +225,25 @@ public class Curriculum implements Serializable{
     }
 
     /**
-     * Retrieves the list of courses included in the curriculum.
+     * Retrieves the list of courses included in the curriculum, grouped by year and semester.
+     * The list is a live view: reading it, adding to it and removing from it work as before, but
+     * {@link List#set(int, Object)} only accepts a course of the same year and semester as the course it replaces,
+     * since every semester has its own place in the list, and throws {@link IllegalArgumentException} otherwise.
+     * Callers that need to rearrange courses freely should work on a copy and pass it to
+     * {@link #setCourses(List)}.
      *
      * @return the list of courses included in the curriculum.
      */
-    public ArrayList<Course> getCourses() {
+    public List<Course> getCourses() {
         return courses;
     }
     /**
      * Initializes the curriculum from a serialized file.
      * It deserializes the curriculum object from the specified file,
      * then assigns its attributes to the current instance.
+     * Changes recorded in the grade journal after the file was written are replayed
+     * and folded into a new snapshot. Without journal mode, this is only done if a journal was left behind by an
+     * earlier run in journal mode, so a plain load takes no student lock.
      *
      * @throws IOException            if an I/O error occurs while reading the file.
      * @throws ClassNotFoundException if the class of a serialized object cannot be found.
@@ -137,30 +255,28 @@ public class Curriculum implements Serializable{
         this.program = c.program;
         this.courses = c.courses;
         this.electives = c.electives;
+        this.journalSequence = c.journalSequence;
+        this.recordVersion = c.recordVersion;
+        if ((GradeJournal.ENABLED || journal().exists()) && journal().replay(this) > 0) {
+            journal().writeSnapshot(this);
+        }
     }
     /**
      * Initializes a new curriculum for the specified program.
      * If the program file is not available, it throws an IllegalArgumentException.
-     * Otherwise, it creates a new file for the curriculum and populates it with initial data.
+     * Otherwise, the courses and electives are built from the cached catalog of the program
+     * and the new curriculum is saved once, the same way a change is saved. Until then, loading the student again
+     * builds the same curriculum, so nothing is lost if the save has not run yet.
      *
      * @throws IllegalArgumentException if the program file is not available.
      */
     private void initializeNewCurrculum() {
-        if(!checkIfProgramisAvailable(program)){
+        CourseCatalog catalog = CourseCatalog.forProgram(program);
+        if(catalog == null){
             throw new IllegalArgumentException("program is not available");
         }
-        makeNewFile();
-    }
-    /**
-     * Checks if a program file is available.
-     *
-     * @param filename The name of the program file to check for availability.
-     * @return true if the program file is available, false otherwise.
-     */
-
-    private boolean checkIfProgramisAvailable(String filename){
-        File file = new File(COURSE_CURRICULUM_REFERENCE_LOCATION + filename + ".txt");
-        return file.exists();
+        populateFromCatalog(catalog);
+        markDirty();
     }
     /**
      * Checks if a file exists.
@@ -174,96 +290,84 @@ public class Curriculum implements Serializable{
     }
 
     /**
-     * Deserializes a Curriculum object from a file.
+     * Reads a Curriculum object from a record file.
+     * Binary records are decoded with {@link CurriculumCodec}; older files written with Java serialization
+     * are deserialized.
      *
-     * @param filename The name of the file to deserialize the Curriculum object from.
-     * @return The deserialized Curriculum object.
+     * @param filename The name of the file to read the Curriculum object from.
+     * @return The Curriculum object stored in the file.
      * @throws IOException            If an I/O error occurs while reading from the file.
      * @throws ClassNotFoundException If the class of a serialized object cannot be found.
      */
     private Curriculum deserialize(String filename) throws IOException, ClassNotFoundException{
-        try (FileInputStream inputStream = new FileInputStream(DATA_FILE_LOCATION + filename);
-            ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)) {
-                return (Curriculum) objectInputStream.readObject();
+        CurriculumEvents.Deserialize event = new CurriculumEvents.Deserialize();
+        event.begin();
+        long start = System.nanoTime();
+        File file = new File(DATA_FILE_LOCATION + filename);
+        Curriculum curriculum = null;
+        try {
+            curriculum = readRecord(file);
+            return curriculum;
+        } finally {
+            Metrics.stop("curriculum.deserialize", start);
+            if (event.shouldCommit()) {
+                event.fileName = filename;
+                event.program = curriculum == null ? program : curriculum.program;
+                event.bytes = file.length();
+                event.courses = curriculum == null ? 0 : curriculum.courses.size();
+                event.eventDispatchThread = CurriculumEvents.onEventDispatchThread();
+                event.commit();
+            }
         }
-
     }
 
-
     /**
-     * Creates a new data file by reading information from a course curriculum reference file and populating it with default values.
-     * The method reads the course curriculum reference file line by line, appending "0,false" to each line to represent default grade and
-     * not currently being taken. It then writes the modified lines to the new data file.
-     * After creating the new data file, it populates the ArrayList of courses and the list of electives by calling respective methods.
-     * If any NumberFormatException or IOException occurs during the process, a RuntimeException is thrown.
+     * Reads a Curriculum object from a record file in either the binary or the serialized format.
+     *
+     * @param file The record file to read.
+     * @return The Curriculum object stored in the file.
+     * @throws IOException            If an I/O error occurs while reading from the file.
+     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
      */
-    private void makeNewFile() {
-        FileWriter writer;
-        try {
-            scan = new Scanner(new File(COURSE_CURRICULUM_REFERENCE_LOCATION + program.toLowerCase() + ".txt"));
-            writer = new FileWriter(DATA_FILE_LOCATION + FILE_NAME);
-            while (scan.hasNextLine()) {
-                writer.write(scan.nextLine()+",0"+",false"+"\n");
-            }
-            scan.close();
-            writer.close();
-            populateArrayList();
-            populateElectiveList();
-
-
-        } catch (NumberFormatException | IOException e) {
-            throw new RuntimeException(e);
-        }
+    static Curriculum readRecord(File file) throws IOException, ClassNotFoundException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        Metrics.count("bytes.read.record", data.length);
+        return readRecord(data);
     }
 
     /**
-     * Populates the ArrayList of courses by reading data from a file.
-     * Each line of the file contains information about a course, including its year, semester, course number, course name,
-     * grade, units, and whether it's currently being taken.
-     * The method reads the file line by line, parses each line to extract the information, and creates Course objects accordingly,
-     * which are then added to the ArrayList of courses.
-     * After populating the ArrayList, it saves the data to a file and closes the scanner.
-     * If any NumberFormatException or IOException occurs during the process, a RuntimeException is thrown.
+     * Reads a Curriculum object from the contents of a record file.
+     *
+     * @param data The contents of the record file.
+     * @return The Curriculum object stored in the data.
+     * @throws IOException            If the data is not a valid record.
+     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
      */
-    private void populateArrayList() {
-        try {
-
-            scan = new Scanner(new File(DATA_FILE_LOCATION + FILE_NAME));
-            while (scan.hasNextLine()) {
-                String line = scan.nextLine();
-                String[] temp = line.split(",");
-
-                courses.add(new Course(Byte.parseByte(temp[0]), Byte.parseByte(temp[1]), temp[2], temp[3],
-                        Float.parseFloat(temp[4]), Float.parseFloat(temp[5]), Boolean.parseBoolean(temp[6])));
-            }
-            saveFile();
-            scan.close();
-
-        } catch (NumberFormatException | IOException e) {
-            throw new RuntimeException(e);
+    static Curriculum readRecord(byte[] data) throws IOException, ClassNotFoundException {
+        if (CurriculumCodec.isEncoded(data)) {
+            return CurriculumCodec.decode(data);
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (Curriculum) objectInputStream.readObject();
         }
     }
+
+
     /**
-     * Populates the list of elective courses by reading data from a file.
-     * Each line of the file contains information about an elective course, including its code, type, course number, course name,
-     * units, term, whether it's mandatory, and whether it can be taken or not.
-     * The method reads the file line by line, parses each line to extract the information, and creates Elective objects accordingly,
-     * which are then added to the list of electives.
-     * If the file is not found, a RuntimeException is thrown.
-     */
-        private void populateElectiveList(){
-            try {
-                scan = new Scanner(new File(COURSE_CURRICULUM_REFERENCE_LOCATION + program +"electives.txt"));
-                while(scan.hasNextLine()){
-                    String line = scan.nextLine();
-                    String[] temp = line.split(",");
-                    electives.add(new Elective(temp[0], temp[1],
-                            Byte.parseByte(temp[2]), Byte.parseByte(temp[3]), Boolean.parseBoolean(temp[4]), Boolean.parseBoolean(temp[5])));
-                }
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException(e);
-            }
+     * Populates the lists of courses and electives from the catalog of the program.
+     * Every course starts without a grade and not being taken, and every elective as listed in the elective file.
+     * The course numbers and names are the catalog's shared strings.
+     *
+     * @param catalog The catalog of the program.
+     */
+    private void populateFromCatalog(CourseCatalog catalog) {
+        for (int i = 0; i < catalog.courseCount(); i++) {
+            courses.add(catalog.newCourse(i));
+        }
+        for (int i = 0; i < catalog.electiveCount(); i++) {
+            electives.add(catalog.newElective(i));
         }
+    }
 
 
 
@@ -507,15 +611,13 @@ public class Curriculum implements Serializable{
      * @return An array containing the available years in ascending order.
      */
     private Integer[] getAvailableYearsArray() {
-        Set<Integer> yearsSet = new HashSet<>();
-        for (Course course : courses) {
-            yearsSet.add((int) course.getYear());
+        List<Integer> years = new ArrayList<>();
+        for (byte year : courses.years()) {
+            if (year != 0) {
+                years.add((int) year);
+            }
         }
-        // Convert set to sorted array
-        yearsSet.remove(0);
-        Integer[] yearsArray = yearsSet.toArray(new Integer[0]);
-        Arrays.sort(yearsArray);
-        return yearsArray;
+        return years.toArray(new Integer[0]);
     }
     /**
      * Displays courses for a selected year on the provided JPanel.
@@ -533,13 +635,11 @@ public class Curriculum implements Serializable{
         gbc.anchor = GridBagConstraints.WEST;
         gbc.insets = new Insets(5, 5, 5, 5);
 
-        for (Course course : courses) {
-            if (course.getYear() == selectedYear) {
-                JLabel courseCodeLabel = new JLabel(course.getCourseNo());
-                courseCodeLabel.setFont(calibriFont);
-                coursePanel.add(courseCodeLabel, gbc);
-                gbc.gridy++;
-            }
+        for (Course course : courses.coursesOfYear((byte) selectedYear)) {
+            JLabel courseCodeLabel = new JLabel(course.getCourseNo());
+            courseCodeLabel.setFont(calibriFont);
+            coursePanel.add(courseCodeLabel, gbc);
+            gbc.gridy++;
         }
 
         coursePanel.revalidate();
@@ -558,47 +658,24 @@ public class Curriculum implements Serializable{
      * @param newGrade The new grade for the course.
      */
     public void editGradeInFile(String courseNo, float newGrade) {
-        int i = search(courseNo);
-        if (i != -1) {
-            Course course = courses.get(i);
-            if (newGrade < 0 || newGrade > 99) {
-                JOptionPane.showMessageDialog(null, "Invalid grade input. Grade must be between 0 and 99.");
-                return;
+        CurriculumService service = new CurriculumService(this);
+        CurriculumService.Result result = service.editGrade(courseNo, newGrade, false);
+        if (result == CurriculumService.Result.OVERWRITE_REQUIRED) {
+            int choice = JOptionPane.showConfirmDialog(null, "A grade already exists for this course. Do you want to overwrite it?", "Grade Overwrite Confirmation", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.NO_OPTION) {
+                return; // Do nothing if the user chooses not to overwrite the grade
             }
-            if (course.getGrade() != 0) {
-                int choice = JOptionPane.showConfirmDialog(null, "A grade already exists for this course. Do you want to overwrite it?", "Grade Overwrite Confirmation", JOptionPane.YES_NO_OPTION);
-                if (choice == JOptionPane.NO_OPTION) {
-                    return; // Do nothing if the user chooses not to overwrite the grade
-                } else {
-                    course.setGrade(newGrade);
-                    course.setTaking(false);
-                    courses.set(i, course);
-                    saveFile();
-                }
-            }
-            // Check if prerequisites are met
-            if (!checkPrerequisites(courseNo)) {
-                JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
-                return;
-            } else {
-                // Ensure the grade is within valid range
-                if (newGrade < 0 || newGrade > 99) {
-                    JOptionPane.showMessageDialog(null, "Invalid grade input. Grade must be between 0 and 99.");
-                    return;
-                }
-                // Update the grade and save the file
-                course.setGrade(newGrade);
-                course.setTaking(false);
-                courses.set(i, course);
-                saveFile();
-                JOptionPane.showMessageDialog(null, "Grade updated successfully for " + courseNo);
-            }
-
-
+            result = service.editGrade(courseNo, newGrade, true);
+        }
+        if (result == CurriculumService.Result.UPDATED) {
+            JOptionPane.showMessageDialog(null, "Grade updated successfully for " + courseNo);
+        } else if (result == CurriculumService.Result.INVALID_GRADE) {
+            JOptionPane.showMessageDialog(null, "Invalid grade input. Grade must be between 0 and 99.");
+        } else if (result == CurriculumService.Result.PREREQUISITE_NOT_MET) {
+            JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
         } else {
             JOptionPane.showMessageDialog(null, "Course not found.");
         }
-
     }
     /**
      * Displays a GUI for editing course information.
@@ -729,7 +806,7 @@ public class Curriculum implements Serializable{
                         for (Elective elective : electives) {
                             if (elective.getCourseNo().equals(courseNumber.toUpperCase())) {
                                 electives.get(index).setSelected(false);
-                                electives.get(index).setcanBeTaken(true);
+                                electives.get(index).setcanBeTaken(checkPrerequisites(courseNumber.toUpperCase()));
                             }
                         }
                     }
@@ -741,8 +818,8 @@ public class Curriculum implements Serializable{
                         if (choice == JOptionPane.YES_OPTION) {
                             // Remove the course from the courses collection
 
-                            courses.remove(i);
-                            saveFile();
+                            removeCourseAt(i);
+                            markDirty();
                             JOptionPane.showMessageDialog(null, "Course removed.", "Course Removal Confirmation", JOptionPane.OK_OPTION);
                             frame.dispose();
                             editCourse();
@@ -822,34 +899,15 @@ public class Curriculum implements Serializable{
      * @param newGrade The new grade for the course.
      */
     public void editCourseGradeInFile(String courseNo, float newGrade) {
-        int i = search(courseNo);
-        if (i != -1) {
-            Course course = courses.get(i);
-            if (newGrade < 65 || newGrade > 99) {
-                JOptionPane.showMessageDialog(null, "Invalid grade input. Grade must be between 65 and 99.");
-                return;
-            }
-            if (course.getGrade() == 0) {
-                JOptionPane.showMessageDialog(null, "Course does not have grade, cannot edit.", "Cannot Edit", JOptionPane.OK_OPTION);
-                return;
-            } else {
-                course.setGrade(newGrade);
-                course.setTaking(false);
-                courses.set(i, course);
-                saveFile();
-            }
-            // Check if prerequisites are met
-            if (!checkPrerequisites(courseNo)) {
-                JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
-                return;
-            }
-            // Ensure the grade is within valid range
-            if (newGrade < 65 || newGrade > 99) {
-                JOptionPane.showMessageDialog(null, "Invalid grade input. Grade must be between 65 and 99.");
-                return;
-            }
-            // Update the grade and save the file
+        CurriculumService.Result result = new CurriculumService(this).editCourseGrade(courseNo, newGrade);
+        if (result == CurriculumService.Result.UPDATED) {
             JOptionPane.showMessageDialog(null, "Grade updated successfully for " + courseNo);
+        } else if (result == CurriculumService.Result.INVALID_GRADE) {
+            JOptionPane.showMessageDialog(null, "Invalid grade input. Grade must be between 65 and 99.");
+        } else if (result == CurriculumService.Result.NO_GRADE) {
+            JOptionPane.showMessageDialog(null, "Course does not have grade, cannot edit.", "Cannot Edit", JOptionPane.OK_OPTION);
+        } else if (result == CurriculumService.Result.PREREQUISITE_NOT_MET) {
+            JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
         } else {
             JOptionPane.showMessageDialog(null, "Course not found.");
         }
@@ -862,22 +920,11 @@ public class Curriculum implements Serializable{
      */
 
     public void editCourseUnitInFile(String courseNo, float newUnit) {
-        int i = search(courseNo);
-        if (i != -1) {
-            Course course = courses.get(i);
-            // Check if prerequisites are met
-            if (!checkPrerequisites(courseNo)) {
-                JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
-                return;
-            }
-            course.setUnit((byte) newUnit);
-            course.setTaking(false);
-            courses.set(i, course);
-            saveFile();
-            // Update the grade and save the file
-
-
+        CurriculumService.Result result = new CurriculumService(this).editCourseUnit(courseNo, newUnit);
+        if (result == CurriculumService.Result.UPDATED) {
             JOptionPane.showMessageDialog(null, "Unit updated successfully for " + courseNo);
+        } else if (result == CurriculumService.Result.PREREQUISITE_NOT_MET) {
+            JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
         } else {
             JOptionPane.showMessageDialog(null, "Course not found.");
         }
@@ -890,22 +937,11 @@ public class Curriculum implements Serializable{
      * @param newName the new name to set for the course
      */
     public void editCourseNameInFile(String courseNo, String newName) {
-        int i = search(courseNo);
-        if (i != -1) {
-            Course course = courses.get(i);
-            // Check if prerequisites are met
-            if (!checkPrerequisites(courseNo)) {
-                JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
-                return;
-            }
-            course.setCourseName(newName);
-            course.setTaking(false);
-            courses.set(i, course);
-            saveFile();
-            // Update the grade and save the file
-
-
+        CurriculumService.Result result = new CurriculumService(this).editCourseName(courseNo, newName);
+        if (result == CurriculumService.Result.UPDATED) {
             JOptionPane.showMessageDialog(null, "Name updated successfully for " + courseNo);
+        } else if (result == CurriculumService.Result.PREREQUISITE_NOT_MET) {
+            JOptionPane.showMessageDialog(null, "Prerequisites not met for " + courseNo);
         } else {
             JOptionPane.showMessageDialog(null, "Course not found.");
         }
@@ -967,10 +1003,11 @@ public class Curriculum implements Serializable{
                     float unit = Float.parseFloat(unitField.getText());
                     float grade = Float.parseFloat(gradeField.getText());
 
-                    if (year <= 0 || year > 4 || semester <= 0 || semester > 3 || unit <= 0 || grade < 0 || grade > 99) {
+                    CurriculumService.Result result = new CurriculumService(Curriculum.this)
+                            .addCourseTaken(year, semester, courseNo, courseName, unit, grade);
+                    if (result == CurriculumService.Result.INVALID_INPUT) {
                         JOptionPane.showMessageDialog(null, "Year, semester, unit, and grade must be greater than zero.", "Input Error", JOptionPane.ERROR_MESSAGE);
                     } else {
-                        addCourseTaken(year, semester, courseNo, courseName, unit, grade);
                         JOptionPane.showMessageDialog(null, "Course added successfully.");
                     }
 
@@ -1034,18 +1071,15 @@ public class Curriculum implements Serializable{
      */
     public void addCourseTaken(byte year, byte semester, String courseNo, String courseName, float unit, float grade) {
         int index = search(courseNo);
-        if (index != -1) {
+        if (index != -1 && courses.get(index).isTaking()) {
             Course existingCourse = courses.get(index);
-            if (existingCourse.isTaking()) {
-                existingCourse.setGrade(grade);
-                existingCourse.setTaking(false);
-            } else {
-                insertCourseAtYearAndSemester(year, semester, new Course(year, semester, courseNo, courseName, unit, grade, false));
-            }
+            existingCourse.setGrade(grade);
+            existingCourse.setTaking(false);
+            recordGrade(index);
         } else {
-            insertCourseAtYearAndSemester(year, semester, new Course(year, semester, courseNo, courseName, unit, grade, false));
+            Course newCourse = new Course(year, semester, courseNo, courseName, unit, grade, false);
+            recordAddedCourse(insertCourseAtYearAndSemester(year, semester, newCourse), newCourse);
         }
-        saveFile();
     }
 
     /**
@@ -1054,22 +1088,36 @@ public class Curriculum implements Serializable{
      * @param year      The year in which the course should be inserted.
      * @param semester  The semester in which the course should be inserted.
      * @param newCourse The course to be inserted.
+     * @return The position the course was inserted at.
      */
-    private void insertCourseAtYearAndSemester(byte year, byte semester, Course newCourse) {
-        int insertIndex = -1;
-        for (int i = 0; i < courses.size(); i++) {
-            Course currentCourse = courses.get(i);
-            if (currentCourse.getYear() == year && currentCourse.getSemester() == semester) {
-                insertIndex = i;
-                break;
-            }
+    int insertCourseAtYearAndSemester(byte year, byte semester, Course newCourse) {
+        int insertIndex = courses.addFirst(newCourse);
+        courseIndex = null;
+        if (aggregates != null) {
+            aggregates.add(newCourse);
+        }
+        if (passedCourses != null) {
+            passedCourses.add(newCourse);
         }
+        return insertIndex;
+    }
 
-        if (insertIndex != -1) {
-            courses.add(insertIndex, newCourse);
-        } else {
-            courses.add(newCourse);
+    /**
+     * Removes the course at a position from the curriculum.
+     *
+     * @param position The position of the course to remove.
+     * @return The course that was removed.
+     */
+    Course removeCourseAt(int position) {
+        Course removed = courses.remove(position);
+        courseIndex = null;
+        if (aggregates != null) {
+            aggregates.remove(removed);
+        }
+        if (passedCourses != null) {
+            passedCourses.remove(removed);
         }
+        return removed;
     }
     /**
      * Displays the curriculum along with the GPA for each semester.
@@ -1078,153 +1126,315 @@ public class Curriculum implements Serializable{
      * If the GPA is 90 or above, it notifies the user they are eligible for Latin Honors.
      */
     public void displayCurriculumWithGPA () { // option 6
-        StringBuilder semesterInfo2 = new StringBuilder();
+        showCurriculumWithGPA(curriculumWithGPAPages());
+    }
+
+    /**
+     * Displays pages of the GPA report built by {@link #curriculumWithGPAPages()}, one dialog per page.
+     * Every page but the last has a Next button; closing a dialog skips the remaining pages.
+     *
+     * @param pages The pages to show.
+     */
+    public void showCurriculumWithGPA(List<String> pages) {
         JTextArea textArea2 = new JTextArea(30, 180);
         textArea2.setEditable(false);
         textArea2.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane scrollPane2 = new JScrollPane(textArea2);
         scrollPane2.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
-        byte sem2 = 0;
         Object[] options;
 
-        semesterInfo2.append("Name:").append(IdNumber.toUpperCase());
-        semesterInfo2.append(" Program:").append(program.toUpperCase());
+        for (int i = 0; i < pages.size(); i++) {
+            textArea2.setText(pages.get(i));
 
-        for (Course course : courses) {
-            if (sem2 != course.getSemester()) {
-                // Update semester information
-                textArea2.setText(semesterInfo2.toString());
+            if (i + 1 < pages.size()) {
+                options = new Object[]{"Next"};
+            } else {
+                options = new Object[]{"Close"};
+            }
 
-                if (hasNextSemester(course)) {
-                    options = new Object[]{"Next"};
-                } else {
-                    options = new Object[]{"Close"};
-                }
+            int choice = JOptionPane.showOptionDialog(null, scrollPane2, "BSIT Subjects", JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
 
-                int choice = JOptionPane.showOptionDialog(null, scrollPane2, "BSIT Subjects", JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+            if (choice != 0) {
+                break;
+            }
+        }
+    }
 
-                if (choice == 0) {
-                    sem2 = course.getSemester();
-                } else {
+    /**
+     * Builds the pages of the GPA report without showing them. The first page holds the header and every next page
+     * adds one semester, so the last page is the whole report.
+     * The text does not depend on Swing, so the pages can be built off the event dispatch thread.
+     *
+     * @return The pages of the GPA report.
+     * @throws java.util.concurrent.CancellationException if the building thread was interrupted.
+     */
+    public List<String> curriculumWithGPAPages() {
+        List<String> pages = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        appendReportHeader(report);
+        byte semester = 0;
+        for (Course course : courses) {
+            if (semester != course.getSemester()) {
+                pages.add(report.toString());
+                if (!hasNextSemester(course)) {
                     break;
                 }
-                // Reset semester information for the new semester
+                semester = course.getSemester();
+                appendSemesterWithGPA(report, course);
+            }
+        }
+        return pages;
+    }
 
-                semesterInfo2.append("Name:").append(IdNumber.toUpperCase());
-                semesterInfo2.append(" Program:").append(program.toUpperCase());
-                semesterInfo2.append("\n");
-                semesterInfo2.append(String.format("%-5s%-14d%s%-14s%n", " Year: ", course.getYear(), "Semester: ", course.getTerm()));
-                semesterInfo2.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n","","Course Number", "Course", "Units", "Grade","Remarks",""));
-                semesterInfo2.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n", "","---------------","--------------------------------" +
-                        "-------------------------------------------","-------", "-------","-------------", ""));
+    /**
+     * Builds the text of the GPA report without showing it: the header and every semester with its courses and GPA,
+     * as the last page of {@link #displayCurriculumWithGPA()} would read once every semester has been paged through.
+     *
+     * @return The text of the GPA report.
+     */
+    public String curriculumWithGPAReport() {
+        StringBuilder report = new StringBuilder();
+        appendReportHeader(report);
+        byte semester = 0;
+        for (Course course : courses) {
+            if (semester != course.getSemester()) {
+                semester = course.getSemester();
+                appendSemesterWithGPA(report, course);
+            }
+        }
+        return report.toString();
+    }
 
-                // Filter courses for the current semester
-                byte finalSem = sem2;
-                List<Course> semesterCourses = courses.stream()
-                        .filter(n -> n.getYear() == course.getYear())
-                        .filter(n -> n.getSemester() == finalSem)
-                        .collect(Collectors.toList());
-
-                // Calculate GPA for this semester
-                double sum = semesterCourses.stream()
-                        .mapToDouble(AbstractCourse::getGrade)
-                        .sum();
-                double average = sum / semesterCourses.size();
-
-                // Append course details
-                semesterCourses.forEach(course2 -> {
-                    if(course2.getGrade() == 0){
-                        semesterInfo2.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n","", course2.getCourseNo(), course2.getCourseName(), course2.getUnit(),"", course2.getRemarks(),""));
-                    }else if(course2.getGrade() < 65 && course2.getGrade() > 0){
-                        semesterInfo2.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n","", course2.getCourseNo(), course2.getCourseName(), course2.getUnit(),"65.0", course2.getRemarks(),""));
-                    }else {
-                        semesterInfo2.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n", "", course2.getCourseNo(), course2.getCourseName(), course2.getUnit(), course2.getGrade(), course2.getRemarks(), ""));
-                    }
-                });
-                // Append GPA for this semester
-                semesterInfo2.append("The GPA for this semester is: ").append(average).append("\n").append("\n");
-                if(average >= 85)
-                    semesterInfo2.append("\nYou are in the Dean's List \n");
-                if(average>=90)
-                    semesterInfo2.append("\nYou are eligible for Latin Honors\n");
+    /**
+     * Appends the name and program line the reports start with.
+     *
+     * @param report The report being built.
+     */
+    private void appendReportHeader(StringBuilder report) {
+        report.append("Name:").append(IdNumber.toUpperCase());
+        report.append(" Program:").append(program.toUpperCase());
+    }
+
+    /**
+     * Appends one semester of the GPA report: its courses, its GPA, and the Dean's List and Latin Honors notes.
+     *
+     * @param report The report being built.
+     * @param first  The first course of the semester.
+     */
+    private void appendSemesterWithGPA(StringBuilder report, Course first) {
+        appendReportHeader(report);
+        report.append("\n");
+        report.append(String.format("%-5s%-14d%s%-14s%n", " Year: ", first.getYear(), "Semester: ", first.getTerm()));
+        report.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n","","Course Number", "Course", "Units", "Grade","Remarks",""));
+        report.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n", "","---------------","--------------------------------" +
+                "-------------------------------------------","-------", "-------","-------------", ""));
+
+        // Courses of the current semester
+        List<Course> semesterCourses = courses.bucket(first.getYear(), first.getSemester());
+
+        // GPA for this semester, from the running totals
+        double average = getSemesterAverage(first.getYear(), first.getSemester());
+
+        // Append course details
+        for (Course course2 : semesterCourses) {
+            BackgroundTasks.checkCancelled();
+            if(course2.getGrade() == 0){
+                report.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n","", course2.getCourseNo(), course2.getCourseName(), course2.getUnit(),"", course2.getRemarks(),""));
+            }else if(course2.getGrade() < 65 && course2.getGrade() > 0){
+                report.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n","", course2.getCourseNo(), course2.getCourseName(), course2.getUnit(),"65.0", course2.getRemarks(),""));
+            }else {
+                report.append(String.format("%-5s%-20s%-85s%-15s%-15s%-20s%5s%n", "", course2.getCourseNo(), course2.getCourseName(), course2.getUnit(), course2.getGrade(), course2.getRemarks(), ""));
             }
         }
+        // Append GPA for this semester
+        report.append("The GPA for this semester is: ").append(average).append("\n").append("\n");
+        if(average >= DEANS_LIST_AVERAGE)
+            report.append("\nYou are in the Dean's List \n");
+        if(average >= LATIN_HONORS_AVERAGE)
+            report.append("\nYou are eligible for Latin Honors\n");
+    }
+    /**
+     * Computes the GPA of a semester the way the GPA report shows it: the average grade of every course of the
+     * semester, with courses that have no grade yet counted as zero.
+     *
+     * @param year     The year of the semester.
+     * @param semester The semester.
+     * @return The average grade of the semester, or NaN if the semester has no courses.
+     */
+    public double getSemesterAverage(byte year, byte semester) {
+        return getSemesterAggregates().getAverage(year, semester);
+    }
+
+    /**
+     * Gets the running grade sums, unit sums and course counts of every semester.
+     * The aggregates are built from the course list the first time they are needed and kept up to date afterwards.
+     *
+     * @return The semester aggregates of the curriculum.
+     */
+    public SemesterAggregates getSemesterAggregates() {
+        if (aggregates == null) {
+            aggregates = new SemesterAggregates(courses);
+            courses.setObserver(courseObserver());
+        }
+        return aggregates;
+    }
+
+    /**
+     * Builds the observer of the course list, which passes changes of the courses on to the semester aggregates and
+     * the passed courses, whichever have been built.
+     */
+    private CourseChangeListener courseObserver() {
+        return new CourseChangeListener() {
+            @Override
+            public void courseChanged(AbstractCourse course, byte oldYear, byte oldSemester, float oldUnit,
+                                      float oldGrade) {
+                if (aggregates != null) {
+                    aggregates.courseChanged(course, oldYear, oldSemester, oldUnit, oldGrade);
+                }
+                if (passedCourses != null) {
+                    passedCourses.courseChanged(course, oldYear, oldSemester, oldUnit, oldGrade);
+                }
+            }
+
+            @Override
+            public void courseNumberChanged(AbstractCourse course, String oldCourseNo) {
+                if (passedCourses != null) {
+                    passedCourses.courseNumberChanged(course, oldCourseNo);
+                }
+            }
+        };
     }
     /**
      * Displays the list of courses sorted alphabetically by course name.
      * The information is displayed in a JTextArea within a scrollable JOptionPane.
      */
     public void displayGradesAlpabetically() {
+        showGradesAlphabetically(gradesAlphabeticalReport());
+    }
 
-        Collections.sort(courses ,(c1, c2) -> c1.getCourseName().compareTo(c2.getCourseName()));
+    /**
+     * Displays a report built by {@link #gradesAlphabeticalReport()}.
+     *
+     * @param report The text to show.
+     */
+    public void showGradesAlphabetically(String report) {
+        showReport(report, 150, "Courses Sorted Alphabetically ");
+    }
 
+    /**
+     * Builds the text of the courses sorted alphabetically by course name without showing it.
+     *
+     * @return The text shown by {@link #displayGradesAlpabetically()}.
+     * @throws java.util.concurrent.CancellationException if the building thread was interrupted.
+     */
+    public String gradesAlphabeticalReport() {
+        List<Course> sortedCourses = new ArrayList<>(courses);
+        sortedCourses.sort((c1, c2) -> c1.getCourseName().compareTo(c2.getCourseName()));
 
         StringBuilder courseData = new StringBuilder();
-
-        JTextArea textArea = new JTextArea(30, 150);
-        textArea.setEditable(false);
-        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-
-
-        courseData.append("Name:").append(IdNumber.toUpperCase());
-        courseData.append(" Program:").append(program.toUpperCase());
+        appendReportHeader(courseData);
         courseData.append("\n");
         courseData.append(String.format("%-20s%-85s%-15s%-20s%5s%n", "Course Number", "Course",  "Grade", "Remarks", ""));
         courseData.append(String.format("%-20s%-85s%-15s%-20s%5s%n", "---------------", "---------------------------------------------------", "-------", "-------------", ""));
 
 
-        for (Course course : courses) {
+        for (Course course : sortedCourses) {
+            BackgroundTasks.checkCancelled();
             if(course.getYear() != 0) {
                 courseData.append(String.format("%-20s%-85s%-15s%-20s%5s%n", course.getCourseNo(), course.getCourseName(), course.getGrade(), course.getRemarks(), ""));
             }
         }
-        textArea.setText(courseData.toString());
-        textArea.setCaretPosition(0);
-
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
-
-
-        JOptionPane.showMessageDialog(null, scrollPane, "Courses Sorted Alphabetically ", JOptionPane.PLAIN_MESSAGE);
+        return courseData.toString();
     }
     /**
      * Displays the grades of courses in descending order.
      * The information is displayed in a JTextArea within a scrollable JOptionPane.
      */
     public void displayGradesDescending() {
-        // Sort the courses in descending order of grades
-        Collections.sort(courses, (c1, c2) -> Float.compare(c2.getGrade(), c1.getGrade()));
-
-
-        StringBuilder gradesInfo = new StringBuilder();
-
-        JTextArea textArea = new JTextArea(30, 150);
-        textArea.setEditable(false);
-        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        showGradesDescending(gradesDescendingReport());
+    }
 
+    /**
+     * Displays a report built by {@link #gradesDescendingReport()}.
+     *
+     * @param report The text to show.
+     */
+    public void showGradesDescending(String report) {
+        showReport(report, 150, "Grades from Highest to Lowest");
+    }
 
+    /**
+     * Builds the text of the grades sorted from highest to lowest without showing it.
+     *
+     * @return The text shown by {@link #displayGradesDescending()}.
+     * @throws java.util.concurrent.CancellationException if the building thread was interrupted.
+     */
+    public String gradesDescendingReport() {
+        // Sort the courses in descending order of grades
+        List<Course> sortedCourses = new ArrayList<>(courses);
+        sortedCourses.sort((c1, c2) -> Float.compare(c2.getGrade(), c1.getGrade()));
 
-        gradesInfo.append("Name:").append(IdNumber.toUpperCase());
-        gradesInfo.append(" Program:").append(program.toUpperCase());
+        StringBuilder gradesInfo = new StringBuilder();
+        appendReportHeader(gradesInfo);
         gradesInfo.append("\n");
         gradesInfo.append(String.format("%-20s%-85s%-15s%-20s%5s%n", "Course Number", "Course",  "Grade", "Remarks", ""));
         gradesInfo.append(String.format("%-20s%-85s%-15s%-20s%5s%n", "---------------", "---------------------------------------------------", "-------", "-------------", ""));
 
         // Append each course's information to the StringBuilder
-        for (Course course : courses) {
+        for (Course course : sortedCourses) {
+            BackgroundTasks.checkCancelled();
             if(course.getYear() != 0) {
                 gradesInfo.append(String.format("%-20s%-85s%-15s%-20s%5s%n", course.getCourseNo(), course.getCourseName(), course.getGrade(), course.getRemarks(), ""));
             }
         }
-        textArea.setText(gradesInfo.toString());
+        return gradesInfo.toString();
+    }
+    /**
+     * Displays a term-by-term plan of the courses and elective slots the student still has to take,
+     * made by {@link DegreePlanner} with the default unit caps.
+     * The information is displayed in a JTextArea within a scrollable JOptionPane.
+     */
+    public void displayDegreePlan() {
+        showDegreePlan(degreePlanReport());
+    }
+
+    /**
+     * Displays a plan built by {@link #degreePlanReport()}.
+     *
+     * @param report The text to show.
+     */
+    public void showDegreePlan(String report) {
+        showReport(report, 120, "Plan of Remaining Courses");
+    }
+
+    /**
+     * Builds the text of the plan of the remaining courses without showing it.
+     *
+     * @return The text shown by {@link #displayDegreePlan()}.
+     */
+    public String degreePlanReport() {
+        DegreePlanner.Plan plan = new DegreePlanner(DegreePlanner.DEFAULT_MAX_UNITS, DegreePlanner.DEFAULT_MAX_SUMMER_UNITS).plan(this);
+        return "ID Number:" + IdNumber.toUpperCase() + " Program:" + program.toUpperCase() + "\n" + plan;
+    }
+
+    /**
+     * Displays the text of a report in a JTextArea within a scrollable JOptionPane, scrolled to the top.
+     *
+     * @param report  The text to show.
+     * @param columns The width of the text area in columns.
+     * @param title   The title of the dialog.
+     */
+    private void showReport(String report, int columns, String title) {
+        JTextArea textArea = new JTextArea(30, columns);
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        textArea.setText(report);
         textArea.setCaretPosition(0);
-        // Create a scroll pane for the JTextArea
+
         JScrollPane scrollPane = new JScrollPane(textArea);
         scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
 
-
-        // Display the information in a JOptionPane
-        JOptionPane.showMessageDialog(null, scrollPane, "Grades from Highest to Lowest", JOptionPane.PLAIN_MESSAGE);
+        JOptionPane.showMessageDialog(null, scrollPane, title, JOptionPane.PLAIN_MESSAGE);
     }
 
     /**
@@ -1282,51 +1492,12 @@ public class Curriculum implements Serializable{
             Byte year = (Byte) yearComboBox.getSelectedItem();
             Byte semester = (Byte) semesterComboBox.getSelectedItem();
 
-
-            Elective selectedElective = null;
-            for (Elective elective : electives) {
-                if (elective.getCourseNo().equals(courseNumber)) {
-                    if(!checkPrerequisites(elective.getCourseNo())) {
-                        elective.setcanBeTaken(false);
-                    }
-                    selectedElective = elective;
-                    break;
-                }
-            }
-
-            if (year == 3) {
-
-                if (countElectivesInYear((byte) 3, courseNumber) >= 2) {
-                    JOptionPane.showMessageDialog(null, "You can only take 2 electives in Year 3.", "Limit Exceeded", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-            } else if (year == 4) {
-
-                if (countElectivesInYear((byte) 4,courseNumber) >= 3) {
-                    JOptionPane.showMessageDialog(null, "You can only take 3 electives in Year 4.", "Limit Exceeded", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-            }
-
-
-
-            if (selectedElective != null && selectedElective.getCanBeTaken() && !selectedElective.getSelected()) {
-
-                selectedElective.setSelected(true);
-
-                insertCourseAtYearAndSemester(year, semester, new Course(year, semester, selectedElective.getCourseNo(), selectedElective.getCourseName(),
-                        selectedElective.getUnit(), 0, false));
-
-                if(selectedElective.getUnit2() != 0){
-                    insertCourseAtYearAndSemester(year, semester, new Course(year, semester, selectedElective.getCourseNo() + "L", selectedElective.getCourseName() + "(LAB)",
-                            selectedElective.getUnit(), 0, false));
-                    saveFile();
-                }
-                saveFile();
+            CurriculumService.Result result = new CurriculumService(this).takeElective(courseNumber, year, semester);
+            if (result == CurriculumService.Result.ELECTIVE_LIMIT_REACHED) {
+                JOptionPane.showMessageDialog(null, "You can only take " + CurriculumService.maxElectivesInYear(year) + " electives in Year " + year + ".", "Limit Exceeded", JOptionPane.WARNING_MESSAGE);
+            } else if (result == CurriculumService.Result.UPDATED) {
                 updateElectiveInfo(textArea);
-
-
-                JOptionPane.showMessageDialog(null, "Elective " + selectedElective.getCourseName() + " has been successfully added to your courses.");
+                JOptionPane.showMessageDialog(null, "Elective " + electives.get(searchElectives(courseNumber)).getCourseName() + " has been successfully added to your courses.");
             } else {
                 JOptionPane.showMessageDialog(null, "Invalid elective course number/Prerequisite not met", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -1334,6 +1505,26 @@ public class Curriculum implements Serializable{
 
         JOptionPane.showMessageDialog(null, panel, "Elective Courses", JOptionPane.PLAIN_MESSAGE);
     }
+    /**
+     * Marks an elective as selected and adds its course, and its laboratory course if it has one,
+     * to the given year and semester.
+     *
+     * @param elective the elective being taken
+     * @param year     the year the elective is taken in
+     * @param semester the semester the elective is taken in
+     */
+    void applyElective(Elective elective, byte year, byte semester) {
+        elective.setYear(year);
+        elective.setSelected(true);
+
+        insertCourseAtYearAndSemester(year, semester, new Course(year, semester, elective.getCourseNo(), elective.getCourseName(),
+                elective.getUnit(), 0, false));
+
+        if(elective.getUnit2() != 0){
+            insertCourseAtYearAndSemester(year, semester, new Course(year, semester, elective.getCourseNo() + "L", elective.getCourseName() + "(LAB)",
+                    elective.getUnit(), 0, false));
+        }
+    }
     /**
      * Updates the content of the JTextArea with the latest elective information.
      *
@@ -1352,10 +1543,9 @@ public class Curriculum implements Serializable{
         electiveInfo.append(String.format("%-20s%-80s%-10s%-40s%-40s%n", "Course Number", "Course", "Units", "Taken", "Selected"));
         electiveInfo.append(String.format("%-20s%-80s%-10s%-40s%-30s%n", "---------------", "---------------------------------------------------", "-------", "-------", "-------"));
 
+        // The flags follow every grade change once the passed courses are built
+        getPassedCourses();
         for (Elective elective : electives) {
-            if(!checkPrerequisites(elective.getCourseNo())){
-                elective.setcanBeTaken(false);
-            }
             if (elective.getUnit2() != 0) {
                 electiveInfo.append(String.format("%-20s%-80s%-10s%-40s%-40s%n", elective.getCourseNo(), elective.getCourseName() , elective.getUnit() + "/" +elective.getUnit2(), elective.isCanBeTaken(), elective.isSelected()));
             } else {
@@ -1368,67 +1558,51 @@ public class Curriculum implements Serializable{
     }
 
     /**
-     * Counts the number of electives taken in a specific year for a given course number.
-     *
-     * @param year     the year for which to count the electives
-     * @param courseNo the course number for which to count the electives
-     * @return the number of electives taken in the specified year for the given course number
+     * Prompts the user to confirm if they want to shift programs. If confirmed, the program shifts the student's
+     * program from BSIT to BSCS or vice versa. The passed courses are moved to the curriculum of the new program
+     * through its equivalence table (see {@link CreditTransfer}), and the courses that do not transfer are listed in
+     * the confirmation. The data file is renamed for the new program and the changes are saved.
+     * The shift is previewed and applied in the background (see {@link BackgroundTasks}), so this method returns
+     * before the confirmation is shown.
      */
-    private int countElectivesInYear(byte year, String courseNo ) {
-        int count = 0;
-        for (Elective elective : electives) {
-            if(elective.getCourseNo().equals(courseNo)){
-                elective.setYear(year);
-            }
-            if (elective.getSelected() && elective.getYear() == year) {
-                count++;
-            }
-        }
-
-        return count;
+    public void shiftPrograms() {
+        CurriculumService service = new CurriculumService(this);
+        String newProgram = program.equalsIgnoreCase("BSIT") ? "BSCS" : "BSIT";
+        BackgroundTasks.run(null, "Comparing the curriculum of " + newProgram,
+                () -> service.previewShift(newProgram), outcome -> confirmShift(service, newProgram, outcome));
     }
+
     /**
-     * Prompts the user to confirm if they want to shift programs. If confirmed, the program shifts the student's
-     * program from BSIT to BSCS or vice versa. It updates the program information in the data file, renames the data
-     * file accordingly, and adjusts the course numbers of the courses taken by the student based on the new program.
-     * If a course has a grade greater than 0, it sets the course as "taking". Finally, it saves the changes to the data file.
+     * Asks the user to confirm a shift previewed by {@link #shiftPrograms()}, listing the courses that do not
+     * transfer, then applies it in the background, since it renames and writes the data file.
+     *
+     * @param service    The service of this curriculum.
+     * @param newProgram The program to shift to.
+     * @param outcome    The previewed shift, or null if the program has no curriculum.
      */
-    public void shiftPrograms() {
-        int choice = JOptionPane.showConfirmDialog(null, "Are you sure you want to shift programs?", "Program Shift Confirmation", JOptionPane.YES_NO_OPTION);
+    private void confirmShift(CurriculumService service, String newProgram, CreditTransfer.Outcome outcome) {
+        if (outcome == null) {
+            JOptionPane.showMessageDialog(null, "No curriculum found for " + newProgram + ".");
+            return;
+        }
+        String message = "Are you sure you want to shift programs?";
+        if (!outcome.getUnmapped().isEmpty()) {
+            message += "\nThese courses will not be credited in " + newProgram + " (" + outcome.getUnmappedUnits()
+                    + " units):\n" + String.join(", ", outcome.getUnmappedCourseNumbers());
+        }
+        int choice = JOptionPane.showConfirmDialog(null, message, "Program Shift Confirmation", JOptionPane.YES_NO_OPTION);
         if (choice == JOptionPane.YES_OPTION) {
-            String newProgram = (program.equals("BSIT")) ? "BSCS" : "BSIT";
-            String newFileName = (IdNumber.toLowerCase() + newProgram.toLowerCase()).replaceAll(" ", "") + ".ser";
-
-
-            File oldFile = new File(DATA_FILE_LOCATION + FILE_NAME);
-            File newFile = new File(DATA_FILE_LOCATION + newFileName);
-            if (oldFile.exists()) {
-                boolean rename = oldFile.renameTo(newFile);
-                if (!rename)
-                    JOptionPane.showMessageDialog(null, "Failed to rename file.");
-            }
-
-
-            setProgram(newProgram);
-
-
-            for (Course course : courses) {
-                if (course.getCourseNo().startsWith("IT") && newProgram.equals("BSCS")) {
-                    course.setCourseNo(course.getCourseNo().replace("IT", "CS"));
-                } else if (course.getCourseNo().startsWith("CS") && newProgram.equals("BSIT")) {
-                    course.setCourseNo(course.getCourseNo().replace("CS", "IT"));
+            BackgroundTasks.run(null, "Shifting to " + newProgram, false, () -> service.shiftProgram(outcome), result -> {
+                if (result == CurriculumService.Result.STALE_RECORD) {
+                    JOptionPane.showMessageDialog(null, "Your checklist was changed in another window, so the program was not shifted.\n"
+                            + "Choose an option again to load the latest checklist.");
+                    return;
                 }
-                for (Course newCourse : courses) {
-                    if (course.getCourseNo().equals(newCourse.getCourseNo()) && newCourse.getGrade() > 0) {
-                        course.setTaking(true);
-                        break;
-                    }
+                if (result == CurriculumService.Result.RENAME_FAILED) {
+                    JOptionPane.showMessageDialog(null, "Failed to rename file.");
                 }
-            }
-
-
-            saveFile();
-            JOptionPane.showMessageDialog(null, "Program shifted successfully to " + newProgram);
+                JOptionPane.showMessageDialog(null, "Program shifted successfully to " + program);
+            });
         } else {
             JOptionPane.showMessageDialog(null, "Program shift canceled.");
         }
@@ -1437,39 +1611,35 @@ public class Curriculum implements Serializable{
 
 
     /**
-     * Checks if a prerequisite course is met based on its course number and grade.
+     * Gets the passed courses of the student as a bitset over the prerequisite graph of the program.
+     * The set is built the first time it is needed and kept up to date afterwards, together with whether each
+     * elective can be taken. It is built again when the program or its prerequisite file changes, since the graph
+     * then has other ids.
      *
-     * @param prerequisiteCourse The course number of the prerequisite to check.
-     * @return true if the prerequisite course is found in the list of courses
-     *         and its grade is greater than 0, false otherwise.
+     * @return The passed courses of the student.
      */
-    private boolean isPrerequisiteMet(String prerequisiteCourse) {
-        for (Course course : courses) {
-            if (course.getCourseNo().equals(prerequisiteCourse) && course.getGrade() > 0) {
-                return true; // Prerequisite course is found and grade is greater than 0
-            }
+    PassedCourses getPassedCourses() {
+        EligibilityEngine engine = readPrerequisites().getEligibility();
+        if (passedCourses == null || passedCourses.getEngine() != engine) {
+            passedCourses = new PassedCourses(engine, courses, electives);
+            courses.setObserver(courseObserver());
         }
-        return false; // Prerequisite course not found or grade is 0
+        return passedCourses;
     }
     /**
-     * Reads and parses the prerequisites for courses from a file.
+     * Gets the compiled prerequisite graph of the program.
+     * The graph is shared by every curriculum of the same program and is only parsed again when the file changes.
+     * On the event dispatch thread, the file is looked up by a background task instead.
      *
-     * @return A mapping of course numbers to their respective lists of prerequisites.
+     * @return The prerequisite graph of the program.
      */
-    private Map<String, List<String>> readPrerequisites() {
-        Map<String, List<String>> prerequisitesMap = new HashMap<>();
-        try (Scanner scanner = new Scanner(new File("C:\\Users\\admin\\Downloads\\AgcaoiliBarryBibit-CheeBilalCarbonellCumtiEzperagoza9401FinProj1\\Courses\\"+ program +"prerequisites.txt"))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] parts = line.split(",");
-                String courseNo = parts[0].trim();
-                List<String> prerequisites = Arrays.asList(parts).subList(1, parts.length);
-                prerequisitesMap.put(courseNo, prerequisites);
-            }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
-        return prerequisitesMap;
+    private PrerequisiteGraph readPrerequisites() {
+        long start = System.nanoTime();
+        PrerequisiteGraph graph = SwingUtilities.isEventDispatchThread()
+                ? PrerequisiteGraph.forProgramWithoutWaiting(COURSE_CURRICULUM_REFERENCE_LOCATION, program)
+                : PrerequisiteGraph.forProgram(COURSE_CURRICULUM_REFERENCE_LOCATION, program);
+        Metrics.stop("prerequisites.read", start);
+        return graph;
     }
     /**
      * Checks if the prerequisites for a course are met.
@@ -1478,20 +1648,63 @@ public class Curriculum implements Serializable{
      * @return true if the course has no prerequisites or if all prerequisites
      *         are met, false otherwise.
      */
-    private boolean checkPrerequisites(String courseNo) {
-        Map<String, List<String>> prerequisitesMap = readPrerequisites();
-
-        List<String> prerequisites = prerequisitesMap.get(courseNo);
-        if (prerequisites == null || prerequisites.isEmpty()) {
-            return true; // No prerequisites or all prerequisites met
+    boolean checkPrerequisites(String courseNo) {
+        CurriculumEvents.PrerequisiteCheck event = new CurriculumEvents.PrerequisiteCheck();
+        event.begin();
+        PassedCourses passed = getPassedCourses();
+        EligibilityEngine engine = passed.getEngine();
+        boolean canTake = engine.canTake(engine.getGraph().idOf(courseNo), passed.bits());
+        if (event.shouldCommit()) {
+            event.fileName = FILE_NAME;
+            event.program = program;
+            event.courseNo = courseNo;
+            event.canTake = canTake;
+            event.courses = courses.size();
+            event.commit();
         }
-
-        for (String prerequisite : prerequisites) {
-            if (!isPrerequisiteMet(prerequisite)) {
-                return false; // Prerequisite not met
+        return canTake;
+    }
+    /**
+     * Gets the courses the student can take next term: the courses without a passing grade whose prerequisites
+     * are all passed.
+     *
+     * @return The eligible courses, in curriculum order.
+     */
+    public List<Course> getEligibleCourses() {
+        PassedCourses passed = getPassedCourses();
+        EligibilityEngine engine = passed.getEngine();
+        PrerequisiteGraph graph = engine.getGraph();
+        List<Course> eligible = new ArrayList<>();
+        for (Course course : courses) {
+            if (!PassedCourses.isPassing(course.getGrade())
+                    && engine.canTake(graph.idOf(course.getCourseNo()), passed.bits())) {
+                eligible.add(course);
             }
         }
-        return true; // All prerequisites met
+        return eligible;
+    }
+    /**
+     * Gets the courses that stay blocked until a course is passed, directly or through other prerequisites.
+     *
+     * @param courseNo The course number of the blocking course.
+     * @return The course numbers of the blocked courses that are not passed yet, or an empty list if the course
+     *         is passed or nothing depends on it.
+     */
+    public List<String> getCoursesBlockedBy(String courseNo) {
+        PassedCourses passed = getPassedCourses();
+        EligibilityEngine engine = passed.getEngine();
+        return engine.codesOf(engine.blockedBy(engine.getGraph().idOf(courseNo), passed.bits()));
+    }
+    /**
+     * Gets the prerequisites of a course, direct or transitive, that are not passed yet.
+     *
+     * @param courseNo The course number to check.
+     * @return The course numbers of the missing prerequisites.
+     */
+    public List<String> getMissingPrerequisites(String courseNo) {
+        PassedCourses passed = getPassedCourses();
+        EligibilityEngine engine = passed.getEngine();
+        return engine.codesOf(engine.missingFor(engine.getGraph().idOf(courseNo), passed.bits()));
     }
     /**
      * Searches for an elective with the given course number.
@@ -1501,54 +1714,276 @@ public class Curriculum implements Serializable{
      */
 
     public int searchElectives(String courseNo) {
-        for (int i = 0; i < electives.size(); i++) {
-            Elective course = electives.get(i);
-            String courseNoLowerCase = course.getCourseNo().replace(" ", "").toLowerCase();
-            if (courseNoLowerCase.equals(courseNo.replace(" ", "").toLowerCase())) {
-                return i;
-            }
+        if (electiveIndex == null || !electiveIndex.isCurrent(electives)) {
+            electiveIndex = new CourseIndex(electives);
         }
-        return -1;
+        return electiveIndex.indexOf(courseNo);
     }
     /**
      * Searches for a course in the list of courses by its course number.
+     * Spaces and letter case are ignored. The lookup goes through an index of the course list
+     * which is rebuilt whenever the list has been reordered, inserted into, or removed from.
      *
      * @param courseNo The course number to search for.
      * @return The index of the first occurrence of the course with the specified
      *         course number in the list of courses, or -1 if the course is not found.
      */
     public int search(String courseNo) {
-        for (int i = 0; i < courses.size(); i++) {
-            Course course = courses.get(i);
-            String courseNoLowerCase = course.getCourseNo().replace(" ", "").toLowerCase();
-            if (courseNoLowerCase.equals(courseNo.replace(" ", "").toLowerCase())) {
-                return i;
-            }
+        boolean current = courseIndex != null && courseIndex.isCurrent(courses);
+        Metrics.cacheLookup("courseIndex", current);
+        if (!current) {
+            courseIndex = new CourseIndex(courses);
         }
-        return -1;
+        return courseIndex.indexOf(courseNo);
     }
     /**
-     * Saves the current instance of the object to a file using serialization.
+     * Saves the current instance of the object to a file as a binary record.
      * The object is saved to the specified file location with the given file name.
      * If the file does not exist, it will be created. If the file already exists,
      * its contents will be overwritten.
      *
-     * @throws IOException If an I/O error occurs while attempting to save the file.
+     * @see CurriculumCodec
      */
 
     public void saveFile() {
         try {
-            FileOutputStream outputFile = new FileOutputStream(DATA_FILE_LOCATION + FILE_NAME);
-            ObjectOutputStream objectOut = new ObjectOutputStream(outputFile);
-            objectOut.writeObject(this);
-            objectOut.close();
-
-
+            writeRecord();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Marks the curriculum as changed so that it is saved in the background.
+     * Changes made in quick succession are saved together in one write. In journal mode a snapshot is queued for
+     * the journal writer instead. Either way the record is encoded here, so this is called on the thread that
+     * changes the curriculum.
+     *
+     * @see CurriculumPersister
+     * @see GradeJournal
+     */
+    public void markDirty() {
+        if (GradeJournal.ENABLED) {
+            journal().queueSnapshot(this);
+        } else {
+            CurriculumPersister.markDirty(this);
+        }
+    }
+
+    /**
+     * Records a grade change of the course at the given position.
+     * In journal mode the change is appended to the grade journal; otherwise the curriculum is marked as changed.
+     *
+     * @param position The position of the course in the list of courses.
+     */
+    void recordGrade(int position) {
+        if (GradeJournal.ENABLED) {
+            journal().appendGrade(this, position);
+        } else {
+            markDirty();
+        }
+    }
+
+    /**
+     * Records a course that was added to the list of courses.
+     * In journal mode the course is appended to the grade journal; otherwise the curriculum is marked as changed.
+     *
+     * @param position The position the course was inserted at.
+     * @param course   The course that was added.
+     */
+    private void recordAddedCourse(int position, Course course) {
+        if (GradeJournal.ENABLED) {
+            journal().appendAddedCourse(this, position, course);
+        } else {
+            markDirty();
+        }
+    }
+
+    /**
+     * Records an elective that was taken.
+     * In journal mode the elective is appended to the grade journal; otherwise the curriculum is marked as changed.
+     *
+     * @param position The position of the elective in the list of electives.
+     * @param year     The year the elective is taken in.
+     * @param semester The semester the elective is taken in.
+     */
+    void recordElective(int position, byte year, byte semester) {
+        if (GradeJournal.ENABLED) {
+            journal().appendTakenElective(this, position, year, semester);
+        } else {
+            markDirty();
+        }
+    }
+
+    /**
+     * Gets the grade journal of the curriculum.
+     *
+     * @return The grade journal kept next to the record file.
+     */
+    private GradeJournal journal() {
+        if (journal == null) {
+            journal = new GradeJournal(FILE_NAME);
+        }
+        return journal;
+    }
+
+    /**
+     * Gets the sequence number of the last grade journal record included in the curriculum.
+     *
+     * @return The journal sequence number.
+     */
+    long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Sets the sequence number of the last grade journal record included in the curriculum.
+     *
+     * @param journalSequence The journal sequence number.
+     */
+    void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * Gets the version of the record file the curriculum was read from or last saved to.
+     *
+     * @return The record version, 0 if the curriculum was never saved.
+     */
+    long getRecordVersion() {
+        return recordVersion;
+    }
+
+    /**
+     * Sets the version of the record file the curriculum was read from.
+     *
+     * @param recordVersion The record version.
+     */
+    void setRecordVersion(long recordVersion) {
+        this.recordVersion = recordVersion;
+    }
+
+    /**
+     * Checks if a save of the curriculum found its record file changed by another window or process.
+     * A stale curriculum is never written again and has to be loaded again.
+     *
+     * @return true if the curriculum is stale.
+     */
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Marks the curriculum as stale after its record file or grade journal was found changed by another session.
+     */
+    void markStale() {
+        stale = true;
+        Metrics.count("record.conflicts", 1);
+    }
+
+    /**
+     * Writes the curriculum to its record file through a temporary file,
+     * so a failed write never leaves a half-written record behind.
+     * The file is locked while it is written, see {@link #writeChecked(File)}.
+     *
+     * @throws IOException If an I/O error occurs while writing or replacing the file.
+     * @throws StaleRecordException If the record file was changed by another session since it was read.
+     */
+    void writeRecord() throws IOException {
+        writeRecord(CurriculumCodec.encode(this));
+    }
+
+    /**
+     * Writes a record of the curriculum, encoded earlier on the thread that changed it, to the record file.
+     * Used by the background writer, which never reads the curriculum itself while it may be changing.
+     *
+     * @param record The record, encoded by {@link CurriculumCodec#encode(Curriculum)}.
+     * @throws IOException If an I/O error occurs while writing or replacing the file.
+     * @throws StaleRecordException If the record file was changed by another session since it was read.
+     */
+    @SuppressWarnings("try")
+    void writeRecord(byte[] record) throws IOException {
+        CurriculumEvents.Save event = new CurriculumEvents.Save();
+        event.begin();
+        long start = System.nanoTime();
+        File file = new File(DATA_FILE_LOCATION + FILE_NAME);
+        int length;
+        try (StudentLocks.Lock lock = StudentLocks.lock(file)) {
+            length = writeChecked(file, record);
+        }
+        Metrics.count("bytes.written.record", length);
+        Metrics.stop("curriculum.save", start);
+        if (event.shouldCommit()) {
+            event.fileName = FILE_NAME;
+            event.program = program;
+            event.bytes = length;
+            event.courses = courses.size();
+            event.eventDispatchThread = CurriculumEvents.onEventDispatchThread();
+            event.commit();
+        }
+    }
+
+    /**
+     * Writes the curriculum over a record file if the file still has the version the curriculum was read at,
+     * and moves both to the next version. The caller holds the lock of the file, see {@link StudentLocks}.
+     *
+     * @param file The record file.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs while writing or replacing the file.
+     * @throws StaleRecordException If the file has another version; it is then left as it is.
+     */
+    int writeChecked(File file) throws IOException {
+        return writeChecked(file, CurriculumCodec.encode(this));
+    }
+
+    /**
+     * Writes a record of the curriculum over a record file if the file still has the version the curriculum was
+     * read at, and moves both to the next version. The record only gets its version here, so it can be encoded
+     * before the file is locked. The caller holds the lock of the file, see {@link StudentLocks}.
+     *
+     * @param file   The record file.
+     * @param record The record, encoded by {@link CurriculumCodec#encode(Curriculum)}.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs while writing or replacing the file.
+     * @throws StaleRecordException If the file has another version; it is then left as it is.
+     */
+    int writeChecked(File file, byte[] record) throws IOException {
+        long onDisk = CurriculumCodec.recordVersionOf(file);
+        if (stale || onDisk != recordVersion) {
+            markStale();
+            throw new StaleRecordException(file.getName(), recordVersion, onDisk);
+        }
+        byte[] versioned = CurriculumCodec.withRecordVersion(record, onDisk + 1);
+        writeAtomically(file, versioned);
+        recordVersion = onDisk + 1;
+        return versioned.length;
+    }
+
+    /**
+     * Replaces the contents of a file by writing a temporary file in the same folder and moving it over the original.
+     *
+     * @param file     The file to replace.
+     * @param contents The new contents of the file.
+     * @throws IOException If the temporary file cannot be written or moved.
+     */
+    static void writeAtomically(File file, byte[] contents) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(contents);
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the name of the record file of the curriculum.
+     *
+     * @return The file name inside the data folder.
+     */
+    String getFileName() {
+        return FILE_NAME;
+    }
+
 }
 
 
@@ -0,0 +1,510 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class CurriculumCodec {
+    /**
+     * <p>Reads and writes the binary record format of a {@link Curriculum}. The record only holds what a student
+     * file needs: the ID number, the program, the courses and the electives. File locations and class descriptors
+     * are not written.</p>
+     *
+     * <p>Layout of version 4:</p>
+     * <pre>
+     * magic 'S' 'L' 'U' 'C', version byte
+     * idNumber, program                                    (strings)
+     * journal sequence                                     (varint)
+     * catalog fingerprint                                  (varint, 0 for none)
+     * record version                                       (varint)
+     * dictionary: count, strings                           (course numbers and names not in the catalog)
+     * courses: count, then per course
+     *     catalog entry + 1, or 0 followed by year byte, semester byte, courseNo ref, courseName ref, unit
+     *     grade, flags (bit 0 taking)
+     * electives: count, then per elective
+     *     catalog entry + 1, or 0 followed by courseNo ref, courseName ref, unit, unit2
+     *     year byte, semester byte, grade, flags (bit 0 selected, bit 1 canBeTaken)
+     * </pre>
+     *
+     * <p>A course that matches an entry of the {@link CourseCatalog} of the program only stores the index of the
+     * entry and what the student changed, so most courses take three bytes. Strings of the record are replaced by
+     * the catalog's copies when they are read.</p>
+     *
+     * <p>Only version 4 is read. Older files written with Java serialization are still read by
+     * {@link Curriculum}. The record version counts the saves of the file and is checked before each save, see
+     * {@link #recordVersionOf(File)}. Files written with Java serialization read as record version 0.</p>
+     *
+     * <p>Counts and references are unsigned varints. Strings are a varint byte length followed by UTF-8 bytes.
+     * Units and grades are whole numbers almost all the time, so they are written as a varint of twice the value;
+     * any other value is written as a varint 1 followed by the four bytes of the float.</p>
+     */
+    static final int VERSION = 4;
+    private static final byte[] MAGIC = {'S', 'L', 'U', 'C'};
+    private static final int NULL_REF = 0;
+
+    private CurriculumCodec() {
+    }
+
+    /**
+     * Checks if a file starts with the header of this format.
+     *
+     * @param data the contents of the file.
+     * @return true if the data is a binary curriculum record, false otherwise.
+     */
+    static boolean isEncoded(byte[] data) {
+        if (data.length < MAGIC.length + 1) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a curriculum into a binary record.
+     *
+     * @param curriculum the curriculum to encode.
+     * @return the encoded record.
+     */
+    static byte[] encode(Curriculum curriculum) {
+        CourseCatalog catalog = CourseCatalog.forProgram(curriculum.getProgram());
+        int[] courseEntries = new int[curriculum.courses.size()];
+        int[] electiveEntries = new int[curriculum.electives.size()];
+        boolean referencesCatalog = false;
+        for (int i = 0; i < courseEntries.length; i++) {
+            courseEntries[i] = catalog == null ? -1 : catalog.indexOf(curriculum.courses.get(i), i);
+            referencesCatalog |= courseEntries[i] != -1;
+        }
+        for (int i = 0; i < electiveEntries.length; i++) {
+            electiveEntries[i] = catalog == null ? -1 : catalog.indexOf(curriculum.electives.get(i), i);
+            referencesCatalog |= electiveEntries[i] != -1;
+        }
+        if (referencesCatalog && !catalog.isArchived()) {
+            // Without an archived copy the record could not be read after the catalog changes
+            referencesCatalog = false;
+            Arrays.fill(courseEntries, -1);
+            Arrays.fill(electiveEntries, -1);
+        }
+
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.writeString(curriculum.getIdNumber());
+        out.writeString(curriculum.getProgram());
+        out.writeVarLong(curriculum.getJournalSequence());
+        out.writeVarLong(referencesCatalog ? catalog.getFingerprint() : 0);
+        out.writeVarLong(curriculum.getRecordVersion());
+
+        Map<String, Integer> refs = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < courseEntries.length; i++) {
+            if (courseEntries[i] == -1) {
+                addToDictionary(curriculum.courses.get(i), refs, dictionary);
+            }
+        }
+        for (int i = 0; i < electiveEntries.length; i++) {
+            if (electiveEntries[i] == -1) {
+                addToDictionary(curriculum.electives.get(i), refs, dictionary);
+            }
+        }
+        out.writeVarint(dictionary.size());
+        for (String entry : dictionary) {
+            out.writeString(entry);
+        }
+
+        out.writeVarint(courseEntries.length);
+        for (int i = 0; i < courseEntries.length; i++) {
+            Course course = curriculum.courses.get(i);
+            out.writeVarint(courseEntries[i] + 1);
+            if (courseEntries[i] == -1) {
+                out.write(course.getYear());
+                out.write(course.getSemester());
+                out.writeVarint(ref(course.getCourseNo(), refs));
+                out.writeVarint(ref(course.getCourseName(), refs));
+                out.writePacked(course.getUnit());
+            }
+            out.writePacked(course.getGrade());
+            out.write(course.isTaking() ? 1 : 0);
+        }
+
+        out.writeVarint(electiveEntries.length);
+        for (int i = 0; i < electiveEntries.length; i++) {
+            Elective elective = curriculum.electives.get(i);
+            out.writeVarint(electiveEntries[i] + 1);
+            if (electiveEntries[i] == -1) {
+                out.writeVarint(ref(elective.getCourseNo(), refs));
+                out.writeVarint(ref(elective.getCourseName(), refs));
+                out.writePacked(elective.getUnit());
+                out.writePacked(elective.getUnit2());
+            }
+            out.write(elective.getYear());
+            out.write(elective.getSemester());
+            out.writePacked(elective.getGrade());
+            out.write((elective.getSelected() ? 1 : 0) | (elective.getCanBeTaken() ? 2 : 0));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a binary record into a curriculum.
+     *
+     * @param data the encoded record.
+     * @return the decoded curriculum.
+     * @throws IOException if the record is not in this format, is not of the current version, or is truncated or
+     *                     otherwise corrupt.
+     */
+    static Curriculum decode(byte[] data) throws IOException {
+        if (!isEncoded(data)) {
+            throw new StreamCorruptedException("Not a curriculum record");
+        }
+        Reader in = new Reader(data, MAGIC.length);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported curriculum record version " + version);
+        }
+        String idNumber = in.readString();
+        String program = in.readString();
+        long journalSequence = in.readVarLong();
+        long fingerprint = in.readVarLong();
+        long recordVersion = in.readVarLong();
+        CourseCatalog catalog;
+        if (fingerprint != 0) {
+            catalog = CourseCatalog.find(program, fingerprint);
+            if (catalog == null) {
+                throw new StreamCorruptedException("Course catalog " + Long.toHexString(fingerprint) + " of "
+                        + program + " not found");
+            }
+        } else {
+            catalog = CourseCatalog.forProgram(program);
+        }
+
+        String[] dictionary = new String[in.readCount() + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            String value = in.readString();
+            dictionary[i] = catalog == null ? value : catalog.canonical(value);
+        }
+
+        int courseCount = in.readCount();
+        CourseList courses = new CourseList();
+        for (int i = 0; i < courseCount; i++) {
+            int entry = in.readVarint() - 1;
+            Course course;
+            if (entry == -1) {
+                byte year = (byte) in.readByte();
+                byte semester = (byte) in.readByte();
+                String courseNo = in.readRef(dictionary);
+                String courseName = in.readRef(dictionary);
+                float unit = in.readPacked();
+                course = new Course(year, semester, courseNo, courseName, unit, 0, false);
+            } else {
+                course = newCourse(catalog, entry);
+            }
+            course.setGrade(in.readPacked());
+            course.setTaking((in.readByte() & 1) != 0);
+            courses.add(course);
+        }
+
+        int electiveCount = in.readCount();
+        ArrayList<Elective> electives = new ArrayList<>(electiveCount);
+        for (int i = 0; i < electiveCount; i++) {
+            int entry = in.readVarint() - 1;
+            Elective elective;
+            if (entry == -1) {
+                String courseNo = in.readRef(dictionary);
+                String courseName = in.readRef(dictionary);
+                float unit = in.readPacked();
+                float unit2 = in.readPacked();
+                elective = new Elective(courseNo, courseName, (byte) 0, (byte) 0, false, false);
+                elective.unit = unit;
+                elective.setUnit2(unit2);
+            } else {
+                elective = newElective(catalog, entry);
+            }
+            byte year = (byte) in.readByte();
+            byte semester = (byte) in.readByte();
+            float grade = in.readPacked();
+            int flags = in.readByte();
+            elective.setGrade(grade);
+            elective.setYear(year);
+            elective.setSemester(semester);
+            elective.setSelected((flags & 1) != 0);
+            elective.setcanBeTaken((flags & 2) != 0);
+            electives.add(elective);
+        }
+        Curriculum curriculum = new Curriculum(idNumber, program, courses, electives);
+        curriculum.setJournalSequence(journalSequence);
+        curriculum.setRecordVersion(recordVersion);
+        return curriculum;
+    }
+
+    /**
+     * Reads the record version of a record file from its header, without decoding the courses.
+     *
+     * @param file the record file.
+     * @return the record version, or 0 if the file does not exist or was written by Java serialization.
+     * @throws IOException if the file cannot be read or its header is not valid.
+     */
+    static long recordVersionOf(File file) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file.toPath());
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        if (!isEncoded(data)) {
+            return 0;
+        }
+        Reader in = new Reader(data, MAGIC.length);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported curriculum record version " + version);
+        }
+        in.readString();
+        in.readString();
+        in.readVarLong();
+        in.readVarLong();
+        return in.readVarLong();
+    }
+
+    /**
+     * Copies an encoded record with another record version in its header. A record is encoded on the thread that
+     * changes the curriculum, but only learns its version when it is written.
+     *
+     * @param record        a record encoded by {@link #encode(Curriculum)}.
+     * @param recordVersion the record version to put in the copy.
+     * @return the record with the new version.
+     * @throws IOException if the record is not in the current format.
+     */
+    static byte[] withRecordVersion(byte[] record, long recordVersion) throws IOException {
+        if (!isEncoded(record)) {
+            throw new StreamCorruptedException("Not a curriculum record");
+        }
+        Reader in = new Reader(record, MAGIC.length);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported curriculum record version " + version);
+        }
+        in.readString();
+        in.readString();
+        in.readVarLong();
+        in.readVarLong();
+        int start = in.position;
+        in.readVarLong();
+        Writer out = new Writer();
+        out.write(Arrays.copyOf(record, start));
+        out.writeVarLong(recordVersion);
+        out.write(Arrays.copyOfRange(record, in.position, record.length));
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds the course of a catalog entry referenced by a record.
+     *
+     * @throws StreamCorruptedException if the catalog has no such entry.
+     */
+    private static Course newCourse(CourseCatalog catalog, int entry) throws StreamCorruptedException {
+        if (catalog == null || entry < 0 || entry >= catalog.courseCount()) {
+            throw new StreamCorruptedException("Course catalog entry " + entry + " not found");
+        }
+        return catalog.newCourse(entry);
+    }
+
+    /**
+     * Builds the elective of a catalog entry referenced by a record.
+     *
+     * @throws StreamCorruptedException if the catalog has no such entry.
+     */
+    private static Elective newElective(CourseCatalog catalog, int entry) throws StreamCorruptedException {
+        if (catalog == null || entry < 0 || entry >= catalog.electiveCount()) {
+            throw new StreamCorruptedException("Elective catalog entry " + entry + " not found");
+        }
+        return catalog.newElective(entry);
+    }
+
+    /**
+     * Adds the course number and name of a course to the dictionary if they are not in it yet.
+     *
+     * @param course     the course whose strings are added.
+     * @param refs       the references of the strings added so far.
+     * @param dictionary the strings added so far, in order.
+     */
+    private static void addToDictionary(AbstractCourse course, Map<String, Integer> refs, List<String> dictionary) {
+        for (String value : new String[]{course.getCourseNo(), course.getCourseName()}) {
+            if (value != null && !refs.containsKey(value)) {
+                dictionary.add(value);
+                refs.put(value, dictionary.size());
+            }
+        }
+    }
+
+    /**
+     * Gets the dictionary reference of a string. References start at 1 so that 0 can stand for null.
+     *
+     * @param value the string to look up.
+     * @param refs  the references of the dictionary.
+     * @return the reference of the string.
+     */
+    private static int ref(String value, Map<String, Integer> refs) {
+        return value == null ? NULL_REF : refs.get(value);
+    }
+
+    /**
+     * Appends the primitive fields of a record to a growing byte array.
+     */
+    private static final class Writer {
+        private byte[] buffer = new byte[1024];
+        private int length;
+
+        private void write(int value) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void write(byte[] values) {
+            if (length + values.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length * 2, length + values.length));
+            }
+            System.arraycopy(values, 0, buffer, length, values.length);
+            length += values.length;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8);
+        }
+
+        private void writePacked(float value) {
+            int whole = (int) value;
+            if (whole == value && whole >= 0 && whole < (1 << 29)) {
+                writeVarint(whole << 1);
+            } else {
+                writeVarint(1);
+                int bits = Float.floatToIntBits(value);
+                write(bits >>> 24);
+                write(bits >>> 16);
+                write(bits >>> 8);
+                write(bits);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    /**
+     * Reads the primitive fields of a record from a byte array.
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= data.length) {
+                throw new StreamCorruptedException("Truncated curriculum record");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint in curriculum record");
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint in curriculum record");
+        }
+
+        /**
+         * Reads the number of entries that follow. Every entry takes at least one byte, so a count larger than the
+         * bytes left cannot be right.
+         */
+        private int readCount() throws IOException {
+            int count = readVarint();
+            if (count < 0 || count > data.length - position) {
+                throw new StreamCorruptedException("Invalid count " + count + " in curriculum record");
+            }
+            return count;
+        }
+
+        /**
+         * Reads a reference to a string of the dictionary of the record.
+         */
+        private String readRef(String[] dictionary) throws IOException {
+            int ref = readVarint();
+            if (ref < 0 || ref >= dictionary.length) {
+                throw new StreamCorruptedException("Invalid string reference " + ref + " in curriculum record");
+            }
+            return dictionary[ref];
+        }
+
+        private String readString() throws IOException {
+            int length = readVarint();
+            if (length < 0 || length > data.length - position) {
+                throw new StreamCorruptedException("Truncated curriculum record");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private float readPacked() throws IOException {
+            int packed = readVarint();
+            if ((packed & 1) == 0) {
+                return packed >>> 1;
+            }
+            int bits = readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+            return Float.intBitsToFloat(bits);
+        }
+    }
+}
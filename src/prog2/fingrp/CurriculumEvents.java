@@ -0,0 +1,206 @@
+package prog2.fingrp;
+
+import javax.swing.SwingUtilities;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+public final class CurriculumEvents {
+    /**
+     * <p>Java Flight Recorder events for the work that can make the application freeze: loading a curriculum,
+     * reading and writing its record file, checking prerequisites, shifting programs and running a menu option.
+     * Each event carries the record file name and the program, and where it applies the bytes and courses
+     * involved, and whether it ran on the event dispatch thread, so a recording shows whether the time went to
+     * decoding, to the file system or to the Swing thread.</p>
+     *
+     * <p>Every event is disabled by default. A disabled event is never committed, and since it does not escape the
+     * method that creates it, the JIT removes it, so the code paths cost nothing until a recording turns the events
+     * on. {@code checklist.jfc}, next to the application, enables them together with the JDK events for file I/O,
+     * garbage collection, lock contention and method sampling:
+     * {@code java -XX:StartFlightRecording:settings=checklist.jfc,filename=checklist.jfr prog2.fingrp.Main}.
+     * The recording opens in JDK Mission Control, where the events are under "Checklist".</p>
+     *
+     * <p>Usage: create the event and call {@code begin()} before the work, then set the fields and call
+     * {@code commit()} only if {@code shouldCommit()} is true.</p>
+     */
+    private CurriculumEvents() {
+    }
+
+    /**
+     * Checks if the calling thread is the Swing event dispatch thread.
+     *
+     * @return true on the event dispatch thread, false otherwise.
+     */
+    static boolean onEventDispatchThread() {
+        return SwingUtilities.isEventDispatchThread();
+    }
+
+    /**
+     * Loading or creating the curriculum of a student when it is constructed.
+     */
+    @Name("prog2.fingrp.CurriculumLoad")
+    @Label("Curriculum Load")
+    @Category({"Checklist", "Curriculum"})
+    @Description("A curriculum was read from its record file or created from the catalog")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Load extends Event {
+        @Label("File Name")
+        String fileName;
+
+        @Label("Program")
+        String program;
+
+        @Label("New Student")
+        @Description("The student had no record file, so the curriculum was created from the catalog")
+        boolean newStudent;
+
+        @Label("Courses")
+        int courses;
+
+        @Label("Event Dispatch Thread")
+        boolean eventDispatchThread;
+    }
+
+    /**
+     * Reading and decoding a record file.
+     */
+    @Name("prog2.fingrp.CurriculumDeserialize")
+    @Label("Curriculum Deserialize")
+    @Category({"Checklist", "Curriculum"})
+    @Description("A record file was read and decoded")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Deserialize extends Event {
+        @Label("File Name")
+        String fileName;
+
+        @Label("Program")
+        String program;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Courses")
+        int courses;
+
+        @Label("Event Dispatch Thread")
+        boolean eventDispatchThread;
+    }
+
+    /**
+     * Encoding and writing a record file.
+     */
+    @Name("prog2.fingrp.CurriculumSave")
+    @Label("Curriculum Save")
+    @Category({"Checklist", "Curriculum"})
+    @Description("A record file was encoded and written")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Save extends Event {
+        @Label("File Name")
+        String fileName;
+
+        @Label("Program")
+        String program;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Courses")
+        int courses;
+
+        @Label("Event Dispatch Thread")
+        boolean eventDispatchThread;
+    }
+
+    /**
+     * Checking whether the prerequisites of a course are passed.
+     */
+    @Name("prog2.fingrp.PrerequisiteCheck")
+    @Label("Prerequisite Check")
+    @Category({"Checklist", "Curriculum"})
+    @Description("The prerequisites of a course were checked against the passed courses")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class PrerequisiteCheck extends Event {
+        @Label("File Name")
+        String fileName;
+
+        @Label("Program")
+        String program;
+
+        @Label("Course Number")
+        String courseNo;
+
+        @Label("Can Take")
+        boolean canTake;
+
+        @Label("Courses")
+        int courses;
+    }
+
+    /**
+     * Moving a student to another program.
+     */
+    @Name("prog2.fingrp.ShiftProgram")
+    @Label("Shift Program")
+    @Category({"Checklist", "Curriculum"})
+    @Description("A student was shifted to another program and their credits transferred")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ShiftProgram extends Event {
+        @Label("File Name")
+        String fileName;
+
+        @Label("Program")
+        @Description("The program before the shift")
+        String program;
+
+        @Label("New Program")
+        String newProgram;
+
+        @Label("Courses Credited")
+        int creditedCourses;
+
+        @Label("Courses Unmapped")
+        int unmappedCourses;
+
+        @Label("Event Dispatch Thread")
+        boolean eventDispatchThread;
+    }
+
+    /**
+     * Preparing one option of the main menu in the background: loading the curriculum and building the text of a
+     * report. The dialogs the option shows afterwards are not included, since they wait for the user.
+     */
+    @Name("prog2.fingrp.MenuOption")
+    @Label("Menu Option")
+    @Category({"Checklist", "User Interface"})
+    @Description("An option of the main menu was prepared, without the time its dialogs were open")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class MenuOption extends Event {
+        @Label("Option")
+        int option;
+
+        @Label("File Name")
+        String fileName;
+
+        @Label("Program")
+        String program;
+
+        @Label("Courses")
+        int courses;
+
+        @Label("Event Dispatch Thread")
+        boolean eventDispatchThread;
+    }
+}
@@ -0,0 +1,146 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class CurriculumPersister {
+    /**
+     * <p>Writes changed curricula to their record files in the background. A change only marks the curriculum as
+     * dirty; the first mark schedules one write, and every further change made before that write runs is included
+     * in it. Entering all the grades of a semester therefore costs one file write instead of one per course.</p>
+     *
+     * <p>A curriculum is never left unsaved for longer than the maximum staleness, which defaults to 3000 ms and can
+     * be set with the {@code checklist.maxStalenessMillis} system property. Logging out, quitting and shutting the
+     * JVM down flush pending writes immediately.</p>
+     *
+     * <p>Marking a curriculum dirty encodes its record right away, on the thread that changed it, and keeps the
+     * bytes as the pending write of its file; a later change replaces them. The writer thread only writes finished
+     * bytes and never reads a curriculum that another thread may be changing. A change made while a write is in
+     * progress leaves new bytes pending for the next write.</p>
+     *
+     * <p>A write that fails is reported and its bytes stay pending, unless newer ones replaced them, so the next
+     * write tries again.</p>
+     *
+     * <p>Writes hold the lock of the student's files (see {@link StudentLocks}), so a flush waits for a write of the
+     * same student that is in progress, but never for another student. A write that finds the record file changed
+     * by another session is dropped, and the curriculum is marked stale.</p>
+     */
+    static final long MAX_STALENESS_MILLIS = Long.getLong("checklist.maxStalenessMillis", 3000);
+
+    private static final Map<String, Pending> DIRTY = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "curriculum-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CurriculumPersister::flushAll, "curriculum-flush"));
+    }
+
+    private CurriculumPersister() {
+    }
+
+    /**
+     * Marks a curriculum as changed and schedules a write if none is pending. Must be called on the thread that
+     * changes the curriculum, since the record is encoded here.
+     *
+     * @param curriculum the curriculum that changed.
+     */
+    public static void markDirty(Curriculum curriculum) {
+        String fileName = curriculum.getFileName();
+        if (DIRTY.put(fileName, new Pending(curriculum, CurriculumCodec.encode(curriculum))) == null) {
+            schedule(fileName);
+        }
+    }
+
+    /**
+     * Checks if a curriculum has changes that have not been written yet.
+     *
+     * @param curriculum the curriculum to check.
+     * @return true if a write is pending for the curriculum, false otherwise.
+     */
+    public static boolean isDirty(Curriculum curriculum) {
+        Pending pending = DIRTY.get(curriculum.getFileName());
+        return pending != null && pending.curriculum == curriculum;
+    }
+
+    /**
+     * Writes a curriculum right away if it has pending changes, waiting for a write already in progress.
+     * In journal mode, waits for the journal writes queued so far instead.
+     *
+     * @param curriculum the curriculum to flush.
+     */
+    public static void flush(Curriculum curriculum) {
+        if (GradeJournal.ENABLED) {
+            GradeJournal.awaitWrites();
+        }
+        write(curriculum.getFileName());
+    }
+
+    /**
+     * Writes every curriculum with pending changes right away.
+     */
+    public static void flushAll() {
+        for (String fileName : DIRTY.keySet()) {
+            write(fileName);
+        }
+    }
+
+    /**
+     * Writes the pending record of a record file, if there is one.
+     *
+     * @param fileName the name of the record file.
+     */
+    @SuppressWarnings("try")
+    private static void write(String fileName) {
+        Pending pending = null;
+        try (StudentLocks.Lock lock = StudentLocks.lock(new File(Curriculum.DATA_FILE_LOCATION + fileName))) {
+            pending = DIRTY.remove(fileName);
+            if (pending != null) {
+                pending.curriculum.writeRecord(pending.record);
+            }
+        } catch (StaleRecordException e) {
+            // The curriculum is stale and is never written again
+            System.err.println(e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            retry(fileName, pending);
+        }
+    }
+
+    /**
+     * Keeps the record of a failed write pending, unless a newer one replaced it, and schedules another write.
+     *
+     * @param fileName the name of the record file.
+     * @param pending  the record that could not be written, or null if it was never taken.
+     */
+    private static void retry(String fileName, Pending pending) {
+        if (pending != null) {
+            DIRTY.putIfAbsent(fileName, pending);
+        }
+        schedule(fileName);
+    }
+
+    private static void schedule(String fileName) {
+        WRITER.schedule(() -> write(fileName), MAX_STALENESS_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The record of a curriculum waiting to be written.
+     */
+    private static final class Pending {
+        private final Curriculum curriculum;
+        private final byte[] record;
+
+        Pending(Curriculum curriculum, byte[] record) {
+            this.curriculum = curriculum;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+
+public class CurriculumService {
+    /**
+     * <p>The operations that change a {@link Curriculum}, without any user interface. Each operation checks its
+     * input and the prerequisites of the course, applies the change when it is allowed, and returns a
+     * {@link Result} saying what happened. Nothing is shown to the user and nothing is asked, so the service can be
+     * used from batch jobs, benchmarks and servers on a machine without a display.</p>
+     *
+     * <p>The Swing screens of {@link Curriculum} are clients of this class: they collect the input, call the
+     * service and turn the result into a message. A question the screen used to ask in the middle of an operation,
+     * such as whether to overwrite an existing grade, is returned as a result instead, and the operation is called
+     * again once the user has answered.</p>
+     *
+     * <p>Changes are saved the same way the screens save them, through the grade journal or the background
+     * writer.</p>
+     */
+    public static final float MIN_GRADE = 0;
+    public static final float MIN_PASSING_EDIT_GRADE = 65;
+    public static final float PASSING_GRADE = 75;
+    public static final float MAX_GRADE = 99;
+
+    private final Curriculum curriculum;
+
+    /**
+     * The outcome of an operation of the service.
+     */
+    public enum Result {
+        /** The change was applied. */
+        UPDATED,
+        /** The student has no record file. */
+        STUDENT_NOT_FOUND,
+        /** No course or elective has the given course number. */
+        COURSE_NOT_FOUND,
+        /** The grade is outside the range the operation accepts. */
+        INVALID_GRADE,
+        /** The year, semester, unit or program given is not valid. */
+        INVALID_INPUT,
+        /** The course already has a grade and the operation was not allowed to overwrite it. */
+        OVERWRITE_REQUIRED,
+        /** The course has no grade yet, so there is nothing to edit. */
+        NO_GRADE,
+        /** A prerequisite of the course has not been passed. */
+        PREREQUISITE_NOT_MET,
+        /** The elective has already been taken. */
+        ALREADY_TAKEN,
+        /** The maximum number of electives for the year has been reached. */
+        ELECTIVE_LIMIT_REACHED,
+        /** The record file could not be renamed for the new program; the curriculum was still shifted. */
+        RENAME_FAILED,
+        /** The record file was changed by another session since it was read; nothing was changed. */
+        STALE_RECORD,
+        /** The record file could not be written; the change was not saved. */
+        NOT_SAVED
+    }
+
+    /**
+     * Constructs a service working on a curriculum.
+     *
+     * @param curriculum the curriculum the operations change.
+     */
+    public CurriculumService(Curriculum curriculum) {
+        this.curriculum = curriculum;
+    }
+
+    /**
+     * Gets the curriculum the service works on.
+     *
+     * @return the curriculum.
+     */
+    public Curriculum getCurriculum() {
+        return curriculum;
+    }
+
+    /**
+     * Enters the grade of a course.
+     *
+     * @param courseNo  the course number of the course.
+     * @param newGrade  the grade, from 0 to 99.
+     * @param overwrite whether a grade the course already has may be replaced.
+     * @return UPDATED, COURSE_NOT_FOUND, INVALID_GRADE, OVERWRITE_REQUIRED or PREREQUISITE_NOT_MET.
+     */
+    public Result editGrade(String courseNo, float newGrade, boolean overwrite) {
+        int i = curriculum.search(courseNo);
+        if (i == -1) {
+            return Result.COURSE_NOT_FOUND;
+        }
+        if (newGrade < MIN_GRADE || newGrade > MAX_GRADE) {
+            return Result.INVALID_GRADE;
+        }
+        Course course = curriculum.courses.get(i);
+        if (course.getGrade() != 0 && !overwrite) {
+            return Result.OVERWRITE_REQUIRED;
+        }
+        if (!curriculum.checkPrerequisites(course.getCourseNo())) {
+            return Result.PREREQUISITE_NOT_MET;
+        }
+        course.setGrade(newGrade);
+        course.setTaking(false);
+        curriculum.recordGrade(i);
+        return Result.UPDATED;
+    }
+
+    /**
+     * Changes the grade of a course that already has one.
+     *
+     * @param courseNo the course number of the course.
+     * @param newGrade the new grade, from 65 to 99.
+     * @return UPDATED, COURSE_NOT_FOUND, INVALID_GRADE, NO_GRADE or PREREQUISITE_NOT_MET.
+     */
+    public Result editCourseGrade(String courseNo, float newGrade) {
+        int i = curriculum.search(courseNo);
+        if (i == -1) {
+            return Result.COURSE_NOT_FOUND;
+        }
+        if (newGrade < MIN_PASSING_EDIT_GRADE || newGrade > MAX_GRADE) {
+            return Result.INVALID_GRADE;
+        }
+        Course course = curriculum.courses.get(i);
+        if (course.getGrade() == 0) {
+            return Result.NO_GRADE;
+        }
+        if (!curriculum.checkPrerequisites(course.getCourseNo())) {
+            return Result.PREREQUISITE_NOT_MET;
+        }
+        course.setGrade(newGrade);
+        course.setTaking(false);
+        curriculum.recordGrade(i);
+        return Result.UPDATED;
+    }
+
+    /**
+     * Changes the units of a course.
+     *
+     * @param courseNo the course number of the course.
+     * @param newUnit  the new number of units.
+     * @return UPDATED, COURSE_NOT_FOUND or PREREQUISITE_NOT_MET.
+     */
+    public Result editCourseUnit(String courseNo, float newUnit) {
+        int i = curriculum.search(courseNo);
+        if (i == -1) {
+            return Result.COURSE_NOT_FOUND;
+        }
+        Course course = curriculum.courses.get(i);
+        if (!curriculum.checkPrerequisites(course.getCourseNo())) {
+            return Result.PREREQUISITE_NOT_MET;
+        }
+        course.setUnit((byte) newUnit);
+        course.setTaking(false);
+        curriculum.markDirty();
+        return Result.UPDATED;
+    }
+
+    /**
+     * Changes the name of a course.
+     *
+     * @param courseNo the course number of the course.
+     * @param newName  the new name of the course.
+     * @return UPDATED, COURSE_NOT_FOUND or PREREQUISITE_NOT_MET.
+     */
+    public Result editCourseName(String courseNo, String newName) {
+        int i = curriculum.search(courseNo);
+        if (i == -1) {
+            return Result.COURSE_NOT_FOUND;
+        }
+        Course course = curriculum.courses.get(i);
+        if (!curriculum.checkPrerequisites(course.getCourseNo())) {
+            return Result.PREREQUISITE_NOT_MET;
+        }
+        course.setCourseName(newName);
+        course.setTaking(false);
+        curriculum.markDirty();
+        return Result.UPDATED;
+    }
+
+    /**
+     * Records a course the student has taken. A course the student is currently taking gets the grade;
+     * any other course is added to the given year and semester.
+     *
+     * @param year       the year the course was taken, from 1 to 4.
+     * @param semester   the semester the course was taken, from 1 to 3.
+     * @param courseNo   the course number.
+     * @param courseName the name of the course.
+     * @param unit       the number of units, greater than zero.
+     * @param grade      the grade, from 0 to 99.
+     * @return UPDATED or INVALID_INPUT.
+     */
+    public Result addCourseTaken(byte year, byte semester, String courseNo, String courseName, float unit, float grade) {
+        if (year <= 0 || year > 4 || semester <= 0 || semester > 3 || unit <= 0 || grade < MIN_GRADE || grade > MAX_GRADE) {
+            return Result.INVALID_INPUT;
+        }
+        curriculum.addCourseTaken(year, semester, courseNo, courseName, unit, grade);
+        return Result.UPDATED;
+    }
+
+    /**
+     * Takes an elective in the given year and semester. At most 2 electives can be taken in year 3 and 3 in year 4.
+     *
+     * @param courseNo the course number of the elective.
+     * @param year     the year the elective is taken in, 3 or 4.
+     * @param semester the semester the elective is taken in, from 1 to 3.
+     * @return UPDATED, INVALID_INPUT, COURSE_NOT_FOUND, ALREADY_TAKEN, PREREQUISITE_NOT_MET or ELECTIVE_LIMIT_REACHED.
+     */
+    public Result takeElective(String courseNo, byte year, byte semester) {
+        if ((year != 3 && year != 4) || semester <= 0 || semester > 3) {
+            return Result.INVALID_INPUT;
+        }
+        int i = curriculum.searchElectives(courseNo);
+        if (i == -1) {
+            return Result.COURSE_NOT_FOUND;
+        }
+        Elective elective = curriculum.electives.get(i);
+        if (elective.getSelected()) {
+            return Result.ALREADY_TAKEN;
+        }
+        if (!curriculum.checkPrerequisites(elective.getCourseNo())) {
+            return Result.PREREQUISITE_NOT_MET;
+        }
+        if (countElectivesInYear(year) >= maxElectivesInYear(year)) {
+            return Result.ELECTIVE_LIMIT_REACHED;
+        }
+        curriculum.applyElective(elective, year, semester);
+        curriculum.recordElective(i, year, semester);
+        return Result.UPDATED;
+    }
+
+    /**
+     * Gets the number of electives that can be taken in a year.
+     *
+     * @param year the year, 3 or 4.
+     * @return the maximum number of electives of the year.
+     */
+    public static int maxElectivesInYear(byte year) {
+        return year == 3 ? 2 : 3;
+    }
+
+    /**
+     * Counts the electives already taken in a year.
+     *
+     * @param year the year to count.
+     * @return the number of selected electives of the year.
+     */
+    public int countElectivesInYear(byte year) {
+        int count = 0;
+        for (Elective elective : curriculum.electives) {
+            if (elective.getSelected() && elective.getYear() == year) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Shifts the student from BSIT to BSCS or the other way around.
+     *
+     * @return UPDATED, INVALID_INPUT if the new program has no course file, or RENAME_FAILED if the record file
+     * could not be renamed.
+     * @see #shiftProgram(CreditTransfer.Outcome)
+     */
+    public Result shiftProgram() {
+        return shiftProgram(previewShift(curriculum.getProgram().equalsIgnoreCase("BSIT") ? "BSCS" : "BSIT"));
+    }
+
+    /**
+     * Works out what shifting the student to another program would keep and lose, without changing anything.
+     *
+     * @param newProgram the program to shift to.
+     * @return the outcome of the credit transfer, or null if the new program has no course file.
+     */
+    public CreditTransfer.Outcome previewShift(String newProgram) {
+        return CreditTransfer.between(Curriculum.COURSE_CURRICULUM_REFERENCE_LOCATION, curriculum.getProgram(),
+                newProgram).transfer(curriculum);
+    }
+
+    /**
+     * Shifts the student to the program of a credit transfer worked out by {@link #previewShift(String)}. The
+     * curriculum is replaced by the one of the new program, with the passed courses moved across, and the record
+     * file is renamed for the new program.
+     *
+     * @param outcome the credit transfer to apply.
+     * @return UPDATED, INVALID_INPUT if the outcome is null, STALE_RECORD if the record file was changed by another
+     * session, or RENAME_FAILED if the record file could not be renamed.
+     */
+    @SuppressWarnings("try")
+    public Result shiftProgram(CreditTransfer.Outcome outcome) {
+        if (outcome == null) {
+            return Result.INVALID_INPUT;
+        }
+        CurriculumEvents.ShiftProgram event = new CurriculumEvents.ShiftProgram();
+        event.begin();
+        String oldFileName = curriculum.getFileName();
+        String oldProgram = curriculum.getProgram();
+        Result result = Result.UPDATED;
+
+        // A new student's record may still be waiting for its first write, and the grade journal refers to the
+        // positions of the old courses, so it is folded into the record before the record is renamed
+        if (GradeJournal.ENABLED) {
+            curriculum.markDirty();
+        }
+        CurriculumPersister.flush(curriculum);
+        if (curriculum.isStale()) {
+            return Result.STALE_RECORD;
+        }
+        File oldFile = new File(Curriculum.DATA_FILE_LOCATION + curriculum.getFileName());
+        File newFile = new File(Curriculum.DATA_FILE_LOCATION
+                + Curriculum.fileNameOf(curriculum.getIdNumber(), outcome.getToProgram()));
+        // Both files are locked in the order of their names, so two shifts of the same student cannot deadlock
+        boolean oldFirst = oldFile.getName().compareTo(newFile.getName()) < 0;
+        try (StudentLocks.Lock first = StudentLocks.lock(oldFirst ? oldFile : newFile);
+             StudentLocks.Lock second = StudentLocks.lock(oldFirst ? newFile : oldFile)) {
+            if (oldFile.exists() && !oldFile.renameTo(newFile)) {
+                result = Result.RENAME_FAILED;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            result = Result.RENAME_FAILED;
+        }
+
+        curriculum.setProgram(outcome.getToProgram());
+        curriculum.electives = outcome.getElectives();
+        curriculum.setCourses(outcome.getCourses());
+        curriculum.markDirty();
+        if (event.shouldCommit()) {
+            event.fileName = oldFileName;
+            event.program = oldProgram;
+            event.newProgram = outcome.getToProgram();
+            event.creditedCourses = outcome.getCreditedCourses();
+            event.unmappedCourses = outcome.getUnmapped().size();
+            event.eventDispatchThread = CurriculumEvents.onEventDispatchThread();
+            event.commit();
+        }
+        return result;
+    }
+}
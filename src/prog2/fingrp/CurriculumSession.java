@@ -0,0 +1,143 @@
+package prog2.fingrp;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CurriculumSession {
+    /**
+     * <p>Holds the one live {@link Curriculum} of a logged-in user. Loading starts in the background as soon as the
+     * session is opened, so the record is usually ready by the time the first menu option is chosen. Every option
+     * then works on the same instance instead of reading the data file again. The loader also reads the prerequisite
+     * graph of the program and marks the passed courses on it, so the first prerequisite check does not read the
+     * prerequisite file on the Swing thread.</p>
+     *
+     * <p>The session is closed on logout or quit, which writes any changes that are still pending.</p>
+     *
+     * <p>If a save finds that another window or process changed the record file since it was read, the curriculum
+     * becomes stale (see {@link StaleRecordException}). The next {@link #get()} then loads the record again, so
+     * the user continues from what is on disk instead of overwriting it.</p>
+     */
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "curriculum-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String idNumber;
+    private final String program;
+    private Future<Curriculum> loading;
+
+    /**
+     * Opens a session for a user and starts loading their curriculum in the background.
+     *
+     * @param idNumber the ID number of the user.
+     * @param program  the program of the user.
+     */
+    public CurriculumSession(String idNumber, String program) {
+        this.idNumber = idNumber;
+        this.program = program;
+        this.loading = startLoading();
+    }
+
+    /**
+     * Submits the loading of the curriculum to the background loader.
+     *
+     * @return the pending curriculum.
+     */
+    private Future<Curriculum> startLoading() {
+        return LOADER.submit(() -> {
+            Curriculum curriculum = new Curriculum(idNumber, program);
+            curriculum.getPassedCourses();
+            return curriculum;
+        });
+    }
+
+    /**
+     * Gets the curriculum of the session, waiting for the background load to finish if needed.
+     * If loading failed, the next call tries again. A stale curriculum is loaded again.
+     *
+     * @return the live curriculum of the session.
+     * @throws IOException            if the data file could not be read.
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found.
+     */
+    public synchronized Curriculum get() throws IOException, ClassNotFoundException {
+        if (isStale()) {
+            loading = startLoading();
+        }
+        try {
+            return loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the curriculum", e);
+        } catch (ExecutionException e) {
+            loading = startLoading();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Checks if the loaded curriculum of the session could not be saved because another session changed its
+     * record file.
+     *
+     * @return true if the curriculum is loaded and stale.
+     */
+    public synchronized boolean isStale() {
+        if (!loading.isDone() || loading.isCancelled()) {
+            return false;
+        }
+        try {
+            return loading.get().isStale();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes the session, writing the pending changes of the curriculum if it was loaded.
+     */
+    public synchronized void close() {
+        if (loading.isDone() && !loading.isCancelled()) {
+            try {
+                CurriculumPersister.flush(loading.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Nothing was loaded, so there is nothing to save
+            }
+        } else {
+            loading.cancel(false);
+        }
+    }
+
+    /**
+     * Gets the ID number of the user of the session.
+     *
+     * @return the ID number.
+     */
+    public String getIdNumber() {
+        return idNumber;
+    }
+
+    /**
+     * Gets the program of the user of the session.
+     *
+     * @return the program.
+     */
+    public String getProgram() {
+        return program;
+    }
+}
@@ -0,0 +1,521 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+public class DegreePlanner {
+    /**
+     * <p>Plans everything a student still has to take, term by term: the courses of the curriculum that are not
+     * passed yet and the elective slots that are still open. A plan keeps three rules. A course is only planned after
+     * each of its direct prerequisites is passed or planned in an earlier term. The units of a term stay within the
+     * unit cap, and a summer term within its own cap; a course heavier than the cap gets a term to itself. Electives
+     * follow the quotas of {@link CurriculumService#takeElective(String, byte, byte)}: at most 2 in year 3 and 3 in
+     * year 4, and only in those years.</p>
+     *
+     * <p>Finding the fewest terms under prerequisites and unit caps is NP-hard, so the planner uses list scheduling.
+     * Every term first takes the ready courses with the longest chain of courses still waiting on them, since a late
+     * course there delays the most. Electives have nothing waiting on them and are bound to their year, so they fill
+     * the term after the courses others wait on and before the courses nothing waits on. Every plan reports the
+     * longest remaining chain, which no plan can beat, so its number of terms can be judged.</p>
+     *
+     * <p>Courses being taken now count as passed, and the plan starts in the term after the last term with a grade
+     * or a course being taken. A course that can never be planned, because a prerequisite is neither passed nor
+     * left in the curriculum or because it sits on a prerequisite cycle, is listed as unscheduled.</p>
+     *
+     * <p>A planner keeps no state between plans, so one planner can plan many students at once.
+     * {@link #planCohort(File, int)} plans every record of a data folder in parallel.</p>
+     *
+     * <p>Usage: {@code java prog2.fingrp.DegreePlanner [maxUnits] [maxSummerUnits] [dataFolder]}. The caps default
+     * to 24 and 9 units and the data folder to the one the application uses.</p>
+     */
+    public static final float DEFAULT_MAX_UNITS = 24;
+    public static final float DEFAULT_MAX_SUMMER_UNITS = 9;
+    private static final byte FIRST_ELECTIVE_YEAR = 3;
+    private static final byte LAST_ELECTIVE_YEAR = 4;
+    private static final int MAX_YEARS = 12;
+
+    private final float maxUnits;
+    private final float maxSummerUnits;
+
+    /**
+     * Constructs a planner with unit caps for regular and summer terms.
+     *
+     * @param maxUnits       the most units a regular term may hold.
+     * @param maxSummerUnits the most units a summer term may hold; 0 or less leaves summer terms out of the plan.
+     */
+    public DegreePlanner(float maxUnits, float maxSummerUnits) {
+        if (maxUnits <= 0) {
+            throw new IllegalArgumentException("maxUnits must be positive");
+        }
+        this.maxUnits = maxUnits;
+        this.maxSummerUnits = maxSummerUnits;
+    }
+
+    public static void main(String[] args) {
+        float maxUnits = args.length > 0 ? Float.parseFloat(args[0]) : DEFAULT_MAX_UNITS;
+        float maxSummerUnits = args.length > 1 ? Float.parseFloat(args[1]) : DEFAULT_MAX_SUMMER_UNITS;
+        File folder = new File(args.length > 2 ? args[2] : Curriculum.DATA_FILE_LOCATION);
+        DegreePlanner planner = new DegreePlanner(maxUnits, maxSummerUnits);
+        long start = System.nanoTime();
+        List<Plan> plans = planner.planCohort(folder, Runtime.getRuntime().availableProcessors());
+        long elapsed = System.nanoTime() - start;
+        long slowest = 0;
+        for (Plan plan : plans) {
+            System.out.println(plan.getIdNumber() + "," + plan.getProgram() + "," + plan.getTerms().size() + ","
+                    + plan.getLongestChain() + "," + plan.getUnscheduled().size() + "," + plan.getMissedElectives());
+            slowest = Math.max(slowest, plan.getElapsedNanos());
+        }
+        System.out.printf("%d students planned in %.2f s, slowest plan %.2f ms%n", plans.size(), elapsed / 1e9,
+                slowest / 1e6);
+    }
+
+    /**
+     * Plans every student record of a data folder, several students at a time. In journal mode, changes still in
+     * the grade journal of a student are replayed first. Records that cannot be read are left out.
+     *
+     * @param dataFolder  the folder holding the student record files.
+     * @param parallelism the number of students planned at the same time.
+     * @return the plans, in file name order.
+     */
+    public List<Plan> planCohort(File dataFolder, int parallelism) {
+        File[] records = dataFolder.listFiles((dir, name) -> name.endsWith(".ser"));
+        if (records == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(records);
+        boolean journaled = GradeJournal.appliesTo(dataFolder);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> Arrays.stream(records).parallel()
+                    .map(record -> planRecord(record, journaled))
+                    .filter(plan -> plan != null)
+                    .collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads and plans one record file.
+     *
+     * @return the plan, or null if the record cannot be read.
+     */
+    private Plan planRecord(File record, boolean journaled) {
+        try {
+            Curriculum curriculum = Curriculum.readRecord(record);
+            if (journaled) {
+                new GradeJournal(record.getName()).replay(curriculum);
+            }
+            return plan(curriculum);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Plans the remaining courses and elective slots of a student.
+     *
+     * @param curriculum the curriculum of the student.
+     * @return the plan.
+     */
+    public Plan plan(Curriculum curriculum) {
+        long start = System.nanoTime();
+        PassedCourses passedCourses = curriculum.getPassedCourses();
+        EligibilityEngine engine = passedCourses.getEngine();
+        PrerequisiteGraph graph = engine.getGraph();
+        CourseList courses = curriculum.courses;
+
+        // Courses being taken count as passed, and the plan starts after the last term with any progress
+        long[] available = passedCourses.bits().clone();
+        Set<String> done = new HashSet<>();
+        byte lastYear = 0;
+        byte lastSemester = 0;
+        for (Course course : courses) {
+            boolean progress = course.getGrade() > 0 || course.isTaking();
+            if (PassedCourses.isPassing(course.getGrade()) || course.isTaking()) {
+                done.add(course.getCourseNo());
+                int id = graph.idOf(course.getCourseNo());
+                if (id != -1) {
+                    EligibilityEngine.set(available, id);
+                }
+            }
+            if (progress && (course.getYear() > lastYear
+                    || (course.getYear() == lastYear && course.getSemester() > lastSemester))) {
+                lastYear = course.getYear();
+                lastSemester = course.getSemester();
+            }
+        }
+
+        // The courses still to take, once per course number
+        List<Course> remaining = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        boolean[] remainingIds = new boolean[graph.size()];
+        for (Course course : courses) {
+            if (course.getYear() == 0) {
+                continue; // The end marker of old course files
+            }
+            if (!done.contains(course.getCourseNo()) && seen.add(course.getCourseNo())) {
+                remaining.add(course);
+                int id = graph.idOf(course.getCourseNo());
+                if (id != -1) {
+                    remainingIds[id] = true;
+                }
+            }
+        }
+
+        // A course can be planned once every prerequisite is passed or can itself be planned
+        boolean[] plannable = new boolean[graph.size()];
+        int[] chain = new int[graph.size()];
+        int[] order = engine.topologicalOrder();
+        for (int id : order) {
+            boolean ok = true;
+            for (int prerequisite : graph.prerequisitesOf(id)) {
+                if (!EligibilityEngine.contains(available, prerequisite)
+                        && !(remainingIds[prerequisite] && plannable[prerequisite])) {
+                    ok = false;
+                    break;
+                }
+            }
+            plannable[id] = ok;
+        }
+        for (int i = order.length - 1; i >= 0; i--) {
+            int id = order[i];
+            if (remainingIds[id] && plannable[id]) {
+                int longest = 0;
+                for (int dependent : engine.dependentsOf(id)) {
+                    longest = Math.max(longest, chain[dependent]);
+                }
+                chain[id] = longest + 1;
+            }
+        }
+
+        List<Course> pending = new ArrayList<>();
+        List<String> unscheduled = new ArrayList<>();
+        int longestChain = 0;
+        for (Course course : remaining) {
+            int id = graph.idOf(course.getCourseNo());
+            if (id == -1 || plannable[id]) {
+                pending.add(course);
+                longestChain = Math.max(longestChain, id == -1 ? 1 : chain[id]);
+            } else {
+                unscheduled.add(course.getCourseNo());
+            }
+        }
+        // Longest chain first; ties keep the order of the curriculum, which the sort leaves in place
+        pending.sort(Comparator.comparingInt((Course course) -> {
+            int id = graph.idOf(course.getCourseNo());
+            return id == -1 ? 1 : chain[id];
+        }).reversed());
+
+        CurriculumService service = new CurriculumService(curriculum);
+        int[] openSlots = new int[LAST_ELECTIVE_YEAR + 1];
+        for (byte year = FIRST_ELECTIVE_YEAR; year <= LAST_ELECTIVE_YEAR; year++) {
+            openSlots[year] = Math.max(0, CurriculumService.maxElectivesInYear(year) - service.countElectivesInYear(year));
+        }
+        List<Elective> candidates = new ArrayList<>();
+        for (Elective elective : curriculum.electives) {
+            int id = graph.idOf(elective.getCourseNo());
+            if (!elective.getSelected() && !done.contains(elective.getCourseNo()) && (id == -1 || plannable[id])) {
+                candidates.add(elective);
+            }
+        }
+
+        List<Term> terms = new ArrayList<>();
+        byte year = lastYear == 0 ? 1 : lastYear;
+        byte semester = lastYear == 0 ? 1 : (byte) (lastSemester + 1);
+        int missedElectives = 0;
+        while (year <= MAX_YEARS) {
+            if (semester > 3 || (semester == 3 && maxSummerUnits <= 0)) {
+                year++;
+                semester = 1;
+                continue;
+            }
+            if (pending.isEmpty() && (year > LAST_ELECTIVE_YEAR || openSlotsFrom(openSlots, year) == 0 || candidates.isEmpty())) {
+                break;
+            }
+            float cap = semester == 3 ? maxSummerUnits : maxUnits;
+            Term term = new Term(year, semester);
+            List<Integer> planned = new ArrayList<>();
+
+            fill(term, pending, graph, engine, chain, available, planned, cap, true);
+            if (year >= FIRST_ELECTIVE_YEAR && year <= LAST_ELECTIVE_YEAR) {
+                for (int i = 0; i < candidates.size() && openSlots[year] > 0; i++) {
+                    Elective elective = candidates.get(i);
+                    int id = graph.idOf(elective.getCourseNo());
+                    float units = elective.getUnit() + elective.getUnit2();
+                    if (engine.canTake(id, available) && fits(term, units, cap)) {
+                        term.electives.add(elective);
+                        term.units += units;
+                        openSlots[year]--;
+                        candidates.remove(i--);
+                        if (id != -1) {
+                            planned.add(id);
+                        }
+                    }
+                }
+            }
+            fill(term, pending, graph, engine, chain, available, planned, cap, false);
+
+            for (int id : planned) {
+                EligibilityEngine.set(available, id);
+            }
+            terms.add(term);
+            if (semester == 3 || (semester == 2 && maxSummerUnits <= 0)) {
+                if (year >= FIRST_ELECTIVE_YEAR && year <= LAST_ELECTIVE_YEAR) {
+                    missedElectives += openSlots[year];
+                    openSlots[year] = 0;
+                }
+            }
+            semester++;
+        }
+        for (Course course : pending) {
+            unscheduled.add(course.getCourseNo());
+        }
+        for (byte y = FIRST_ELECTIVE_YEAR; y <= LAST_ELECTIVE_YEAR; y++) {
+            missedElectives += openSlots[y];
+        }
+        // Terms at the end that only waited for an elective year hold nothing
+        while (!terms.isEmpty() && terms.get(terms.size() - 1).isEmpty()) {
+            terms.remove(terms.size() - 1);
+        }
+        return new Plan(curriculum.getIdNumber(), curriculum.getProgram(), terms, unscheduled, missedElectives,
+                longestChain, System.nanoTime() - start);
+    }
+
+    /**
+     * Adds the ready courses of one pass to a term, in priority order, as long as they fit.
+     *
+     * @param waitedOn true for the courses that other courses wait on, false for the courses nothing waits on.
+     */
+    private static void fill(Term term, List<Course> pending, PrerequisiteGraph graph, EligibilityEngine engine,
+                             int[] chain, long[] available, List<Integer> planned, float cap, boolean waitedOn) {
+        for (int i = 0; i < pending.size(); i++) {
+            Course course = pending.get(i);
+            int id = graph.idOf(course.getCourseNo());
+            if ((id != -1 && chain[id] > 1) != waitedOn) {
+                continue;
+            }
+            if (engine.canTake(id, available) && fits(term, course.getUnit(), cap)) {
+                term.courses.add(course);
+                term.units += course.getUnit();
+                pending.remove(i--);
+                if (id != -1) {
+                    planned.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a course fits in a term. A course heavier than the cap only fits in an empty term.
+     */
+    private static boolean fits(Term term, float units, float cap) {
+        return term.isEmpty() || term.units + units <= cap;
+    }
+
+    /**
+     * Counts the elective slots still open in a year and the years after it.
+     */
+    private static int openSlotsFrom(int[] openSlots, byte year) {
+        int open = 0;
+        for (int y = Math.max(year, FIRST_ELECTIVE_YEAR); y < openSlots.length; y++) {
+            open += openSlots[y];
+        }
+        return open;
+    }
+
+    /**
+     * One planned term.
+     */
+    public static final class Term {
+        private final byte year;
+        private final byte semester;
+        private final List<Course> courses = new ArrayList<>();
+        private final List<Elective> electives = new ArrayList<>();
+        private float units;
+
+        private Term(byte year, byte semester) {
+            this.year = year;
+            this.semester = semester;
+        }
+
+        /**
+         * Gets the year of the term.
+         *
+         * @return the year.
+         */
+        public byte getYear() {
+            return year;
+        }
+
+        /**
+         * Gets the semester of the term; 3 is the summer term.
+         *
+         * @return the semester.
+         */
+        public byte getSemester() {
+            return semester;
+        }
+
+        /**
+         * Gets the curriculum courses planned for the term.
+         *
+         * @return the planned courses.
+         */
+        public List<Course> getCourses() {
+            return courses;
+        }
+
+        /**
+         * Gets the electives suggested for the open elective slots of the term.
+         *
+         * @return the suggested electives.
+         */
+        public List<Elective> getElectives() {
+            return electives;
+        }
+
+        /**
+         * Gets the total units planned for the term, counting the lab units of electives.
+         *
+         * @return the units of the term.
+         */
+        public float getUnits() {
+            return units;
+        }
+
+        /**
+         * Checks if nothing is planned for the term.
+         *
+         * @return true if the term holds no course and no elective, false otherwise.
+         */
+        public boolean isEmpty() {
+            return courses.isEmpty() && electives.isEmpty();
+        }
+    }
+
+    /**
+     * The plan of one student.
+     */
+    public static final class Plan {
+        private final String idNumber;
+        private final String program;
+        private final List<Term> terms;
+        private final List<String> unscheduled;
+        private final int missedElectives;
+        private final int longestChain;
+        private final long elapsedNanos;
+
+        private Plan(String idNumber, String program, List<Term> terms, List<String> unscheduled, int missedElectives,
+                     int longestChain, long elapsedNanos) {
+            this.idNumber = idNumber;
+            this.program = program;
+            this.terms = terms;
+            this.unscheduled = unscheduled;
+            this.missedElectives = missedElectives;
+            this.longestChain = longestChain;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the ID number of the student.
+         *
+         * @return the ID number.
+         */
+        public String getIdNumber() {
+            return idNumber;
+        }
+
+        /**
+         * Gets the program of the student.
+         *
+         * @return the program.
+         */
+        public String getProgram() {
+            return program;
+        }
+
+        /**
+         * Gets the planned terms, in order.
+         *
+         * @return the terms of the plan.
+         */
+        public List<Term> getTerms() {
+            return terms;
+        }
+
+        /**
+         * Gets the courses that could not be planned.
+         *
+         * @return the course numbers of the unscheduled courses.
+         */
+        public List<String> getUnscheduled() {
+            return unscheduled;
+        }
+
+        /**
+         * Gets the number of elective slots that could not be planned within their year.
+         *
+         * @return the number of missed elective slots.
+         */
+        public int getMissedElectives() {
+            return missedElectives;
+        }
+
+        /**
+         * Gets the length of the longest chain of remaining courses, each a prerequisite of the next.
+         * No plan can finish in fewer terms.
+         *
+         * @return the longest chain, in terms.
+         */
+        public int getLongestChain() {
+            return longestChain;
+        }
+
+        /**
+         * Gets the time it took to make the plan.
+         *
+         * @return the time in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Term term : terms) {
+                text.append(String.format("Year %d Semester %d (%.1f units)%n", term.getYear(), term.getSemester(),
+                        term.getUnits()));
+                for (Course course : term.getCourses()) {
+                    text.append(String.format("    %-15s%-80s%-6s%n", course.getCourseNo(), course.getCourseName(),
+                            course.getUnit()));
+                }
+                for (Elective elective : term.getElectives()) {
+                    text.append(String.format("    %-15s%-80s%-6s%n", elective.getCourseNo(),
+                            "Elective: " + elective.getCourseName(), elective.getUnit() + elective.getUnit2()));
+                }
+            }
+            text.append(String.format("%d terms remaining (the longest prerequisite chain needs %d)%n", terms.size(),
+                    longestChain));
+            if (!unscheduled.isEmpty()) {
+                text.append("Cannot be planned: ").append(String.join(", ", unscheduled)).append(System.lineSeparator());
+            }
+            if (missedElectives > 0) {
+                text.append(missedElectives).append(" elective slot(s) cannot be planned within their year")
+                        .append(System.lineSeparator());
+            }
+            return text.toString();
+        }
+    }
+}
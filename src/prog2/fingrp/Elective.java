@@ -12,6 +12,7 @@ public class Elective extends AbstractCourse implements Serializable {
      * Template in file: CourseNo, Coursename, unit1, unit2, selected, canBeTaken
      * Example: ITE 11,Advanced Networking,3,1,false,true
      */
+     private static final long serialVersionUID = 6457927677199505318L;
      protected float unit2;
      protected boolean selected;
      protected boolean canBeTaken;
@@ -0,0 +1,356 @@
+package prog2.fingrp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class EligibilityEngine {
+    /**
+     * <p>Answers eligibility questions for one {@link PrerequisiteGraph} with bitsets. Every course of the graph
+     * already has a dense id; the engine turns the direct prerequisites of each course, its transitive prerequisites
+     * and the courses that transitively depend on it into {@code long[]} bitsets indexed by those ids. A student's
+     * passed courses are kept the same way (see {@link PassedCourses}), so "can take X", "what can I take next" and
+     * "what is still blocked by X" are word-wise AND and ANDNOT operations over a few longs.</p>
+     *
+     * <p>The engine is compiled once per graph, when the graph is parsed, and is shared by every curriculum of the
+     * program. Compiling also looks for prerequisite cycles: a course that is its own transitive prerequisite can
+     * never be taken, so such courses are reported once on standard error and can be listed with
+     * {@link #getCyclicCourses()}.</p>
+     *
+     * <p>Bitsets passed in and returned are {@link #words()} longs long. The engine itself is immutable and can be
+     * used from any thread.</p>
+     */
+    private final PrerequisiteGraph graph;
+    private final int words;
+    private final long[][] direct;
+    private final long[][] closure;
+    private final long[][] dependents;
+    private final int[][] requiredBy;
+    private final int[] order;
+    private final long[] cyclic;
+
+    /**
+     * Compiles the bitsets of a prerequisite graph.
+     *
+     * @param graph the graph to compile.
+     */
+    EligibilityEngine(PrerequisiteGraph graph) {
+        this.graph = graph;
+        int size = graph.size();
+        this.words = (size + 63) >>> 6;
+        this.direct = new long[size][words];
+        this.closure = new long[size][];
+        this.dependents = new long[size][words];
+        this.cyclic = new long[words];
+
+        // Kahn's algorithm: a course is closed once all of its prerequisites are
+        int[] waitingOn = new int[size];
+        int[][] required = new int[size][];
+        this.requiredBy = required;
+        int[] requiredCount = new int[size];
+        for (int course = 0; course < size; course++) {
+            for (int prerequisite : graph.prerequisitesOf(course)) {
+                if (!contains(direct[course], prerequisite)) {
+                    set(direct[course], prerequisite);
+                    waitingOn[course]++;
+                    requiredCount[prerequisite]++;
+                }
+            }
+        }
+        for (int course = 0; course < size; course++) {
+            required[course] = new int[requiredCount[course]];
+            requiredCount[course] = 0;
+        }
+        for (int course = 0; course < size; course++) {
+            for (int prerequisite = nextSetBit(direct[course], 0); prerequisite != -1;
+                 prerequisite = nextSetBit(direct[course], prerequisite + 1)) {
+                required[prerequisite][requiredCount[prerequisite]++] = course;
+            }
+        }
+
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int course = 0; course < size; course++) {
+            if (waitingOn[course] == 0) {
+                queue[tail++] = course;
+            }
+        }
+        while (head < tail) {
+            int course = queue[head++];
+            closure[course] = widen(course);
+            for (int dependent : required[course]) {
+                if (--waitingOn[dependent] == 0) {
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+
+        this.order = Arrays.copyOf(queue, tail);
+
+        // Whatever is left sits on a cycle or behind one; widen those closures until they stop growing
+        if (tail < size) {
+            for (int course = 0; course < size; course++) {
+                if (closure[course] == null) {
+                    closure[course] = new long[words];
+                }
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int course = 0; course < size; course++) {
+                    if (waitingOn[course] != 0) {
+                        long[] widened = widen(course);
+                        if (!Arrays.equals(widened, closure[course])) {
+                            closure[course] = widened;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int course = 0; course < size; course++) {
+            long[] prerequisites = closure[course];
+            for (int prerequisite = nextSetBit(prerequisites, 0); prerequisite != -1;
+                 prerequisite = nextSetBit(prerequisites, prerequisite + 1)) {
+                set(dependents[prerequisite], course);
+            }
+            if (contains(prerequisites, course)) {
+                set(cyclic, course);
+            }
+        }
+        if (hasCycles()) {
+            System.err.println("Prerequisite cycle in " + graph.getProgram() + ": " + getCyclicCourses());
+        }
+    }
+
+    /**
+     * Builds the transitive prerequisites of a course from the closures of its direct prerequisites.
+     */
+    private long[] widen(int course) {
+        long[] result = direct[course].clone();
+        long[] prerequisites = direct[course];
+        for (int prerequisite = nextSetBit(prerequisites, 0); prerequisite != -1;
+             prerequisite = nextSetBit(prerequisites, prerequisite + 1)) {
+            long[] inherited = closure[prerequisite];
+            if (inherited != null) {
+                for (int w = 0; w < words; w++) {
+                    result[w] |= inherited[w];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the graph the engine was compiled from.
+     *
+     * @return the prerequisite graph.
+     */
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the number of longs in a bitset of the engine.
+     *
+     * @return the length of a bitset.
+     */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Checks if every direct prerequisite of a course is in a set of passed courses.
+     *
+     * @param id     the id of the course, or -1 for a course that is not in the graph.
+     * @param passed the passed courses.
+     * @return true if the course has no prerequisites left to pass, false otherwise.
+     */
+    public boolean canTake(int id, long[] passed) {
+        if (id == -1) {
+            return true;
+        }
+        long[] required = direct[id];
+        for (int w = 0; w < words; w++) {
+            if ((required[w] & ~passed[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets every course of the graph that is not passed yet and whose direct prerequisites are all passed,
+     * the courses that can be taken next term.
+     *
+     * @param passed the passed courses.
+     * @return the ids of the eligible courses.
+     */
+    public long[] eligible(long[] passed) {
+        long[] result = new long[words];
+        for (int id = 0; id < direct.length; id++) {
+            if (!contains(passed, id) && canTake(id, passed)) {
+                set(result, id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets every course that cannot be taken until a course is passed: the courses that transitively depend on it
+     * and are not passed yet. A course that is already passed blocks nothing.
+     *
+     * @param id     the id of the blocking course, or -1 for a course that is not in the graph.
+     * @param passed the passed courses.
+     * @return the ids of the blocked courses.
+     */
+    public long[] blockedBy(int id, long[] passed) {
+        long[] result = new long[words];
+        if (id == -1 || contains(passed, id)) {
+            return result;
+        }
+        long[] blocked = dependents[id];
+        for (int w = 0; w < words; w++) {
+            result[w] = blocked[w] & ~passed[w];
+        }
+        return result;
+    }
+
+    /**
+     * Gets every transitive prerequisite of a course that is not passed yet.
+     *
+     * @param id     the id of the course, or -1 for a course that is not in the graph.
+     * @param passed the passed courses.
+     * @return the ids of the missing prerequisites.
+     */
+    public long[] missingFor(int id, long[] passed) {
+        long[] result = new long[words];
+        if (id == -1) {
+            return result;
+        }
+        long[] required = closure[id];
+        for (int w = 0; w < words; w++) {
+            result[w] = required[w] & ~passed[w];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the ids of the courses that list a course as a direct prerequisite, the reverse of
+     * {@link PrerequisiteGraph#prerequisitesOf(int)}. The returned array is shared and must not be modified.
+     *
+     * @param id the id of the course.
+     * @return the ids of the direct dependents.
+     */
+    public int[] dependentsOf(int id) {
+        return requiredBy[id];
+    }
+
+    /**
+     * Gets the ids of the courses in an order where every course comes after its prerequisites. Courses on a cycle,
+     * or behind one, have no such place and are left out. The returned array is shared and must not be modified.
+     *
+     * @return the ids in topological order.
+     */
+    public int[] topologicalOrder() {
+        return order;
+    }
+
+    /**
+     * Gets the ids of the transitive prerequisites of a course. The returned bitset is shared and must not be modified.
+     *
+     * @param id the id of the course.
+     * @return the transitive prerequisites.
+     */
+    public long[] closureOf(int id) {
+        return closure[id];
+    }
+
+    /**
+     * Checks if the graph has a prerequisite cycle.
+     *
+     * @return true if some course is its own transitive prerequisite, false otherwise.
+     */
+    public boolean hasCycles() {
+        for (long word : cyclic) {
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the courses that are their own transitive prerequisite.
+     *
+     * @return the course numbers on a prerequisite cycle.
+     */
+    public List<String> getCyclicCourses() {
+        return codesOf(cyclic);
+    }
+
+    /**
+     * Turns a bitset of the engine into course numbers, in id order.
+     *
+     * @param set the bitset.
+     * @return the course numbers of the ids in the set.
+     */
+    public List<String> codesOf(long[] set) {
+        List<String> codes = new ArrayList<>();
+        for (int id = nextSetBit(set, 0); id != -1; id = nextSetBit(set, id + 1)) {
+            codes.add(graph.codeOf(id));
+        }
+        return codes;
+    }
+
+    /**
+     * Checks if an id is in a bitset.
+     *
+     * @param set the bitset.
+     * @param id  the id to check.
+     * @return true if the id is in the set, false otherwise.
+     */
+    public static boolean contains(long[] set, int id) {
+        return (set[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Adds an id to a bitset.
+     */
+    static void set(long[] set, int id) {
+        set[id >>> 6] |= 1L << id;
+    }
+
+    /**
+     * Removes an id from a bitset.
+     */
+    static void clear(long[] set, int id) {
+        set[id >>> 6] &= ~(1L << id);
+    }
+
+    /**
+     * Finds the first id of a bitset at or after a position.
+     *
+     * @param set  the bitset.
+     * @param from the position to start at.
+     * @return the id, or -1 if there is none.
+     */
+    public static int nextSetBit(long[] set, int from) {
+        int w = from >>> 6;
+        if (w >= set.length) {
+            return -1;
+        }
+        long word = set[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == set.length) {
+                return -1;
+            }
+            word = set[w];
+        }
+    }
+}
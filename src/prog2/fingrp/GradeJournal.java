@@ -0,0 +1,555 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+final class GradeJournal {
+    /**
+     * <p>An append-only log of the grade changes of one student, kept next to the record file as
+     * {@code <id><program>.journal}. Journal mode is turned on with the {@code checklist.journal} system property.
+     * In journal mode, grade edits, added courses and taken electives each append one small record instead of
+     * rewriting the whole record file. Every other change writes a full snapshot and empties the journal.</p>
+     *
+     * <p>Records refer to courses by their position in the course list. Replaying the records in order on the
+     * snapshot they were written after rebuilds exactly the same list.</p>
+     *
+     * <p>Once the journal grows past {@code checklist.journalCompactBytes} (default 4096 bytes), a background
+     * compactor folds it into the snapshot. The compactor reads the snapshot from disk, replays the journal onto it,
+     * writes the new snapshot and then empties the journal, holding the lock of the student throughout (see
+     * {@link StudentLocks}) so appends, from this process or another, wait for it. The snapshot stores the sequence number of the last record folded into it, so records that are already
+     * in the snapshot are skipped if the compactor is interrupted between those two writes. Folded records are moved
+     * to {@code <id><program>.history}, which keeps the full grade-change history.</p>
+     *
+     * <p>Before appending, the journal checks that the snapshot still has the record version the curriculum was read
+     * at and that the journal ends with the record before the new one. Otherwise another session wrote in between,
+     * and the record would be replayed onto courses the curriculum has not seen, so it is not appended and the
+     * curriculum is marked stale.</p>
+     *
+     * <p>Changes made in the windows are written by one background thread, in the order they were made, so the
+     * Swing thread never waits for the journal or the snapshot. The records and snapshots are built on the thread
+     * that changes the curriculum, which also numbers the records; the writer thread only checks the files and
+     * writes the bytes. {@link #awaitWrites()} waits for everything queued so far, and is called when a curriculum
+     * is flushed and when the JVM shuts down.</p>
+     *
+     * <p>File layout: a 16-byte header ('S' 'L' 'U' 'J', version, 3 reserved bytes, sequence number of the record
+     * before the first one in the file) followed by 24-byte records:</p>
+     * <pre>
+     * op byte, flags byte, position u16, year byte, semester byte, continuation count u16,
+     * grade float, unit float, time millis long
+     * </pre>
+     * <p>Each record is followed by continuation records holding the course number in UTF-8, and for an added
+     * course also its name. A continuation record is the op byte 4 followed by 23 bytes of text.</p>
+     */
+    static final boolean ENABLED = Boolean.getBoolean("checklist.journal");
+    static final long COMPACT_THRESHOLD_BYTES = Long.getLong("checklist.journalCompactBytes", 4096);
+
+    static final byte GRADE = 1;
+    static final byte ADD_COURSE = 2;
+    static final byte TAKE_ELECTIVE = 3;
+    private static final byte CONTINUATION = 4;
+    private static final byte TAKING = 1;
+
+    static final int RECORD_SIZE = 24;
+    private static final int HEADER_SIZE = 16;
+    private static final int VERSION = 1;
+    private static final byte[] MAGIC = {'S', 'L', 'U', 'J'};
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(GradeJournal::awaitWrites, "journal-flush"));
+        }
+    }
+
+    private final File journal;
+    private final File history;
+    private final File snapshot;
+
+    /**
+     * Opens the journal of a record file. Nothing is created on disk until the first record is appended.
+     *
+     * @param recordFileName the name of the record file in the data folder.
+     */
+    GradeJournal(String recordFileName) {
+        String baseName = recordFileName.substring(0, recordFileName.lastIndexOf('.'));
+        this.journal = new File(Curriculum.DATA_FILE_LOCATION + baseName + ".journal");
+        this.history = new File(Curriculum.DATA_FILE_LOCATION + baseName + ".history");
+        this.snapshot = new File(Curriculum.DATA_FILE_LOCATION + recordFileName);
+    }
+
+    /**
+     * Checks if the record files of a data folder are kept with grade journals, which is the case for the
+     * application's own data folder when journal mode is on. Tools working on record files directly use this to
+     * decide whether to replay the journal first.
+     *
+     * @param dataFolder the folder holding the record files.
+     * @return true if the record files of the folder have journals.
+     */
+    static boolean appliesTo(File dataFolder) {
+        return ENABLED && dataFolder.getAbsoluteFile().equals(new File(Curriculum.DATA_FILE_LOCATION).getAbsoluteFile());
+    }
+
+    /**
+     * Appends a grade change of a course.
+     *
+     * @param curriculum the curriculum that changed.
+     * @param position   the position of the course in the course list.
+     */
+    void appendGrade(Curriculum curriculum, int position) {
+        Course course = curriculum.courses.get(position);
+        append(curriculum, records(GRADE, position, course.getYear(), course.getSemester(),
+                course.getGrade(), course.getUnit(), course.isTaking(), course.getCourseNo()));
+    }
+
+    /**
+     * Appends a course that was added to the course list.
+     *
+     * @param curriculum the curriculum that changed.
+     * @param position   the position the course was inserted at.
+     * @param course     the course that was added.
+     */
+    void appendAddedCourse(Curriculum curriculum, int position, Course course) {
+        append(curriculum, records(ADD_COURSE, position, course.getYear(), course.getSemester(),
+                course.getGrade(), course.getUnit(), course.isTaking(), course.getCourseNo() + "\n" + course.getCourseName()));
+    }
+
+    /**
+     * Appends an elective that was taken.
+     *
+     * @param curriculum the curriculum that changed.
+     * @param position   the position of the elective in the elective list.
+     * @param year       the year the elective is taken in.
+     * @param semester   the semester the elective is taken in.
+     */
+    void appendTakenElective(Curriculum curriculum, int position, byte year, byte semester) {
+        Elective elective = curriculum.electives.get(position);
+        append(curriculum, records(TAKE_ELECTIVE, position, year, semester, 0, elective.getUnit(), false,
+                elective.getCourseNo()));
+    }
+
+    /**
+     * Builds a fixed-size journal record followed by the continuation records holding its text.
+     * Only the text of added courses is needed for replay; the others keep the course number for the history.
+     */
+    private static byte[] records(byte op, int position, byte year, byte semester,
+                                  float grade, float unit, boolean taking, String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        int continuations = (utf8.length + RECORD_SIZE - 2) / (RECORD_SIZE - 1);
+        ByteBuffer records = ByteBuffer.allocate(RECORD_SIZE * (1 + continuations));
+        records.put(op).put(taking ? TAKING : 0).putShort((short) position).put(year).put(semester)
+                .putShort((short) continuations).putFloat(grade).putFloat(unit).putLong(System.currentTimeMillis());
+        for (int i = 0; i < continuations; i++) {
+            int start = i * (RECORD_SIZE - 1);
+            records.position(RECORD_SIZE * (i + 1));
+            records.put(CONTINUATION);
+            records.put(utf8, start, Math.min(RECORD_SIZE - 1, utf8.length - start));
+        }
+        return records.array();
+    }
+
+    /**
+     * Numbers records as the next ones of a curriculum and queues them for the writer thread.
+     * Called on the thread that changes the curriculum.
+     *
+     * @param curriculum the curriculum the records belong to.
+     * @param records    one record and its continuation records.
+     */
+    private void append(Curriculum curriculum, byte[] records) {
+        long previous = curriculum.getJournalSequence();
+        curriculum.setJournalSequence(previous + 1);
+        WRITER.execute(() -> write(curriculum, previous, records));
+    }
+
+    /**
+     * Appends records to the journal and schedules a compaction once the journal is large enough.
+     * Nothing is appended if another session changed the snapshot or appended to the journal since the curriculum
+     * was read or last changed; the curriculum is marked stale instead. Runs on the writer thread.
+     *
+     * @param curriculum the curriculum the records belong to.
+     * @param previous   the sequence number of the record before them.
+     * @param records    one record and its continuation records.
+     */
+    @SuppressWarnings("try")
+    private void write(Curriculum curriculum, long previous, byte[] records) {
+        long size;
+        try (StudentLocks.Lock lock = StudentLocks.lock(snapshot)) {
+            if (!isCurrent(curriculum, previous)) {
+                curriculum.markStale();
+                System.err.println(snapshot.getName() + " was changed by another session; the change was not saved");
+                return;
+            }
+            if (!journal.exists()) {
+                writeHeader(journal, previous);
+            }
+            try (FileOutputStream out = new FileOutputStream(journal, true)) {
+                out.write(records);
+            }
+            Metrics.count("bytes.written.journal", records.length);
+            size = journal.length();
+        } catch (IOException | RuntimeException e) {
+            // The curriculum has a change the journal does not; it has to be loaded again
+            e.printStackTrace();
+            curriculum.markStale();
+            return;
+        }
+        if (size >= COMPACT_THRESHOLD_BYTES) {
+            COMPACTOR.execute(this::compact);
+        }
+    }
+
+    /**
+     * Checks if the journal file exists, so there may be records to replay.
+     *
+     * @return true if the journal file exists.
+     */
+    boolean exists() {
+        return journal.exists();
+    }
+
+    /**
+     * Replays the records that are not in a curriculum's snapshot yet.
+     *
+     * @param curriculum the curriculum read from the snapshot.
+     * @return the number of records replayed.
+     * @throws IOException if the journal cannot be read.
+     */
+    @SuppressWarnings("try")
+    int replay(Curriculum curriculum) throws IOException {
+        try (StudentLocks.Lock lock = StudentLocks.lock(snapshot)) {
+            if (!journal.exists()) {
+                return 0;
+            }
+            byte[] data = Files.readAllBytes(journal.toPath());
+            Metrics.count("bytes.read.journal", data.length);
+            return replay(curriculum, data);
+        }
+    }
+
+    /**
+     * Replays the records of journal contents that come after the snapshot of a curriculum.
+     * A partly written record at the end of the journal is ignored.
+     *
+     * @param curriculum the curriculum to apply the records to.
+     * @param data       the contents of the journal file.
+     * @return the number of records replayed.
+     */
+    private static int replay(Curriculum curriculum, byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (!hasHeader(data)) {
+            return 0;
+        }
+        long sequence = in.getLong(8);
+        int replayed = 0;
+        int offset = HEADER_SIZE;
+        while (offset + RECORD_SIZE <= data.length) {
+            byte op = in.get(offset);
+            boolean taking = (in.get(offset + 1) & TAKING) != 0;
+            int position = in.getShort(offset + 2) & 0xFFFF;
+            byte year = in.get(offset + 4);
+            byte semester = in.get(offset + 5);
+            int continuations = in.getShort(offset + 6) & 0xFFFF;
+            float grade = in.getFloat(offset + 8);
+            float unit = in.getFloat(offset + 12);
+            int next = offset + RECORD_SIZE * (1 + continuations);
+            if (next > data.length) {
+                break;
+            }
+            sequence++;
+            if (sequence > curriculum.getJournalSequence()) {
+                if (op == GRADE) {
+                    Course course = curriculum.courses.get(position);
+                    course.setGrade(grade);
+                    course.setTaking(taking);
+                } else if (op == ADD_COURSE) {
+                    String[] text = readText(data, offset + RECORD_SIZE, continuations).split("\n", 2);
+                    curriculum.insertCourseAtYearAndSemester(year, semester,
+                            new Course(year, semester, text[0], text[1], unit, grade, taking));
+                } else if (op == TAKE_ELECTIVE) {
+                    curriculum.applyElective(curriculum.electives.get(position), year, semester);
+                }
+                curriculum.setJournalSequence(sequence);
+                replayed++;
+            }
+            offset = next;
+        }
+        return replayed;
+    }
+
+    /**
+     * Reads the text held by the continuation records of an added course.
+     */
+    private static String readText(byte[] data, int offset, int continuations) {
+        byte[] text = new byte[continuations * (RECORD_SIZE - 1)];
+        int length = 0;
+        for (int i = 0; i < continuations; i++) {
+            int start = offset + i * RECORD_SIZE + 1;
+            for (int j = 0; j < RECORD_SIZE - 1 && data[start + j] != 0; j++) {
+                text[length++] = data[start + j];
+            }
+        }
+        return new String(text, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks that a curriculum holds every change on disk: the snapshot has the record version the curriculum was
+     * read at, and the journal ends with the record before the one about to be appended.
+     *
+     * @param curriculum the curriculum to check.
+     * @param previous   the sequence number the journal should end with.
+     * @return true if no other session wrote the snapshot or the journal since.
+     * @throws IOException if the snapshot or the journal cannot be read.
+     */
+    private boolean isCurrent(Curriculum curriculum, long previous) throws IOException {
+        if (curriculum.isStale() || CurriculumCodec.recordVersionOf(snapshot) != curriculum.getRecordVersion()) {
+            return false;
+        }
+        if (!journal.exists()) {
+            return true;
+        }
+        byte[] data = Files.readAllBytes(journal.toPath());
+        return !hasHeader(data) || lastSequence(data) == previous;
+    }
+
+    /**
+     * Gets the sequence number of the last complete record of journal contents.
+     */
+    private static long lastSequence(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        long sequence = in.getLong(8);
+        int offset = HEADER_SIZE;
+        while (offset + RECORD_SIZE <= data.length) {
+            int next = offset + RECORD_SIZE * (1 + (in.getShort(offset + 6) & 0xFFFF));
+            if (next > data.length) {
+                break;
+            }
+            sequence++;
+            offset = next;
+        }
+        return sequence;
+    }
+
+    /**
+     * Writes a snapshot of a curriculum and empties the journal. Used after loading a curriculum whose journal had
+     * records to replay, and by tools working on record files directly.
+     *
+     * @param curriculum the curriculum to write.
+     * @throws IOException if the snapshot or the journal cannot be written.
+     * @throws StaleRecordException if another session wrote the snapshot since the curriculum was read.
+     */
+    void writeSnapshot(Curriculum curriculum) throws IOException {
+        writeSnapshot(curriculum, CurriculumCodec.encode(curriculum), curriculum.getJournalSequence());
+    }
+
+    /**
+     * Encodes a snapshot of a curriculum and queues it for the writer thread, which writes it after the records
+     * queued before it and empties the journal. Used for the changes that are not journaled. Called on the thread
+     * that changes the curriculum.
+     *
+     * @param curriculum the curriculum to write.
+     */
+    void queueSnapshot(Curriculum curriculum) {
+        byte[] record = CurriculumCodec.encode(curriculum);
+        long sequence = curriculum.getJournalSequence();
+        WRITER.execute(() -> {
+            try {
+                writeSnapshot(curriculum, record, sequence);
+            } catch (StaleRecordException e) {
+                System.err.println(e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Writes an encoded snapshot and empties the journal.
+     *
+     * @param curriculum the curriculum the snapshot was encoded from.
+     * @param record     the encoded snapshot.
+     * @param sequence   the sequence number of the last record in the snapshot.
+     */
+    @SuppressWarnings("try")
+    private void writeSnapshot(Curriculum curriculum, byte[] record, long sequence) throws IOException {
+        try (StudentLocks.Lock lock = StudentLocks.lock(snapshot)) {
+            curriculum.writeChecked(snapshot, record);
+            if (journal.exists()) {
+                moveToHistory(Files.readAllBytes(journal.toPath()));
+                writeHeader(journal, sequence);
+            }
+        }
+    }
+
+    /**
+     * Waits until the journal records and snapshots queued so far are written.
+     */
+    static void awaitWrites() {
+        try {
+            WRITER.submit(() -> {
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Folds the journal into the snapshot on disk. Runs on the compactor thread.
+     */
+    @SuppressWarnings("try")
+    private void compact() {
+        try (StudentLocks.Lock lock = StudentLocks.lock(snapshot)) {
+            if (!journal.exists() || journal.length() < COMPACT_THRESHOLD_BYTES) {
+                return;
+            }
+            byte[] data = Files.readAllBytes(journal.toPath());
+            Curriculum folded = Curriculum.readRecord(snapshot);
+            replay(folded, data);
+            long sequence = folded.getJournalSequence();
+            // The record version is kept: the folded snapshot holds the same changes as the live curriculum
+            Curriculum.writeAtomically(snapshot, CurriculumCodec.encode(folded));
+            moveToHistory(data);
+            writeHeader(journal, sequence);
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Appends the complete records of journal contents to the history file.
+     */
+    private void moveToHistory(byte[] data) throws IOException {
+        if (!hasHeader(data)) {
+            return;
+        }
+        int length = completeLength(data) - HEADER_SIZE;
+        if (length > 0) {
+            try (FileOutputStream out = new FileOutputStream(history, true)) {
+                out.write(data, HEADER_SIZE, length);
+            }
+        }
+    }
+
+    /**
+     * Gets the length of journal contents up to the end of the last complete record and its continuation records.
+     */
+    private static int completeLength(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        int offset = HEADER_SIZE;
+        while (offset + RECORD_SIZE <= data.length) {
+            int next = offset + RECORD_SIZE * (1 + (in.getShort(offset + 6) & 0xFFFF));
+            if (next > data.length) {
+                break;
+            }
+            offset = next;
+        }
+        return offset;
+    }
+
+    /**
+     * Reads the grade-change history of the student: every folded record followed by the records still in the
+     * journal.
+     *
+     * @return the history entries, oldest first.
+     * @throws IOException if the history or the journal cannot be read.
+     */
+    @SuppressWarnings("try")
+    List<Entry> history() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (StudentLocks.Lock lock = StudentLocks.lock(snapshot)) {
+            if (history.exists()) {
+                readEntries(Files.readAllBytes(history.toPath()), 0, entries);
+            }
+            if (journal.exists()) {
+                byte[] data = Files.readAllBytes(journal.toPath());
+                if (hasHeader(data)) {
+                    readEntries(data, HEADER_SIZE, entries);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void readEntries(byte[] data, int offset, List<Entry> entries) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        while (offset + RECORD_SIZE <= data.length) {
+            int continuations = in.getShort(offset + 6) & 0xFFFF;
+            int next = offset + RECORD_SIZE * (1 + continuations);
+            if (next > data.length) {
+                break;
+            }
+            String courseNo = readText(data, offset + RECORD_SIZE, continuations).split("\n", 2)[0];
+            entries.add(new Entry(in.get(offset), courseNo, in.get(offset + 4), in.get(offset + 5),
+                    in.getFloat(offset + 8), in.getLong(offset + 16)));
+            offset = next;
+        }
+    }
+
+    private static boolean hasHeader(byte[] data) {
+        return data.length >= HEADER_SIZE && data[0] == MAGIC[0] && data[1] == MAGIC[1]
+                && data[2] == MAGIC[2] && data[3] == MAGIC[3];
+    }
+
+    private static byte[] header(long sequence) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put((byte) VERSION).position(8);
+        header.putLong(sequence);
+        return header.array();
+    }
+
+    private static void writeHeader(File file, long sequence) throws IOException {
+        Curriculum.writeAtomically(file, header(sequence));
+    }
+
+    /**
+     * One change in the grade-change history.
+     */
+    static final class Entry {
+        final byte op;
+        final String courseNo;
+        final byte year;
+        final byte semester;
+        final float grade;
+        final long time;
+
+        Entry(byte op, String courseNo, byte year, byte semester, float grade, long time) {
+            this.op = op;
+            this.courseNo = courseNo;
+            this.year = year;
+            this.semester = semester;
+            this.grade = grade;
+            this.time = time;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "op=" + op +
+                    ", courseNo='" + courseNo + '\'' +
+                    ", year=" + year +
+                    ", semester=" + semester +
+                    ", grade=" + grade +
+                    ", time=" + time +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package prog2.fingrp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+    /**
+     * <p>Counts durations in nanoseconds in log-linear buckets, the layout HdrHistogram uses: every power of two is
+     * split into 16 equal buckets, so a recorded value is off by at most 1/16 of itself, about 6%, from its bucket.
+     * 640 buckets cover everything from 1 ns to about two hours; longer durations fall into the last bucket.</p>
+     *
+     * <p>Recording is one array increment and two adders, without locks, so a histogram can be shared by every
+     * thread that times the same operation. Reading a percentile while values are being recorded gives an answer
+     * that is off by at most the values recorded meanwhile.</p>
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds; negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        long previous = max.get();
+        while (value > previous && !max.compareAndSet(previous, value)) {
+            previous = max.get();
+        }
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of the recorded durations.
+     *
+     * @return the total in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the maximum in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Gets the duration below which a share of the recorded durations fall, to the precision of the buckets.
+     *
+     * @param percentile the share, from 0 to 100.
+     * @return the highest value of the bucket holding the percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every recorded duration.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    /**
+     * Finds the bucket of a value: values below 16 have a bucket each, and every power of two above is split into
+     * 16 buckets by the four bits after the leading one.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int bucket = (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * Gets the highest value that falls into a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -1,12 +1,17 @@
 package prog2.fingrp;
 
+import javax.swing.SwingUtilities;
+
 public class Main {
 
     public static void main(String[] args){
         /**
-         * Starts the program by creating a new CheckList object
+         * Starts the program by creating a new CheckList object on the event dispatch thread
+         * while the course catalogs are loaded in the background
          */
-        new CheckList();
+        Metrics.start();
+        CourseCatalog.preloadAll();
+        SwingUtilities.invokeLater(CheckList::new);
 
     }
 }
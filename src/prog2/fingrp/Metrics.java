@@ -0,0 +1,270 @@
+package prog2.fingrp;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metrics implements MetricsMXBean {
+    /**
+     * <p>Counters and latency histograms for the paths that touch the disk or keep the user waiting: loading and
+     * saving records, reading prerequisites, checking a login and running each menu option. Counters also hold the
+     * bytes read and written per kind of file, and every cache counts its hits and misses, which are also reported as
+     * a hit rate.</p>
+     *
+     * <p>Metrics are always collected. A timed operation costs two {@link System#nanoTime()} calls and a few
+     * lock-free increments, see {@link LatencyHistogram}. {@link #start()}, called when the application starts,
+     * registers the metrics as the MBean {@code prog2.fingrp:type=Metrics} so JConsole or any JMX client can read
+     * them, and starts a periodic text dump if {@code checklist.metricsDumpSeconds} is set. The dump goes to the
+     * file named by {@code checklist.metricsDumpFile}, or to standard error.</p>
+     *
+     * <p>Typical use: {@code long start = System.nanoTime(); ...; Metrics.stop("curriculum.save", start);}</p>
+     */
+    static final long DUMP_SECONDS = Long.getLong("checklist.metricsDumpSeconds", 0);
+    static final String DUMP_FILE = System.getProperty("checklist.metricsDumpFile");
+    static final String OBJECT_NAME = "prog2.fingrp:type=Metrics";
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static final Map<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder[]> CACHES = new ConcurrentHashMap<>();
+    private static volatile boolean started;
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers the MBean and starts the periodic dump, once per process.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        if (DUMP_SECONDS > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(Metrics::dump, DUMP_SECONDS, DUMP_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Gets the metrics as an MBean.
+     *
+     * @return the shared instance.
+     */
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records the duration of an operation.
+     *
+     * @param operation the name of the operation.
+     * @param start     the {@link System#nanoTime()} at which the operation started.
+     */
+    public static void stop(String operation, long start) {
+        timer(operation).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter the name of the counter.
+     * @param delta   the amount to add.
+     */
+    public static void count(String counter, long delta) {
+        LongAdder adder = COUNTERS.get(counter);
+        if (adder == null) {
+            adder = COUNTERS.computeIfAbsent(counter, k -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    /**
+     * Counts a lookup of a cache as a hit or a miss.
+     *
+     * @param cache the name of the cache.
+     * @param hit   true if the lookup was served from the cache.
+     */
+    public static void cacheLookup(String cache, boolean hit) {
+        LongAdder[] lookups = CACHES.get(cache);
+        if (lookups == null) {
+            lookups = CACHES.computeIfAbsent(cache, k -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        }
+        lookups[hit ? 0 : 1].increment();
+    }
+
+    /**
+     * Gets the histogram of an operation, creating it if it does not exist yet.
+     *
+     * @param operation the name of the operation.
+     * @return the histogram.
+     */
+    public static LatencyHistogram timer(String operation) {
+        LatencyHistogram histogram = TIMERS.get(operation);
+        if (histogram == null) {
+            histogram = TIMERS.computeIfAbsent(operation, k -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * Gets the value of a counter.
+     *
+     * @param counter the name of the counter.
+     * @return the value, or 0 if nothing was counted.
+     */
+    public static long counter(String counter) {
+        LongAdder adder = COUNTERS.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Writes the report to the dump file, or to standard error if there is none.
+     */
+    private static void dump() {
+        String report = INSTANCE.getReport();
+        if (DUMP_FILE == null) {
+            System.err.print(report);
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(DUMP_FILE, true))) {
+            out.print(report);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().sum());
+        }
+        for (Map.Entry<String, LongAdder[]> entry : CACHES.entrySet()) {
+            counters.put("cache." + entry.getKey() + ".hit", entry.getValue()[0].sum());
+            counters.put("cache." + entry.getKey() + ".miss", entry.getValue()[1].sum());
+        }
+        return counters;
+    }
+
+    @Override
+    public Map<String, Double> getCacheHitRates() {
+        Map<String, Double> rates = new TreeMap<>();
+        for (Map.Entry<String, LongAdder[]> entry : CACHES.entrySet()) {
+            long hits = entry.getValue()[0].sum();
+            long lookups = hits + entry.getValue()[1].sum();
+            rates.put(entry.getKey(), lookups == 0 ? 0 : (double) hits / lookups);
+        }
+        return rates;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : TIMERS.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMillis() {
+        Map<String, Double> means = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : TIMERS.entrySet()) {
+            means.put(entry.getKey(), entry.getValue().getMeanNanos() / 1e6);
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Double> getP50Millis() {
+        return percentileMillis(50);
+    }
+
+    @Override
+    public Map<String, Double> getP99Millis() {
+        return percentileMillis(99);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMillis() {
+        Map<String, Double> maximums = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : TIMERS.entrySet()) {
+            maximums.put(entry.getKey(), entry.getValue().getMaxNanos() / 1e6);
+        }
+        return maximums;
+    }
+
+    /**
+     * Gets a percentile of every timed operation in milliseconds.
+     */
+    private static Map<String, Double> percentileMillis(double percentile) {
+        Map<String, Double> values = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : TIMERS.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getPercentileNanos(percentile) / 1e6);
+        }
+        return values;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Metrics at ").append(Instant.now()).append('\n');
+        report.append(String.format("%-32s%10s%12s%12s%12s%12s%n", "Operation", "Count", "Mean (ms)", "p50 (ms)",
+                "p99 (ms)", "Max (ms)"));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(TIMERS).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            report.append(String.format("%-32s%10d%12.3f%12.3f%12.3f%12.3f%n", entry.getKey(), histogram.getCount(),
+                    histogram.getMeanNanos() / 1e6, histogram.getPercentileNanos(50) / 1e6,
+                    histogram.getPercentileNanos(99) / 1e6, histogram.getMaxNanos() / 1e6));
+        }
+        report.append(String.format("%-32s%10s%n", "Counter", "Value"));
+        for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+            report.append(String.format("%-32s%10d%n", entry.getKey(), entry.getValue()));
+        }
+        report.append(String.format("%-32s%10s%n", "Cache", "Hit rate"));
+        for (Map.Entry<String, Double> entry : getCacheHitRates().entrySet()) {
+            report.append(String.format("%-32s%9.1f%%%n", entry.getKey(), entry.getValue() * 100));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : TIMERS.values()) {
+            histogram.reset();
+        }
+        for (LongAdder adder : COUNTERS.values()) {
+            adder.reset();
+        }
+        for (LongAdder[] lookups : CACHES.values()) {
+            lookups[0].reset();
+            lookups[1].reset();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package prog2.fingrp;
+
+import java.util.Map;
+
+public interface MetricsMXBean {
+    /**
+     * Gets the value of every counter, such as the bytes read and written per kind of file and the hits and misses
+     * of each cache.
+     *
+     * @return the counters by name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Gets the hit rate of every cache that counts its hits and misses.
+     *
+     * @return the share of lookups served from the cache, from 0 to 1, by cache name.
+     */
+    Map<String, Double> getCacheHitRates();
+
+    /**
+     * Gets how many times each timed operation ran.
+     *
+     * @return the counts by operation name.
+     */
+    Map<String, Long> getLatencyCounts();
+
+    /**
+     * Gets the mean duration of each timed operation.
+     *
+     * @return the means in milliseconds by operation name.
+     */
+    Map<String, Double> getMeanMillis();
+
+    /**
+     * Gets the median duration of each timed operation.
+     *
+     * @return the medians in milliseconds by operation name.
+     */
+    Map<String, Double> getP50Millis();
+
+    /**
+     * Gets the 99th percentile duration of each timed operation.
+     *
+     * @return the 99th percentiles in milliseconds by operation name.
+     */
+    Map<String, Double> getP99Millis();
+
+    /**
+     * Gets the longest duration of each timed operation.
+     *
+     * @return the maximums in milliseconds by operation name.
+     */
+    Map<String, Double> getMaxMillis();
+
+    /**
+     * Gets every metric as the text of the periodic dump.
+     *
+     * @return the report.
+     */
+    String getReport();
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    void reset();
+}
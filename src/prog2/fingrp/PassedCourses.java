@@ -0,0 +1,182 @@
+package prog2.fingrp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class PassedCourses implements CourseChangeListener {
+    /**
+     * <p>Keeps the passed courses of one student as a bitset over the ids of an {@link EligibilityEngine}, so the
+     * engine can answer eligibility questions for the student without scanning the course list. A course counts as
+     * passed once its grade reaches {@link CurriculumService#PASSING_GRADE}.</p>
+     *
+     * <p>The set is built once from the course list and then kept up to date the same way as
+     * {@link SemesterAggregates}: it observes grade and course number changes through {@link CourseChangeListener}, and inserted and
+     * removed courses are added and subtracted by {@link Curriculum}. A course number that appears more than once
+     * stays passed while any of its courses passes. Courses whose number is not in the graph are ignored.</p>
+     *
+     * <p>The set also keeps the {@code canBeTaken} flag of the student's electives live. Every elective is checked
+     * once when the set is built. After that, only a course that enters or leaves the set can change anything, and
+     * only for the courses that list it as a direct prerequisite, so just the electives among those are checked
+     * again. A grade change costs a walk over the direct dependents of one course instead of a pass over every
+     * elective.</p>
+     *
+     * <p>Like the course list itself, the set is not thread-safe.</p>
+     */
+    private static final Elective[] NO_ELECTIVES = new Elective[0];
+
+    private final EligibilityEngine engine;
+    private final long[] passed;
+    private final int[] counts;
+    private final Elective[][] electivesById;
+
+    /**
+     * Builds the passed set of a list of courses.
+     *
+     * @param engine  the engine whose ids the set uses.
+     * @param courses the courses of the student.
+     */
+    public PassedCourses(EligibilityEngine engine, List<? extends AbstractCourse> courses) {
+        this(engine, courses, Collections.emptyList());
+    }
+
+    /**
+     * Builds the passed set of a list of courses and sets whether each elective can be taken.
+     *
+     * @param engine    the engine whose ids the set uses.
+     * @param courses   the courses of the student.
+     * @param electives the electives of the student, whose {@code canBeTaken} flag is kept up to date.
+     */
+    public PassedCourses(EligibilityEngine engine, List<? extends AbstractCourse> courses, List<Elective> electives) {
+        this.engine = engine;
+        PrerequisiteGraph graph = engine.getGraph();
+        this.passed = new long[engine.words()];
+        this.counts = new int[graph.size()];
+        this.electivesById = new Elective[graph.size()][];
+        for (AbstractCourse course : courses) {
+            add(course);
+        }
+        for (Elective elective : electives) {
+            int id = graph.idOf(elective.getCourseNo());
+            if (id != -1) {
+                Elective[] same = electivesById[id] == null ? NO_ELECTIVES : electivesById[id];
+                Elective[] grown = Arrays.copyOf(same, same.length + 1);
+                grown[same.length] = elective;
+                electivesById[id] = grown;
+            }
+            elective.setcanBeTaken(engine.canTake(id, passed));
+        }
+    }
+
+    /**
+     * Adds a course to the set if it is passed.
+     *
+     * @param course the course to add.
+     */
+    public void add(AbstractCourse course) {
+        apply(course.getCourseNo(), course.getGrade(), 1);
+    }
+
+    /**
+     * Removes a course from the set if it was passed.
+     *
+     * @param course the course to remove.
+     */
+    public void remove(AbstractCourse course) {
+        apply(course.getCourseNo(), course.getGrade(), -1);
+    }
+
+    /**
+     * Moves a course in or out of the set when its grade changes.
+     */
+    @Override
+    public void courseChanged(AbstractCourse course, byte oldYear, byte oldSemester, float oldUnit, float oldGrade) {
+        if (isPassing(oldGrade) != isPassing(course.getGrade())) {
+            apply(course.getCourseNo(), oldGrade, -1);
+            add(course);
+        }
+    }
+
+    /**
+     * Moves a passed course to its new course number.
+     */
+    @Override
+    public void courseNumberChanged(AbstractCourse course, String oldCourseNo) {
+        apply(oldCourseNo, course.getGrade(), -1);
+        add(course);
+    }
+
+    /**
+     * Checks if a grade passes a course for the purpose of prerequisites.
+     *
+     * @param grade the grade.
+     * @return true if the grade is at least the passing grade, false otherwise.
+     */
+    public static boolean isPassing(float grade) {
+        return grade >= CurriculumService.PASSING_GRADE;
+    }
+
+    /**
+     * Gets the engine whose ids the set uses.
+     *
+     * @return the eligibility engine.
+     */
+    public EligibilityEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the passed courses as a bitset. The returned bitset is live and must not be modified.
+     *
+     * @return the ids of the passed courses.
+     */
+    public long[] bits() {
+        return passed;
+    }
+
+    /**
+     * Checks if a course of the graph is passed.
+     *
+     * @param id the id of the course.
+     * @return true if the course is passed, false otherwise.
+     */
+    public boolean contains(int id) {
+        return EligibilityEngine.contains(passed, id);
+    }
+
+    /**
+     * Adds or subtracts a passed course in the counts. When the course enters or leaves the set, its bit is set or
+     * cleared and the electives that depend on it directly are checked again.
+     *
+     * @param courseNo the course number.
+     * @param grade    the grade of the course.
+     * @param sign     1 to add the course, -1 to subtract it.
+     */
+    private void apply(String courseNo, float grade, int sign) {
+        if (!isPassing(grade) || courseNo == null) {
+            return;
+        }
+        int id = engine.getGraph().idOf(courseNo);
+        if (id == -1) {
+            return;
+        }
+        counts[id] += sign;
+        boolean wasPassed = EligibilityEngine.contains(passed, id);
+        if (counts[id] > 0) {
+            EligibilityEngine.set(passed, id);
+        } else {
+            EligibilityEngine.clear(passed, id);
+        }
+        if (wasPassed != counts[id] > 0) {
+            for (int dependent : engine.dependentsOf(id)) {
+                Elective[] affected = electivesById[dependent];
+                if (affected != null) {
+                    boolean canTake = engine.canTake(dependent, passed);
+                    for (Elective elective : affected) {
+                        elective.setcanBeTaken(canTake);
+                    }
+                }
+            }
+        }
+    }
+}
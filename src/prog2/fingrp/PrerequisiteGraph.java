@@ -0,0 +1,267 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public final class PrerequisiteGraph {
+    /**
+     * <p>Represents the compiled prerequisite table of one program, parsed from
+     * {@code <program>prerequisites.txt}. Course numbers are interned to dense integer ids and every course keeps an
+     * adjacency array with the ids of its direct prerequisites, so a lookup costs a hash probe and an array read
+     * instead of a file read.</p>
+     *
+     * <p>Graphs are shared by every {@link Curriculum} of the same program through {@link #forProgram(String, String)}.
+     * A cached graph is only parsed again when the last-modified time of its file changes. That time is looked up at
+     * most once every {@code checklist.prerequisiteRecheckMillis} (default 1000 ms), so the prerequisite checks made
+     * while the user picks electives do not each touch the file system; 0 looks it up on every call. On the event
+     * dispatch thread, {@link #forProgramWithoutWaiting(String, String)} leaves that lookup, and the parse it may
+     * lead to, to a background task.</p>
+     *
+     * <p>Parsing a graph also compiles its {@link EligibilityEngine}, which turns the adjacency arrays into
+     * prerequisite and dependent bitsets and checks the graph for cycles.</p>
+     *
+     * Template in file: courseNo, prerequisite1, prerequisite2, ...
+     * Example: CS 211,CS 112,CS 113
+     */
+    private static final Map<String, PrerequisiteGraph> CACHE = new ConcurrentHashMap<>();
+    private static final int[] NONE = new int[0];
+    static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("checklist.prerequisiteRecheckMillis", 1000));
+
+    private final String program;
+    private final long lastModified;
+    private final Map<String, Integer> ids;
+    private final String[] codes;
+    private final int[][] prerequisites;
+    private final EligibilityEngine eligibility;
+    private volatile long checkedAt;
+
+    /**
+     * Constructs a compiled graph from the interned course numbers and their adjacency arrays.
+     *
+     * @param program       the program the graph belongs to.
+     * @param lastModified  the last-modified time of the file the graph was parsed from.
+     * @param ids           the mapping of course numbers to their ids.
+     * @param codes         the course numbers indexed by id.
+     * @param prerequisites the ids of the direct prerequisites of each course, indexed by id.
+     */
+    private PrerequisiteGraph(String program, long lastModified, Map<String, Integer> ids,
+                              String[] codes, int[][] prerequisites) {
+        this.program = program;
+        this.lastModified = lastModified;
+        this.ids = ids;
+        this.codes = codes;
+        this.prerequisites = prerequisites;
+        this.eligibility = new EligibilityEngine(this);
+        this.checkedAt = System.nanoTime();
+    }
+
+    /**
+     * Returns the shared graph of a program, parsing the prerequisite file only if it has not been parsed yet
+     * or if it was modified since it was last parsed. A graph whose file was looked up less than
+     * {@link #RECHECK_NANOS} ago is returned without looking at the file.
+     *
+     * @param directory the directory holding the course reference files.
+     * @param program   the program whose prerequisites are needed.
+     * @return the compiled prerequisite graph of the program.
+     */
+    public static PrerequisiteGraph forProgram(String directory, String program) {
+        File file = new File(directory + program.toLowerCase() + "prerequisites.txt");
+        PrerequisiteGraph graph = CACHE.get(file.getPath());
+        long now = System.nanoTime();
+        if (graph != null && now - graph.checkedAt < RECHECK_NANOS) {
+            Metrics.cacheLookup("prerequisites", true);
+            return graph;
+        }
+        return recheck(file, program, graph, now);
+    }
+
+    /**
+     * Returns the shared graph of a program without touching the file system on the calling thread, for the event
+     * dispatch thread. A cached graph is returned as it is; if its file was looked up more than
+     * {@link #RECHECK_NANOS} ago, the file is looked up again, and parsed if it changed, by a background task (see
+     * {@link BackgroundTasks#execute(Runnable)}), and later calls get the new graph. Only a program without a
+     * graph yet is parsed on the calling thread.
+     *
+     * @param directory the directory holding the course reference files.
+     * @param program   the program whose prerequisites are needed.
+     * @return the compiled prerequisite graph of the program, possibly one recheck behind its file.
+     */
+    public static PrerequisiteGraph forProgramWithoutWaiting(String directory, String program) {
+        File file = new File(directory + program.toLowerCase() + "prerequisites.txt");
+        PrerequisiteGraph graph = CACHE.get(file.getPath());
+        if (graph == null) {
+            return forProgram(directory, program);
+        }
+        long now = System.nanoTime();
+        if (now - graph.checkedAt >= RECHECK_NANOS) {
+            // Checked now, so the calls until the recheck is done do not queue their own
+            graph.checkedAt = now;
+            BackgroundTasks.execute(() -> recheck(file, program, graph, now));
+        }
+        Metrics.cacheLookup("prerequisites", true);
+        return graph;
+    }
+
+    /**
+     * Looks up the last-modified time of a prerequisite file and parses it again if it changed since the cached
+     * graph was parsed.
+     *
+     * @param file    the prerequisite file.
+     * @param program the program the file belongs to.
+     * @param graph   the cached graph, or null if there is none.
+     * @param now     the time of the lookup, from {@link System#nanoTime()}.
+     * @return the graph of the file as it is now.
+     */
+    private static PrerequisiteGraph recheck(File file, String program, PrerequisiteGraph graph, long now) {
+        long modified = file.lastModified();
+        boolean hit = graph != null && graph.lastModified == modified;
+        Metrics.cacheLookup("prerequisites", hit);
+        if (hit) {
+            graph.checkedAt = now;
+            return graph;
+        }
+        return CACHE.compute(file.getPath(), (k, cached) ->
+                cached != null && cached.lastModified == modified ? cached : parse(file, program, modified));
+    }
+
+    /**
+     * Reads and compiles a prerequisite file. A missing file results in an empty graph.
+     *
+     * @param file         the prerequisite file to read.
+     * @param program      the program the file belongs to.
+     * @param lastModified the last-modified time of the file.
+     * @return the compiled prerequisite graph.
+     */
+    private static PrerequisiteGraph parse(File file, String program, long lastModified) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        Map<Integer, int[]> edges = new HashMap<>();
+        try {
+            ByteBuffer contents = CatalogParser.read(file);
+            Metrics.count("bytes.read.prerequisites", contents.remaining());
+            CatalogParser parser = new CatalogParser(contents);
+            List<Integer> adjacent = new ArrayList<>();
+            while (parser.nextLine()) {
+                String courseNo = parser.nextTrimmedString();
+                if (courseNo.isEmpty()) {
+                    continue;
+                }
+                int course = intern(courseNo, ids, codes);
+                adjacent.clear();
+                while (parser.hasField()) {
+                    String prerequisite = parser.nextTrimmedString();
+                    if (!prerequisite.isEmpty()) {
+                        adjacent.add(intern(prerequisite, ids, codes));
+                    }
+                }
+                int[] edge = new int[adjacent.size()];
+                for (int i = 0; i < edge.length; i++) {
+                    edge[i] = adjacent.get(i);
+                }
+                edges.put(course, edge);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        int[][] prerequisites = new int[codes.size()][];
+        for (int i = 0; i < prerequisites.length; i++) {
+            prerequisites[i] = edges.getOrDefault(i, NONE);
+        }
+        return new PrerequisiteGraph(program, lastModified, ids, codes.toArray(new String[0]), prerequisites);
+    }
+
+    /**
+     * Returns the id of a course number, assigning the next free id if it has not been seen yet.
+     *
+     * @param courseNo the course number to intern.
+     * @param ids      the mapping of course numbers to ids built so far.
+     * @param codes    the course numbers indexed by id built so far.
+     * @return the id of the course number.
+     */
+    private static int intern(String courseNo, Map<String, Integer> ids, List<String> codes) {
+        Integer id = ids.get(courseNo);
+        if (id == null) {
+            id = codes.size();
+            ids.put(courseNo, id);
+            codes.add(courseNo.intern());
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a course number.
+     *
+     * @param courseNo the course number to look up.
+     * @return the id of the course, or -1 if the course does not appear in the graph.
+     */
+    public int idOf(String courseNo) {
+        Integer id = ids.get(courseNo);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the course number of an id.
+     *
+     * @param id the id of the course.
+     * @return the course number.
+     */
+    public String codeOf(int id) {
+        return codes[id];
+    }
+
+    /**
+     * Gets the ids of the direct prerequisites of a course. The returned array is shared and must not be modified.
+     *
+     * @param id the id of the course.
+     * @return the ids of the direct prerequisites.
+     */
+    public int[] prerequisitesOf(int id) {
+        return prerequisites[id];
+    }
+
+    /**
+     * Gets the ids of the direct prerequisites of a course number. The returned array is shared and must not be modified.
+     *
+     * @param courseNo the course number.
+     * @return the ids of the direct prerequisites, or an empty array if the course has none or is not in the graph.
+     */
+    public int[] prerequisitesOf(String courseNo) {
+        int id = idOf(courseNo);
+        return id == -1 ? NONE : prerequisites[id];
+    }
+
+    /**
+     * Gets the number of distinct course numbers in the graph.
+     *
+     * @return the number of courses.
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Gets the eligibility engine compiled from the graph.
+     *
+     * @return the eligibility engine.
+     */
+    public EligibilityEngine getEligibility() {
+        return eligibility;
+    }
+
+    /**
+     * Gets the program the graph belongs to.
+     *
+     * @return the program.
+     */
+    public String getProgram() {
+        return program;
+    }
+}
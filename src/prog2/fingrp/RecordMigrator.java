@@ -0,0 +1,56 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class RecordMigrator {
+    /**
+     * <p>Converts the student files in the data folder from Java serialization to the binary record format of
+     * {@link CurriculumCodec}. Files that are already binary records are skipped, so the migrator can be run more
+     * than once. Each file is written to a temporary file first and then moved over the original, so an interrupted
+     * run never leaves a half-written record behind, and each file is locked while it is converted (see
+     * {@link StudentLocks}).</p>
+     *
+     * <p>Usage: {@code java prog2.fingrp.RecordMigrator [dataFolder]}. The data folder defaults to the one the
+     * application uses.</p>
+     */
+
+    @SuppressWarnings("try")
+    public static void main(String[] args) {
+        File folder = new File(args.length > 0 ? args[0] : Curriculum.DATA_FILE_LOCATION);
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(".ser"));
+        if (files == null) {
+            System.out.println("Data folder not found: " + folder.getAbsolutePath());
+            return;
+        }
+
+        int migrated = 0;
+        int skipped = 0;
+        int failed = 0;
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        for (File file : files) {
+            try (StudentLocks.Lock lock = StudentLocks.lock(file)) {
+                byte[] data = Files.readAllBytes(file.toPath());
+                if (CurriculumCodec.isEncoded(data)) {
+                    skipped++;
+                    continue;
+                }
+                byte[] record = CurriculumCodec.encode(Curriculum.readRecord(file));
+                Curriculum.writeAtomically(file, record);
+                migrated++;
+                bytesBefore += data.length;
+                bytesAfter += record.length;
+                System.out.println("Migrated " + file.getName() + ": " + data.length + " -> " + record.length + " bytes");
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                failed++;
+                System.out.println("Could not migrate " + file.getName() + ": " + e);
+            }
+        }
+        System.out.println(migrated + " migrated, " + skipped + " already binary, " + failed + " failed");
+        if (migrated > 0) {
+            System.out.println("Total size: " + bytesBefore + " -> " + bytesAfter + " bytes");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package prog2.fingrp;
+
+import java.util.List;
+
+public final class SemesterAggregates implements CourseChangeListener {
+    /**
+     * <p>Keeps the grade sum, unit sum and number of courses of every (year, semester) of a course list. The totals
+     * are built once from the list and then kept up to date as courses change: the aggregates observe the
+     * {@link CourseList} of the curriculum through {@link CourseChangeListener}, so a new grade or unit moves the old values out of the totals and the new
+     * ones in, in constant time. Inserted and removed courses are added and subtracted the same way by
+     * {@link Curriculum}.</p>
+     *
+     * <p>Grades and units are floats and the sums are doubles, so adding and subtracting them is exact and the
+     * totals never drift from a fresh sum of the list.</p>
+     *
+     * <p>The totals are held in arrays indexed by year and semester, which grow if a course has a year or semester
+     * outside the usual range. Like the course list itself, the aggregates are not thread-safe.</p>
+     */
+    private static final int INITIAL_YEARS = 6;
+    private static final int INITIAL_SEMESTERS = 4;
+
+    private int years = INITIAL_YEARS;
+    private int semesters = INITIAL_SEMESTERS;
+    private double[] gradeSums = new double[years * semesters];
+    private double[] unitSums = new double[years * semesters];
+    private int[] counts = new int[years * semesters];
+
+    /**
+     * Builds the aggregates of a list of courses.
+     *
+     * @param courses the courses to aggregate.
+     */
+    public SemesterAggregates(List<? extends AbstractCourse> courses) {
+        for (AbstractCourse course : courses) {
+            add(course);
+        }
+    }
+
+    /**
+     * Adds a course to the totals of its semester.
+     *
+     * @param course the course to add.
+     */
+    public void add(AbstractCourse course) {
+        apply(course.getYear(), course.getSemester(), course.getUnit(), course.getGrade(), 1);
+    }
+
+    /**
+     * Removes a course from the totals of its semester.
+     *
+     * @param course the course to remove.
+     */
+    public void remove(AbstractCourse course) {
+        apply(course.getYear(), course.getSemester(), course.getUnit(), course.getGrade(), -1);
+    }
+
+    /**
+     * Moves the old values of a changed course out of the totals and its new values in.
+     */
+    @Override
+    public void courseChanged(AbstractCourse course, byte oldYear, byte oldSemester, float oldUnit, float oldGrade) {
+        apply(oldYear, oldSemester, oldUnit, oldGrade, -1);
+        add(course);
+    }
+
+    /**
+     * Gets the sum of the grades of a semester. Courses without a grade count as zero.
+     *
+     * @param year     the year of the semester.
+     * @param semester the semester.
+     * @return the grade sum.
+     */
+    public double getGradeSum(byte year, byte semester) {
+        int slot = slotOf(year, semester);
+        return slot == -1 ? 0 : gradeSums[slot];
+    }
+
+    /**
+     * Gets the sum of the units of a semester.
+     *
+     * @param year     the year of the semester.
+     * @param semester the semester.
+     * @return the unit sum.
+     */
+    public double getUnitSum(byte year, byte semester) {
+        int slot = slotOf(year, semester);
+        return slot == -1 ? 0 : unitSums[slot];
+    }
+
+    /**
+     * Gets the number of courses of a semester.
+     *
+     * @param year     the year of the semester.
+     * @param semester the semester.
+     * @return the number of courses.
+     */
+    public int getCount(byte year, byte semester) {
+        int slot = slotOf(year, semester);
+        return slot == -1 ? 0 : counts[slot];
+    }
+
+    /**
+     * Gets the average grade of a semester, the GPA shown by the GPA report.
+     *
+     * @param year     the year of the semester.
+     * @param semester the semester.
+     * @return the average grade, or NaN if the semester has no courses.
+     */
+    public double getAverage(byte year, byte semester) {
+        return getGradeSum(year, semester) / getCount(year, semester);
+    }
+
+    /**
+     * Adds or subtracts the values of a course in the totals of a semester.
+     *
+     * @param year     the year of the course.
+     * @param semester the semester of the course.
+     * @param unit     the unit of the course.
+     * @param grade    the grade of the course.
+     * @param sign     1 to add the course, -1 to subtract it.
+     */
+    private void apply(byte year, byte semester, float unit, float grade, int sign) {
+        int y = year & 0xFF;
+        int s = semester & 0xFF;
+        if (y >= years || s >= semesters) {
+            grow(Math.max(years, y + 1), Math.max(semesters, s + 1));
+        }
+        int slot = y * semesters + s;
+        gradeSums[slot] += sign * grade;
+        unitSums[slot] += sign * unit;
+        counts[slot] += sign;
+    }
+
+    /**
+     * Gets the array slot of a semester.
+     *
+     * @return the slot, or -1 if no course has been seen for the semester.
+     */
+    private int slotOf(byte year, byte semester) {
+        int y = year & 0xFF;
+        int s = semester & 0xFF;
+        return y < years && s < semesters ? y * semesters + s : -1;
+    }
+
+    /**
+     * Enlarges the arrays to hold the given number of years and semesters, keeping the totals.
+     */
+    private void grow(int newYears, int newSemesters) {
+        double[] newGradeSums = new double[newYears * newSemesters];
+        double[] newUnitSums = new double[newYears * newSemesters];
+        int[] newCounts = new int[newYears * newSemesters];
+        for (int y = 0; y < years; y++) {
+            System.arraycopy(gradeSums, y * semesters, newGradeSums, y * newSemesters, semesters);
+            System.arraycopy(unitSums, y * semesters, newUnitSums, y * newSemesters, semesters);
+            System.arraycopy(counts, y * semesters, newCounts, y * newSemesters, semesters);
+        }
+        years = newYears;
+        semesters = newSemesters;
+        gradeSums = newGradeSums;
+        unitSums = newUnitSums;
+        counts = newCounts;
+    }
+}
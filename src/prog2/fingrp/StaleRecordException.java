@@ -0,0 +1,58 @@
+package prog2.fingrp;
+
+import java.io.IOException;
+
+public class StaleRecordException extends IOException {
+    /**
+     * <p>Thrown when a curriculum is saved over a record file that another window or process wrote after the
+     * curriculum was read. Writing it would silently undo the other changes, so nothing is written; the curriculum
+     * is marked stale and has to be loaded again.</p>
+     */
+    private static final long serialVersionUID = 1L;
+
+    private final String fileName;
+    private final long expectedVersion;
+    private final long foundVersion;
+
+    /**
+     * Constructs the exception for a record file whose version is not the one the curriculum was read at.
+     *
+     * @param fileName        the name of the record file.
+     * @param expectedVersion the version the curriculum was read at.
+     * @param foundVersion    the version of the record file now.
+     */
+    public StaleRecordException(String fileName, long expectedVersion, long foundVersion) {
+        super(fileName + " was changed by another session (version " + foundVersion + ", read at version "
+                + expectedVersion + "); the changes of this session were not saved");
+        this.fileName = fileName;
+        this.expectedVersion = expectedVersion;
+        this.foundVersion = foundVersion;
+    }
+
+    /**
+     * Gets the name of the record file.
+     *
+     * @return the file name.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Gets the version of the record file when the curriculum was read or last saved.
+     *
+     * @return the expected version.
+     */
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * Gets the version of the record file found when saving.
+     *
+     * @return the version on disk.
+     */
+    public long getFoundVersion() {
+        return foundVersion;
+    }
+}
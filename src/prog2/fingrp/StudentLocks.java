@@ -0,0 +1,141 @@
+package prog2.fingrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class StudentLocks {
+    /**
+     * <p>Locks the files of one student, the record file and its grade journal, so only one writer at a time changes
+     * them, whether it is another window of this application or another process. Every record file has its own
+     * lock, so students never wait for each other.</p>
+     *
+     * <p>A lock is taken in two steps: first a {@link ReentrantLock} for the threads of this JVM, then an operating
+     * system lock on {@code <id><program>.lock} next to the record file, taken through a {@link FileChannel}, for
+     * other processes. The lock file is kept after the lock is released, since deleting it could let two processes
+     * lock two different files of the same name. The lock is reentrant; only the outermost hold takes and releases
+     * the file lock, since a JVM cannot lock the same file twice.</p>
+     *
+     * <p>A lock is kept in the map only while a thread holds it or waits for it: every call to {@link #lock(File)}
+     * counts a user, every close drops one, and the last close removes the entry, so a job touching every student
+     * does not leave one entry per student behind.</p>
+     *
+     * <p>Usage: {@code try (StudentLocks.Lock lock = StudentLocks.lock(recordFile)) { ... }}</p>
+     */
+    private static final Map<String, Lock> LOCKS = new ConcurrentHashMap<>();
+
+    private StudentLocks() {
+    }
+
+    /**
+     * Locks the files of a student, waiting for the threads and processes that hold the lock.
+     *
+     * @param recordFile the record file of the student.
+     * @return the held lock, released by closing it.
+     * @throws IOException if the lock file cannot be opened or locked.
+     */
+    static Lock lock(File recordFile) throws IOException {
+        String path = recordFile.getAbsolutePath();
+        Lock lock = LOCKS.compute(path, (k, held) -> {
+            Lock entry = held == null ? new Lock(k, lockFileOf(recordFile)) : held;
+            entry.users++;
+            return entry;
+        });
+        try {
+            lock.acquire();
+        } catch (IOException | RuntimeException e) {
+            release(lock);
+            throw e;
+        }
+        return lock;
+    }
+
+    /**
+     * Drops one user of a lock and removes the lock from the map once nobody uses it.
+     */
+    private static void release(Lock lock) {
+        LOCKS.computeIfPresent(lock.path, (k, held) -> --held.users == 0 ? null : held);
+    }
+
+    /**
+     * Gets the lock file of a record file: the same name with the extension {@code .lock}.
+     */
+    private static File lockFileOf(File recordFile) {
+        String name = recordFile.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot < 0 ? name : name.substring(0, dot);
+        return new File(recordFile.getAbsoluteFile().getParentFile(), baseName + ".lock");
+    }
+
+    /**
+     * The lock of one record file.
+     */
+    static final class Lock implements AutoCloseable {
+        private final String path;
+        private final File file;
+        private final ReentrantLock local = new ReentrantLock();
+        private FileChannel channel;
+        private FileLock fileLock;
+        /** The threads holding or waiting for the lock, counted per hold; only changed inside the map. */
+        private int users;
+
+        private Lock(String path, File file) {
+            this.path = path;
+            this.file = file;
+        }
+
+        /**
+         * Takes the lock of this JVM, then, for the outermost hold, the lock of the lock file.
+         */
+        private void acquire() throws IOException {
+            local.lock();
+            if (local.getHoldCount() > 1) {
+                return;
+            }
+            try {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                fileLock = channel.lock();
+            } catch (IOException | RuntimeException e) {
+                closeChannel();
+                local.unlock();
+                throw e;
+            }
+        }
+
+        /**
+         * Releases one hold of the lock, and for the outermost hold also the lock of the lock file.
+         */
+        @Override
+        public void close() {
+            if (local.getHoldCount() == 1) {
+                try {
+                    if (fileLock != null) {
+                        fileLock.release();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                closeChannel();
+            }
+            local.unlock();
+            release(this);
+        }
+
+        private void closeChannel() {
+            fileLock = null;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                channel = null;
+            }
+        }
+    }
+}